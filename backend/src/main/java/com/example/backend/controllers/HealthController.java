@@ -1,13 +1,32 @@
 package com.example.backend.controllers;
 
 
+import com.example.backend.models.StartupStatus;
+import com.example.backend.services.HistorySampleLoader;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 public class HealthController {
+    private final HistorySampleLoader historySampleLoader;
+
+    public HealthController(HistorySampleLoader historySampleLoader) {
+        this.historySampleLoader = historySampleLoader;
+    }
+
     @GetMapping("/health")
     public String health() {
         return "OK";
     }
+
+    @CrossOrigin(origins = "*")
+    @GetMapping("/health/ready")
+    public ResponseEntity<StartupStatus> ready() {
+        StartupStatus status = historySampleLoader.getStatus();
+        HttpStatus httpStatus = historySampleLoader.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(httpStatus).body(status);
+    }
 }
@@ -0,0 +1,55 @@
+package com.example.backend.controllers;
+
+import com.example.backend.models.HostBucketCount;
+import com.example.backend.models.TimeBucketCount;
+import com.example.backend.models.TopicBucketCount;
+import com.example.backend.repositories.HistoryRollupRepository;
+import com.example.backend.services.VisitRollups;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+import static com.example.backend.controllers.HistoryStatsController.parseBucket;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/rollups")
+public class HistoryRollupController {
+
+    private final HistoryRollupRepository historyRollupRepository;
+    private final VisitRollups visitRollups;
+
+    public HistoryRollupController(HistoryRollupRepository historyRollupRepository, VisitRollups visitRollups) {
+        this.historyRollupRepository = historyRollupRepository;
+        this.visitRollups = visitRollups;
+    }
+
+    @GetMapping("/activity")
+    public List<TimeBucketCount> getActivity(@RequestParam(value = "bucket", defaultValue = "day") String bucket,
+            @RequestParam(value = "from", required = false) Long fromUsec,
+            @RequestParam(value = "to", required = false) Long toUsec) {
+        return historyRollupRepository.countVisitsByBucket(parseBucket(bucket), fromUsec, toUsec);
+    }
+
+    @GetMapping("/topics")
+    public List<TopicBucketCount> getTopicShare(@RequestParam(value = "bucket", defaultValue = "day") String bucket,
+            @RequestParam(value = "from", required = false) Long fromUsec,
+            @RequestParam(value = "to", required = false) Long toUsec) {
+        return historyRollupRepository.countVisitsByTopic(parseBucket(bucket), fromUsec, toUsec);
+    }
+
+    @GetMapping("/hosts")
+    public List<HostBucketCount> getHostActivity(@RequestParam("host") String host,
+            @RequestParam(value = "bucket", defaultValue = "day") String bucket,
+            @RequestParam(value = "from", required = false) Long fromUsec,
+            @RequestParam(value = "to", required = false) Long toUsec) {
+        return historyRollupRepository.countVisitsForHost(host, parseBucket(bucket), fromUsec, toUsec);
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<Void> rebuild() {
+        visitRollups.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,9 +1,20 @@
 package com.example.backend.controllers;
 
+import com.example.backend.models.HistoryPage;
 import com.example.backend.models.MlDataResponse;
+import com.example.backend.models.UploadJobStatus;
 import com.example.backend.services.HistoryQueryService;
+import com.example.backend.services.UploadJobService;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.SequenceWriter;
 
 import java.util.List;
 
@@ -11,10 +22,18 @@ import java.util.List;
 @RestController
 @RequestMapping("/api")
 public class HistorySampleController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int FLUSH_EVERY_ROWS = 500;
+
     private final HistoryQueryService historyQueryService;
+    private final ObjectMapper objectMapper;
+    private final UploadJobService uploadJobService;
 
-    public HistorySampleController(HistoryQueryService historyQueryService) {
+    public HistorySampleController(HistoryQueryService historyQueryService, ObjectMapper objectMapper,
+            UploadJobService uploadJobService) {
         this.historyQueryService = historyQueryService;
+        this.objectMapper = objectMapper;
+        this.uploadJobService = uploadJobService;
     }
 
     @CrossOrigin(origins = "*")
@@ -23,10 +42,71 @@ public class HistorySampleController {
         return historyQueryService.getHistorySample();
     }
 
+    @CrossOrigin(origins = "*")
+    @GetMapping("/history-sample/stream")
+    public ResponseEntity<StreamingResponseBody> streamHistorySample(
+            @RequestParam(value = "format", defaultValue = "json") String format) {
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        if (!ndjson && !"json".equalsIgnoreCase(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported stream format: " + format);
+        }
+
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = ndjson
+                    ? objectMapper.writer().withRootValueSeparator("\n").writeValues(out)
+                    : objectMapper.writer().writeValuesAsArray(out)) {
+                int[] written = {0};
+                historyQueryService.streamHistorySample(row -> {
+                    writer.write(row);
+                    if (++written[0] % FLUSH_EVERY_ROWS == 1) {
+                        writer.flush();
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(ndjson ? NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @CrossOrigin(origins = "*")
+    @GetMapping("/history")
+    public HistoryPage getHistoryPage(@RequestParam(value = "from", required = false) Long fromUsec,
+            @RequestParam(value = "to", required = false) Long toUsec,
+            @RequestParam(value = "host", required = false) String host,
+            @RequestParam(value = "topic", required = false) String topic,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return historyQueryService.getHistoryPage(fromUsec, toUsec, host, topic, cursor, limit);
+    }
+
     @CrossOrigin(origins = "*")
     @PostMapping("/history/upload")
     public List<MlDataResponse> uploadHistory(@RequestParam(value = "file", required = false) MultipartFile file,
             @RequestParam(value = "zip", required = false) MultipartFile zipFile) {
         return historyQueryService.processUploadedHistory(file, zipFile);
     }
+
+    @CrossOrigin(origins = "*")
+    @PostMapping("/history/upload/jobs")
+    public ResponseEntity<UploadJobStatus> submitUploadJob(
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "zip", required = false) MultipartFile zipFile) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(uploadJobService.submit(file, zipFile));
+    }
+
+    @CrossOrigin(origins = "*")
+    @GetMapping("/history/upload/jobs/{jobId}")
+    public UploadJobStatus getUploadJob(@PathVariable String jobId) {
+        return uploadJobService.getStatus(jobId);
+    }
+
+    @CrossOrigin(origins = "*")
+    @GetMapping("/history/upload/jobs/{jobId}/results")
+    public ResponseEntity<Resource> getUploadJobResults(@PathVariable String jobId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(uploadJobService.getResults(jobId));
+    }
 }
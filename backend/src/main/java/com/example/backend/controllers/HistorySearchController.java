@@ -0,0 +1,35 @@
+package com.example.backend.controllers;
+
+import com.example.backend.models.SearchHit;
+import com.example.backend.services.HistorySearchIndex;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/search")
+public class HistorySearchController {
+    private static final int MAX_LIMIT = 100;
+
+    private final HistorySearchIndex historySearchIndex;
+
+    public HistorySearchController(HistorySearchIndex historySearchIndex) {
+        this.historySearchIndex = historySearchIndex;
+    }
+
+    @GetMapping
+    public List<SearchHit> search(@RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "prefix", defaultValue = "true") boolean prefix) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (!historySearchIndex.isEnabled()) {
+            return List.of();
+        }
+        return historySearchIndex.search(query, limit, prefix);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.backend.controllers;
+
+import com.example.backend.models.HostCount;
+import com.example.backend.models.HostGraph;
+import com.example.backend.models.HostTransition;
+import com.example.backend.models.TimeBucket;
+import com.example.backend.models.TimeBucketCount;
+import com.example.backend.models.TopicCount;
+import com.example.backend.repositories.HistoryStatsRepository;
+import com.example.backend.services.ColumnarHistoryStore;
+import com.example.backend.services.HostGraphIndex;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/stats")
+public class HistoryStatsController {
+    private static final int MAX_LIMIT = 1000;
+    private static final long DEFAULT_SESSION_GAP_USEC = 30L * 60 * 1_000_000;
+
+    private final HistoryStatsRepository historyStatsRepository;
+    private final HostGraphIndex hostGraphIndex;
+    private final ColumnarHistoryStore columnarHistoryStore;
+
+    public HistoryStatsController(HistoryStatsRepository historyStatsRepository, HostGraphIndex hostGraphIndex,
+            ColumnarHistoryStore columnarHistoryStore) {
+        this.historyStatsRepository = historyStatsRepository;
+        this.hostGraphIndex = hostGraphIndex;
+        this.columnarHistoryStore = columnarHistoryStore;
+    }
+
+    @GetMapping("/topics")
+    public List<TopicCount> getTopicCounts(@RequestParam(value = "from", required = false) Long fromUsec,
+            @RequestParam(value = "to", required = false) Long toUsec) {
+        if (columnarHistoryStore.isEnabled()) {
+            return columnarHistoryStore.countVisitsByTopic(fromUsec, toUsec);
+        }
+        return historyStatsRepository.countVisitsByTopic(fromUsec, toUsec);
+    }
+
+    @GetMapping("/hosts")
+    public List<HostCount> getTopHosts(@RequestParam(value = "from", required = false) Long fromUsec,
+            @RequestParam(value = "to", required = false) Long toUsec,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        if (columnarHistoryStore.isEnabled()) {
+            return columnarHistoryStore.findTopHosts(fromUsec, toUsec, checkLimit(limit));
+        }
+        return historyStatsRepository.findTopHosts(fromUsec, toUsec, checkLimit(limit));
+    }
+
+    @GetMapping("/activity")
+    public List<TimeBucketCount> getActivity(@RequestParam(value = "bucket", defaultValue = "day") String bucket,
+            @RequestParam(value = "from", required = false) Long fromUsec,
+            @RequestParam(value = "to", required = false) Long toUsec) {
+        if (columnarHistoryStore.isEnabled()) {
+            return columnarHistoryStore.countVisitsByBucket(parseBucket(bucket), fromUsec, toUsec);
+        }
+        return historyStatsRepository.countVisitsByBucket(parseBucket(bucket), fromUsec, toUsec);
+    }
+
+    @GetMapping("/transitions")
+    public List<HostTransition> getTransitions(@RequestParam(value = "from", required = false) Long fromUsec,
+            @RequestParam(value = "to", required = false) Long toUsec,
+            @RequestParam(value = "gap", required = false) Long maxGapUsec,
+            @RequestParam(value = "limit", defaultValue = "200") int limit) {
+        long gap = maxGapUsec != null ? maxGapUsec : DEFAULT_SESSION_GAP_USEC;
+        return historyStatsRepository.findHostTransitions(fromUsec, toUsec, gap, checkLimit(limit));
+    }
+
+    @GetMapping("/graph")
+    public HostGraph getGraph(@RequestParam(value = "limit", defaultValue = "300") int limit) {
+        return hostGraphIndex.topEdges(checkLimit(limit));
+    }
+
+    static TimeBucket parseBucket(String bucket) {
+        try {
+            return TimeBucket.valueOf(bucket.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported bucket: " + bucket, e);
+        }
+    }
+
+    static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.backend.controllers;
+
+import com.example.backend.models.SimilarHost;
+import com.example.backend.services.HostSimilarityIndex;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/hosts")
+public class HostSimilarityController {
+    private static final int MAX_K = 500;
+
+    private final HostSimilarityIndex hostSimilarityIndex;
+
+    public HostSimilarityController(HostSimilarityIndex hostSimilarityIndex) {
+        this.hostSimilarityIndex = hostSimilarityIndex;
+    }
+
+    @GetMapping("/similar")
+    public List<SimilarHost> getSimilarHosts(@RequestParam("host") String host,
+            @RequestParam(value = "k", defaultValue = "10") int k,
+            @RequestParam(value = "metric", defaultValue = "cosine") String metric,
+            @RequestParam(value = "mode", defaultValue = "exact") String mode,
+            @RequestParam(value = "probes", defaultValue = "0") int probes) {
+        checkK(k);
+        HostSimilarityIndex.Metric parsedMetric = parseMetric(metric);
+        boolean approximate = parseApproximate(mode);
+        if (!hostSimilarityIndex.isEnabled()) {
+            return List.of();
+        }
+        return hostSimilarityIndex.findSimilar(host, k, parsedMetric, approximate, probes);
+    }
+
+    static int checkK(int k) {
+        if (k < 1 || k > MAX_K) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "k must be between 1 and " + MAX_K);
+        }
+        return k;
+    }
+
+    static HostSimilarityIndex.Metric parseMetric(String metric) {
+        try {
+            return HostSimilarityIndex.Metric.valueOf(metric.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported metric: " + metric, e);
+        }
+    }
+
+    static boolean parseApproximate(String mode) {
+        return switch (mode.toLowerCase()) {
+            case "exact" -> false;
+            case "approximate", "approx" -> true;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported mode: " + mode);
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.backend.controllers;
+
+import com.example.backend.models.CacheStats;
+import com.example.backend.models.UploadCacheStats;
+import com.example.backend.services.HostPredictionCache;
+import com.example.backend.services.ResponseCache;
+import com.example.backend.services.UploadResultCache;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+    private final HostPredictionCache hostPredictionCache;
+    private final UploadResultCache uploadResultCache;
+    private final ResponseCache responseCache;
+
+    public MetricsController(HostPredictionCache hostPredictionCache, UploadResultCache uploadResultCache,
+            ResponseCache responseCache) {
+        this.hostPredictionCache = hostPredictionCache;
+        this.uploadResultCache = uploadResultCache;
+        this.responseCache = responseCache;
+    }
+
+    @GetMapping("/prediction-cache")
+    public CacheStats getPredictionCacheStats() {
+        return hostPredictionCache.getStats();
+    }
+
+    @GetMapping("/upload-cache")
+    public UploadCacheStats getUploadCacheStats() {
+        return uploadResultCache.getStats();
+    }
+
+    @GetMapping("/response-cache")
+    public CacheStats getResponseCacheStats() {
+        return responseCache.getStats();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.backend.controllers;
+
+import com.example.backend.services.DataGeneration;
+import com.example.backend.services.ResponseCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Conditional GET and response caching for the history and aggregate
+ * endpoints. The ETag is derived from the request and the current
+ * {@link DataGeneration}, so a matching {@code If-None-Match} is answered
+ * with 304 before any controller or database work. Otherwise the body is
+ * served from {@link ResponseCache}, gzip-compressed when the client accepts
+ * it, and built by the controller only on a miss.
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String GZIP_SUFFIX = "-gzip";
+
+    private final DataGeneration dataGeneration;
+    private final ResponseCache responseCache;
+    private final boolean enabled;
+    private final List<String> paths;
+
+    public ResponseCacheFilter(DataGeneration dataGeneration,
+                               ResponseCache responseCache,
+                               @Value("${app.response-cache.enabled:true}") boolean enabled,
+                               @Value("${app.response-cache.paths:/api/history-sample,/api/stats/,/api/rollups/,/api/sessions,/api/sessions/}") List<String> paths,
+                               @Value("${app.history-sample.refresh-on-request:false}") boolean refreshOnRequest) {
+        this.dataGeneration = dataGeneration;
+        this.responseCache = responseCache;
+        this.enabled = enabled;
+        // A refresh on request must reach the controller every time.
+        this.paths = refreshOnRequest
+                ? paths.stream().filter(p -> !p.equals("/api/history-sample")).toList()
+                : List.copyOf(paths);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !"GET".equals(request.getMethod()) || !cacheable(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getQueryString() != null
+                ? request.getRequestURI() + "?" + request.getQueryString()
+                : request.getRequestURI();
+        long generation = dataGeneration.current();
+        String tag = Long.toHexString(generation) + "-" + Integer.toHexString(key.hashCode());
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String etag = "\"" + tag + (gzip ? GZIP_SUFFIX : "") + "\"";
+
+        if (notModified(request.getHeader(HttpHeaders.IF_NONE_MATCH), tag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            writeCacheHeaders(request, response, etag);
+            return;
+        }
+
+        ResponseCache.Entry entry = responseCache.get(key, generation);
+        if (entry == null) {
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            chain.doFilter(request, wrapper);
+            if (wrapper.getStatus() != HttpServletResponse.SC_OK) {
+                wrapper.copyBodyToResponse();
+                return;
+            }
+            entry = responseCache.put(key, generation, wrapper.getContentType(), wrapper.getContentAsByteArray());
+        }
+
+        byte[] body = gzip ? entry.gzipped() : entry.body();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(entry.contentType());
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        writeCacheHeaders(request, response, etag);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private boolean cacheable(String path) {
+        for (String p : paths) {
+            if (p.endsWith("/") ? path.startsWith(p) : path.equals(p)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeCacheHeaders(HttpServletRequest request, HttpServletResponse response, String etag) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        // Cached responses skip the controllers' @CrossOrigin(origins = "*").
+        if (request.getHeader(HttpHeaders.ORIGIN) != null
+                && response.getHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN) == null) {
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+        }
+    }
+
+    /** True when any listed tag is either representation of {@code tag}, or {@code *}. */
+    static boolean notModified(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals("\"" + tag + "\"") || value.equals("\"" + tag + GZIP_SUFFIX + "\"")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] coding = part.trim().split(";");
+            if (coding[0].trim().equalsIgnoreCase("gzip")) {
+                return coding.length < 2 || !coding[1].replace(" ", "").equals("q=0");
+            }
+        }
+        return false;
+    }
+}
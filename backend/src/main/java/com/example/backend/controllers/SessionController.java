@@ -0,0 +1,53 @@
+package com.example.backend.controllers;
+
+import com.example.backend.models.SessionStats;
+import com.example.backend.models.SessionSummary;
+import com.example.backend.repositories.SessionRepository;
+import com.example.backend.services.VisitSessionizer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/sessions")
+public class SessionController {
+    private static final int MAX_LIMIT = 1000;
+
+    private final SessionRepository sessionRepository;
+    private final VisitSessionizer visitSessionizer;
+
+    public SessionController(SessionRepository sessionRepository, VisitSessionizer visitSessionizer) {
+        this.sessionRepository = sessionRepository;
+        this.visitSessionizer = visitSessionizer;
+    }
+
+    @GetMapping
+    public List<SessionSummary> getSessions(@RequestParam(value = "from", required = false) Long fromUsec,
+            @RequestParam(value = "to", required = false) Long toUsec,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return sessionRepository.findSessions(fromUsec, toUsec, checkLimit(limit));
+    }
+
+    @GetMapping("/summary")
+    public SessionStats getSummary(@RequestParam(value = "from", required = false) Long fromUsec,
+            @RequestParam(value = "to", required = false) Long toUsec) {
+        return sessionRepository.summarize(fromUsec, toUsec);
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<Void> rebuild() {
+        visitSessionizer.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+
+    static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.backend.models;
+
+import java.util.List;
+
+public class HistoryPage {
+
+    private List<MlDataResponse> items;
+    private String next_cursor;
+
+    public HistoryPage() {
+
+    }
+
+    public HistoryPage(List<MlDataResponse> items, String next_cursor) {
+        this.items = items;
+        this.next_cursor = next_cursor;
+    }
+
+    public List<MlDataResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<MlDataResponse> items) {
+        this.items = items;
+    }
+
+    public String getNext_cursor() {
+        return next_cursor;
+    }
+
+    public void setNext_cursor(String next_cursor) {
+        this.next_cursor = next_cursor;
+    }
+}
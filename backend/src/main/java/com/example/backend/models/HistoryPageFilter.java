@@ -0,0 +1,14 @@
+package com.example.backend.models;
+
+/**
+ * Filters for a keyset page, newest first. {@code cursorTimeUsec}/{@code cursorId}
+ * point at the last row of the previous page; a null cursor starts from the top.
+ */
+public record HistoryPageFilter(Long fromUsec,
+                                Long toUsec,
+                                String host,
+                                String topic,
+                                Long cursorTimeUsec,
+                                Long cursorId,
+                                int limit) {
+}
@@ -0,0 +1,41 @@
+package com.example.backend.models;
+
+public interface HistoryRowView {
+
+    Long getId();
+
+    String getTitle();
+
+    String getUrl();
+
+    Long getTime_usec();
+
+    String getHost();
+
+    String getPred_topic();
+
+    Double getPred_prob();
+
+    byte[] getProbs();
+
+    default MlDataRequest toRequest() {
+        MlDataRequest dto = new MlDataRequest();
+        dto.setTitle(getTitle());
+        dto.setUrl(getUrl());
+        dto.setTime_usec(getTime_usec());
+        dto.setHost(getHost());
+        return dto;
+    }
+
+    default MlDataResponse toResponse() {
+        MlDataResponse dto = new MlDataResponse();
+        dto.setTitle(getTitle());
+        dto.setUrl(getUrl());
+        dto.setTime_usec(getTime_usec());
+        dto.setHost(getHost());
+        dto.setPred_topic(getPred_topic());
+        dto.setPred_prob(getPred_prob());
+        dto.topics().decode(getProbs());
+        return dto;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.backend.models;
+
+public class HostBucketCount {
+
+    private final long bucket_start_usec;
+    private final String host;
+    private final long visits;
+
+    public HostBucketCount(long bucket_start_usec, String host, long visits) {
+        this.bucket_start_usec = bucket_start_usec;
+        this.host = host;
+        this.visits = visits;
+    }
+
+    public long getBucket_start_usec() {
+        return bucket_start_usec;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public long getVisits() {
+        return visits;
+    }
+}
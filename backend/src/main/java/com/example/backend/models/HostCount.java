@@ -0,0 +1,38 @@
+package com.example.backend.models;
+
+public class HostCount {
+
+    private final String host;
+    private final String pred_topic;
+    private final long visits;
+    private final Long first_visit_usec;
+    private final Long last_visit_usec;
+
+    public HostCount(String host, String pred_topic, long visits, Long first_visit_usec, Long last_visit_usec) {
+        this.host = host;
+        this.pred_topic = pred_topic;
+        this.visits = visits;
+        this.first_visit_usec = first_visit_usec;
+        this.last_visit_usec = last_visit_usec;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public String getPred_topic() {
+        return pred_topic;
+    }
+
+    public long getVisits() {
+        return visits;
+    }
+
+    public Long getFirst_visit_usec() {
+        return first_visit_usec;
+    }
+
+    public Long getLast_visit_usec() {
+        return last_visit_usec;
+    }
+}
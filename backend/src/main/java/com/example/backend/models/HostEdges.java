@@ -0,0 +1,64 @@
+package com.example.backend.models;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "host_edges",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_host_edges_pair",
+                columnNames = {"source_host_id", "target_host_id"}),
+        indexes = @Index(name = "idx_host_edges_weight", columnList = "weight"))
+public class HostEdges {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", updatable = false, nullable = false)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "source_host_id", nullable = false)
+    private Hosts source;
+
+    @ManyToOne
+    @JoinColumn(name = "target_host_id", nullable = false)
+    private Hosts target;
+
+    @Column(nullable = false)
+    private Long weight;
+
+    public HostEdges() {
+
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Hosts getSource() {
+        return source;
+    }
+
+    public void setSource(Hosts source) {
+        this.source = source;
+    }
+
+    public Hosts getTarget() {
+        return target;
+    }
+
+    public void setTarget(Hosts target) {
+        this.target = target;
+    }
+
+    public Long getWeight() {
+        return weight;
+    }
+
+    public void setWeight(Long weight) {
+        this.weight = weight;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.backend.models;
+
+import java.util.List;
+
+public class HostGraph {
+
+    private final List<HostGraphNode> nodes;
+    private final List<HostTransition> links;
+
+    public HostGraph(List<HostGraphNode> nodes, List<HostTransition> links) {
+        this.nodes = nodes;
+        this.links = links;
+    }
+
+    public List<HostGraphNode> getNodes() {
+        return nodes;
+    }
+
+    public List<HostTransition> getLinks() {
+        return links;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.backend.models;
+
+public class HostGraphNode {
+
+    private final String host;
+    private final String pred_topic;
+    private final long weight;
+
+    public HostGraphNode(String host, String pred_topic, long weight) {
+        this.host = host;
+        this.pred_topic = pred_topic;
+        this.weight = weight;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public String getPred_topic() {
+        return pred_topic;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+}
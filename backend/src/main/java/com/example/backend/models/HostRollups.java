@@ -0,0 +1,75 @@
+package com.example.backend.models;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "host_rollups",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_host_rollups_bucket_host",
+                columnNames = {"bucket", "bucket_start_usec", "host_id"}),
+        indexes = @Index(name = "idx_host_rollups_host", columnList = "host_id, bucket, bucket_start_usec"))
+public class HostRollups {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", updatable = false, nullable = false)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TimeBucket bucket;
+
+    @Column(nullable = false)
+    private Long bucket_start_usec;
+
+    @ManyToOne
+    @JoinColumn(name = "host_id", nullable = false)
+    private Hosts host;
+
+    @Column(nullable = false)
+    private Long visits;
+
+    public HostRollups() {
+
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public TimeBucket getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(TimeBucket bucket) {
+        this.bucket = bucket;
+    }
+
+    public Long getBucket_start_usec() {
+        return bucket_start_usec;
+    }
+
+    public void setBucket_start_usec(Long bucket_start_usec) {
+        this.bucket_start_usec = bucket_start_usec;
+    }
+
+    public Hosts getHost() {
+        return host;
+    }
+
+    public void setHost(Hosts host) {
+        this.host = host;
+    }
+
+    public Long getVisits() {
+        return visits;
+    }
+
+    public void setVisits(Long visits) {
+        this.visits = visits;
+    }
+}
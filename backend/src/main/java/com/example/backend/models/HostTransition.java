@@ -0,0 +1,26 @@
+package com.example.backend.models;
+
+public class HostTransition {
+
+    private final String source;
+    private final String target;
+    private final long weight;
+
+    public HostTransition(String source, String target, long weight) {
+        this.source = source;
+        this.target = target;
+        this.weight = weight;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+}
@@ -9,25 +9,19 @@ public class MlDataResponse {
 
     private String pred_topic;
     private Double pred_prob;
-    private Double prob_news;
-    private Double prob_shopping;
-    private Double prob_social;
-    private Double prob_video;
-    private Double prob_education;
-    private Double prob_work;
-    private Double prob_finance;
-    private Double prob_travel;
-    private Double prob_gaming;
-    private Double prob_entertainment;
-    private Double prob_tech;
-    private Double prob_services;
-    private Double prob_health;
-    private Double prob_government;
-    private Double prob_other;
+    private final TopicVector probs = new TopicVector();
 
     public MlDataResponse() {
     }
 
+    /**
+     * The prob_* values as one vector. The prob_* accessors read and write
+     * through it, so the JSON shape is unchanged.
+     */
+    public TopicVector topics() {
+        return probs;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -77,122 +71,128 @@ public class MlDataResponse {
     }
 
     public Double getProb_news() {
-        return prob_news;
+        return probs.getOrNull(Topic.NEWS);
     }
 
     public void setProb_news(Double prob_news) {
-        this.prob_news = prob_news;
+        probs.set(Topic.NEWS, prob_news);
     }
 
     public Double getProb_shopping() {
-        return prob_shopping;
+        return probs.getOrNull(Topic.SHOPPING);
     }
 
     public void setProb_shopping(Double prob_shopping) {
-        this.prob_shopping = prob_shopping;
+        probs.set(Topic.SHOPPING, prob_shopping);
     }
 
     public Double getProb_social() {
-        return prob_social;
+        return probs.getOrNull(Topic.SOCIAL);
     }
 
     public void setProb_social(Double prob_social) {
-        this.prob_social = prob_social;
+        probs.set(Topic.SOCIAL, prob_social);
     }
 
     public Double getProb_video() {
-        return prob_video;
+        return probs.getOrNull(Topic.VIDEO);
     }
 
     public void setProb_video(Double prob_video) {
-        this.prob_video = prob_video;
+        probs.set(Topic.VIDEO, prob_video);
     }
 
     public Double getProb_education() {
-        return prob_education;
+        return probs.getOrNull(Topic.EDUCATION);
     }
 
     public void setProb_education(Double prob_education) {
-        this.prob_education = prob_education;
+        probs.set(Topic.EDUCATION, prob_education);
     }
 
     public Double getProb_work() {
-        return prob_work;
+        return probs.getOrNull(Topic.WORK);
     }
 
     public void setProb_work(Double prob_work) {
-        this.prob_work = prob_work;
+        probs.set(Topic.WORK, prob_work);
     }
 
     public Double getProb_finance() {
-        return prob_finance;
+        return probs.getOrNull(Topic.FINANCE);
     }
 
     public void setProb_finance(Double prob_finance) {
-        this.prob_finance = prob_finance;
+        probs.set(Topic.FINANCE, prob_finance);
     }
 
     public Double getProb_travel() {
-        return prob_travel;
+        return probs.getOrNull(Topic.TRAVEL);
     }
 
     public void setProb_travel(Double prob_travel) {
-        this.prob_travel = prob_travel;
+        probs.set(Topic.TRAVEL, prob_travel);
     }
 
     public Double getProb_gaming() {
-        return prob_gaming;
+        return probs.getOrNull(Topic.GAMING);
     }
 
     public void setProb_gaming(Double prob_gaming) {
-        this.prob_gaming = prob_gaming;
+        probs.set(Topic.GAMING, prob_gaming);
     }
 
     public Double getProb_entertainment() {
-        return prob_entertainment;
+        return probs.getOrNull(Topic.ENTERTAINMENT);
     }
 
     public void setProb_entertainment(Double prob_entertainment) {
-        this.prob_entertainment = prob_entertainment;
+        probs.set(Topic.ENTERTAINMENT, prob_entertainment);
     }
 
     public Double getProb_tech() {
-        return prob_tech;
+        return probs.getOrNull(Topic.TECH);
     }
 
     public void setProb_tech(Double prob_tech) {
-        this.prob_tech = prob_tech;
+        probs.set(Topic.TECH, prob_tech);
     }
 
     public Double getProb_services() {
-        return prob_services;
+        return probs.getOrNull(Topic.SERVICES);
     }
 
     public void setProb_services(Double prob_services) {
-        this.prob_services = prob_services;
+        probs.set(Topic.SERVICES, prob_services);
     }
 
     public Double getProb_health() {
-        return prob_health;
+        return probs.getOrNull(Topic.HEALTH);
     }
 
     public void setProb_health(Double prob_health) {
-        this.prob_health = prob_health;
+        probs.set(Topic.HEALTH, prob_health);
     }
 
     public Double getProb_government() {
-        return prob_government;
+        return probs.getOrNull(Topic.GOVERNMENT);
     }
 
     public void setProb_government(Double prob_government) {
-        this.prob_government = prob_government;
+        probs.set(Topic.GOVERNMENT, prob_government);
     }
 
     public Double getProb_other() {
-        return prob_other;
+        return probs.getOrNull(Topic.OTHER);
     }
 
     public void setProb_other(Double prob_other) {
-        this.prob_other = prob_other;
+        probs.set(Topic.OTHER, prob_other);
+    }
+
+    public void copyPredictionFrom(MlDataResponse source) {
+        this.pred_topic = source.pred_topic;
+        this.pred_prob = source.pred_prob;
+        this.probs.copyFrom(source.probs);
     }
 }
@@ -0,0 +1,96 @@
+package com.example.backend.models;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "pages",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_pages_url_title",
+                columnNames = {"url_hash", "title_hash"}),
+        indexes = @Index(name = "idx_pages_host", columnList = "host_id"))
+public class Pages {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", updatable = false, nullable = false)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "host_id", nullable = false)
+    private Hosts host;
+
+    @Column(nullable = false)
+    private Long url_hash;
+
+    @Column(nullable = false)
+    private Long title_hash;
+
+    @Column(nullable = false)
+    private Short url_prefix;
+
+    @Column(columnDefinition = "text")
+    private String url_rest;
+
+    @Column(columnDefinition = "text")
+    private String title;
+
+    public Pages() {
+
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Hosts getHost() {
+        return host;
+    }
+
+    public void setHost(Hosts host) {
+        this.host = host;
+    }
+
+    public Long getUrl_hash() {
+        return url_hash;
+    }
+
+    public void setUrl_hash(Long url_hash) {
+        this.url_hash = url_hash;
+    }
+
+    public Long getTitle_hash() {
+        return title_hash;
+    }
+
+    public void setTitle_hash(Long title_hash) {
+        this.title_hash = title_hash;
+    }
+
+    public Short getUrl_prefix() {
+        return url_prefix;
+    }
+
+    public void setUrl_prefix(Short url_prefix) {
+        this.url_prefix = url_prefix;
+    }
+
+    public String getUrl_rest() {
+        return url_rest;
+    }
+
+    public void setUrl_rest(String url_rest) {
+        this.url_rest = url_rest;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+}
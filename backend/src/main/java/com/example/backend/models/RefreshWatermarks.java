@@ -0,0 +1,63 @@
+package com.example.backend.models;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "refresh_watermarks")
+public class RefreshWatermarks {
+
+    @Id
+    @Column(name = "name", updatable = false, nullable = false)
+    private String name;
+
+    @Column(nullable = false)
+    private Long last_url_id;
+
+    private Instant completed_at;
+
+    // IdGaps state below last_url_id, for watermarks that track open ranges.
+    private byte[] open_ranges;
+
+    public RefreshWatermarks() {
+
+    }
+
+    public RefreshWatermarks(String name) {
+        this.name = name;
+        this.last_url_id = 0L;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getLast_url_id() {
+        return last_url_id;
+    }
+
+    public void setLast_url_id(Long last_url_id) {
+        this.last_url_id = last_url_id;
+    }
+
+    public Instant getCompleted_at() {
+        return completed_at;
+    }
+
+    public void setCompleted_at(Instant completed_at) {
+        this.completed_at = completed_at;
+    }
+
+    public byte[] getOpen_ranges() {
+        return open_ranges;
+    }
+
+    public void setOpen_ranges(byte[] open_ranges) {
+        this.open_ranges = open_ranges;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.backend.models;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "sample_imports")
+public class SampleImports {
+
+    @Id
+    @Column(name = "checksum", updatable = false, nullable = false, length = 64)
+    private String checksum;
+
+    @Column(columnDefinition = "text")
+    private String path;
+
+    @Column(nullable = false)
+    private Long row_count;
+
+    @Column(nullable = false)
+    private Instant loaded_at;
+
+    public SampleImports() {
+
+    }
+
+    public SampleImports(String checksum, String path, Long row_count) {
+        this.checksum = checksum;
+        this.path = path;
+        this.row_count = row_count;
+        this.loaded_at = Instant.now();
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Long getRow_count() {
+        return row_count;
+    }
+
+    public void setRow_count(Long row_count) {
+        this.row_count = row_count;
+    }
+
+    public Instant getLoaded_at() {
+        return loaded_at;
+    }
+
+    public void setLoaded_at(Instant loaded_at) {
+        this.loaded_at = loaded_at;
+    }
+}
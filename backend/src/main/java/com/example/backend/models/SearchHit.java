@@ -0,0 +1,44 @@
+package com.example.backend.models;
+
+public class SearchHit {
+
+    private final String url;
+    private final String title;
+    private final String host;
+    private final long visits;
+    private final Long last_visit_usec;
+    private final double score;
+
+    public SearchHit(String url, String title, String host, long visits, Long last_visit_usec, double score) {
+        this.url = url;
+        this.title = title;
+        this.host = host;
+        this.visits = visits;
+        this.last_visit_usec = last_visit_usec;
+        this.score = score;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public long getVisits() {
+        return visits;
+    }
+
+    public Long getLast_visit_usec() {
+        return last_visit_usec;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
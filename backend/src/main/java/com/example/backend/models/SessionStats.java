@@ -0,0 +1,47 @@
+package com.example.backend.models;
+
+import java.util.Map;
+
+public class SessionStats {
+
+    private final long sessions;
+    private final long visits;
+    private final long avg_duration_usec;
+    private final long median_duration_usec;
+    private final double avg_visits;
+    private final Map<String, Long> sessions_by_topic;
+
+    public SessionStats(long sessions, long visits, long avg_duration_usec, long median_duration_usec,
+                        double avg_visits, Map<String, Long> sessions_by_topic) {
+        this.sessions = sessions;
+        this.visits = visits;
+        this.avg_duration_usec = avg_duration_usec;
+        this.median_duration_usec = median_duration_usec;
+        this.avg_visits = avg_visits;
+        this.sessions_by_topic = sessions_by_topic;
+    }
+
+    public long getSessions() {
+        return sessions;
+    }
+
+    public long getVisits() {
+        return visits;
+    }
+
+    public long getAvg_duration_usec() {
+        return avg_duration_usec;
+    }
+
+    public long getMedian_duration_usec() {
+        return median_duration_usec;
+    }
+
+    public double getAvg_visits() {
+        return avg_visits;
+    }
+
+    public Map<String, Long> getSessions_by_topic() {
+        return sessions_by_topic;
+    }
+}
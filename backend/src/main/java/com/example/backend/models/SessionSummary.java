@@ -0,0 +1,63 @@
+package com.example.backend.models;
+
+import java.util.Map;
+
+public class SessionSummary {
+
+    private final long id;
+    private final long start_usec;
+    private final long end_usec;
+    private final long visits;
+    private final long hosts;
+    private final String first_host;
+    private final String top_topic;
+    private final Map<String, Double> topic_mix;
+
+    public SessionSummary(long id, long start_usec, long end_usec, long visits, long hosts,
+                          String first_host, String top_topic, Map<String, Double> topic_mix) {
+        this.id = id;
+        this.start_usec = start_usec;
+        this.end_usec = end_usec;
+        this.visits = visits;
+        this.hosts = hosts;
+        this.first_host = first_host;
+        this.top_topic = top_topic;
+        this.topic_mix = topic_mix;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getStart_usec() {
+        return start_usec;
+    }
+
+    public long getEnd_usec() {
+        return end_usec;
+    }
+
+    public long getDuration_usec() {
+        return end_usec - start_usec;
+    }
+
+    public long getVisits() {
+        return visits;
+    }
+
+    public long getHosts() {
+        return hosts;
+    }
+
+    public String getFirst_host() {
+        return first_host;
+    }
+
+    public String getTop_topic() {
+        return top_topic;
+    }
+
+    public Map<String, Double> getTopic_mix() {
+        return topic_mix;
+    }
+}
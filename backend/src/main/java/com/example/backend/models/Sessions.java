@@ -0,0 +1,105 @@
+package com.example.backend.models;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "sessions", indexes = {
+        @Index(name = "idx_sessions_start", columnList = "start_usec"),
+        @Index(name = "idx_sessions_end", columnList = "end_usec")
+})
+public class Sessions {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", updatable = false, nullable = false)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long start_usec;
+
+    @Column(nullable = false)
+    private Long end_usec;
+
+    @Column(nullable = false)
+    private Long visits;
+
+    @Column(nullable = false)
+    private Long hosts;
+
+    @ManyToOne
+    @JoinColumn(name = "first_host_id", nullable = false)
+    private Hosts first_host;
+
+    private String top_topic;
+
+    @Column(name = "topic_mix", columnDefinition = "bytea")
+    private byte[] topic_mix;
+
+    public Sessions() {
+
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getStart_usec() {
+        return start_usec;
+    }
+
+    public void setStart_usec(Long start_usec) {
+        this.start_usec = start_usec;
+    }
+
+    public Long getEnd_usec() {
+        return end_usec;
+    }
+
+    public void setEnd_usec(Long end_usec) {
+        this.end_usec = end_usec;
+    }
+
+    public Long getVisits() {
+        return visits;
+    }
+
+    public void setVisits(Long visits) {
+        this.visits = visits;
+    }
+
+    public Long getHosts() {
+        return hosts;
+    }
+
+    public void setHosts(Long hosts) {
+        this.hosts = hosts;
+    }
+
+    public Hosts getFirst_host() {
+        return first_host;
+    }
+
+    public void setFirst_host(Hosts first_host) {
+        this.first_host = first_host;
+    }
+
+    public String getTop_topic() {
+        return top_topic;
+    }
+
+    public void setTop_topic(String top_topic) {
+        this.top_topic = top_topic;
+    }
+
+    public TopicVector getTopicMix() {
+        return TopicVector.fromBytes(topic_mix);
+    }
+
+    public void setTopicMix(TopicVector topicMix) {
+        this.topic_mix = topicMix.isEmpty() ? null : topicMix.toBytes();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.backend.models;
+
+public class SimilarHost {
+
+    private final String host;
+    private final String pred_topic;
+    private final double score;
+
+    public SimilarHost(String host, String pred_topic, double score) {
+        this.host = host;
+        this.pred_topic = pred_topic;
+        this.score = score;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public String getPred_topic() {
+        return pred_topic;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
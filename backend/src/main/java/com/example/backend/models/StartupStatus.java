@@ -0,0 +1,45 @@
+package com.example.backend.models;
+
+public class StartupStatus {
+
+    private final WarmupState state;
+    private final boolean sample_skipped;
+    private final long rows_loaded;
+    private final Long sample_load_ms;
+    private final Long time_to_ready_ms;
+    private final String error;
+
+    public StartupStatus(WarmupState state, boolean sample_skipped, long rows_loaded,
+                         Long sample_load_ms, Long time_to_ready_ms, String error) {
+        this.state = state;
+        this.sample_skipped = sample_skipped;
+        this.rows_loaded = rows_loaded;
+        this.sample_load_ms = sample_load_ms;
+        this.time_to_ready_ms = time_to_ready_ms;
+        this.error = error;
+    }
+
+    public WarmupState getState() {
+        return state;
+    }
+
+    public boolean isSample_skipped() {
+        return sample_skipped;
+    }
+
+    public long getRows_loaded() {
+        return rows_loaded;
+    }
+
+    public Long getSample_load_ms() {
+        return sample_load_ms;
+    }
+
+    public Long getTime_to_ready_ms() {
+        return time_to_ready_ms;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.backend.models;
+
+public enum TimeBucket {
+    HOUR(3_600_000_000L),
+    DAY(86_400_000_000L);
+
+    private final long usec;
+
+    TimeBucket(long usec) {
+        this.usec = usec;
+    }
+
+    public long getUsec() {
+        return usec;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.backend.models;
+
+public class TimeBucketCount {
+
+    private final long bucket_start_usec;
+    private final long visits;
+    private final long hosts;
+
+    public TimeBucketCount(long bucket_start_usec, long visits, long hosts) {
+        this.bucket_start_usec = bucket_start_usec;
+        this.visits = visits;
+        this.hosts = hosts;
+    }
+
+    public long getBucket_start_usec() {
+        return bucket_start_usec;
+    }
+
+    public long getVisits() {
+        return visits;
+    }
+
+    public long getHosts() {
+        return hosts;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.backend.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Topics the classifier predicts, in the order they are stored in a
+ * {@link TopicVector}.
+ */
+public enum Topic {
+    NEWS("news"),
+    SHOPPING("shopping"),
+    SOCIAL("social"),
+    VIDEO("video"),
+    EDUCATION("education"),
+    WORK("work"),
+    FINANCE("finance"),
+    TRAVEL("travel"),
+    GAMING("gaming"),
+    ENTERTAINMENT("entertainment"),
+    TECH("tech"),
+    SERVICES("services"),
+    HEALTH("health"),
+    GOVERNMENT("government"),
+    OTHER("other");
+
+    public static final int COUNT = values().length;
+
+    private static final Topic[] VALUES = values();
+    private static final Map<String, Topic> BY_PROBABILITY_KEY = new HashMap<>();
+
+    static {
+        for (Topic topic : VALUES) {
+            BY_PROBABILITY_KEY.put(topic.probabilityKey, topic);
+        }
+    }
+
+    private final String key;
+    private final String probabilityKey;
+
+    Topic(String key) {
+        this.key = key;
+        this.probabilityKey = "prob_" + key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /** JSON property holding this topic's probability, e.g. {@code prob_news}. */
+    public String getProbabilityKey() {
+        return probabilityKey;
+    }
+
+    public static Topic ofIndex(int index) {
+        return VALUES[index];
+    }
+
+    /** Returns the topic for a {@code prob_*} property name, or null. */
+    public static Topic fromProbabilityKey(String name) {
+        return BY_PROBABILITY_KEY.get(name);
+    }
+}
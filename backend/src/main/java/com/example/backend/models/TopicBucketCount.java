@@ -0,0 +1,32 @@
+package com.example.backend.models;
+
+public class TopicBucketCount {
+
+    private final long bucket_start_usec;
+    private final String topic;
+    private final long visits;
+    private final long hosts;
+
+    public TopicBucketCount(long bucket_start_usec, String topic, long visits, long hosts) {
+        this.bucket_start_usec = bucket_start_usec;
+        this.topic = topic;
+        this.visits = visits;
+        this.hosts = hosts;
+    }
+
+    public long getBucket_start_usec() {
+        return bucket_start_usec;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public long getVisits() {
+        return visits;
+    }
+
+    public long getHosts() {
+        return hosts;
+    }
+}
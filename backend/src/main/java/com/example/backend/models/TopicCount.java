@@ -0,0 +1,26 @@
+package com.example.backend.models;
+
+public class TopicCount {
+
+    private final String topic;
+    private final long visits;
+    private final long hosts;
+
+    public TopicCount(String topic, long visits, long hosts) {
+        this.topic = topic;
+        this.visits = visits;
+        this.hosts = hosts;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public long getVisits() {
+        return visits;
+    }
+
+    public long getHosts() {
+        return hosts;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.backend.models;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "topic_rollups",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_topic_rollups_bucket_topic",
+                columnNames = {"bucket", "bucket_start_usec", "topic"}))
+public class TopicRollups {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", updatable = false, nullable = false)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TimeBucket bucket;
+
+    @Column(nullable = false)
+    private Long bucket_start_usec;
+
+    @Column(nullable = false)
+    private String topic;
+
+    @Column(nullable = false)
+    private Long visits;
+
+    @Column(nullable = false)
+    private Long hosts;
+
+    public TopicRollups() {
+
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public TimeBucket getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(TimeBucket bucket) {
+        this.bucket = bucket;
+    }
+
+    public Long getBucket_start_usec() {
+        return bucket_start_usec;
+    }
+
+    public void setBucket_start_usec(Long bucket_start_usec) {
+        this.bucket_start_usec = bucket_start_usec;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public Long getVisits() {
+        return visits;
+    }
+
+    public void setVisits(Long visits) {
+        this.visits = visits;
+    }
+
+    public Long getHosts() {
+        return hosts;
+    }
+
+    public void setHosts(Long hosts) {
+        this.hosts = hosts;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.backend.models;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Per-topic probabilities backed by a single {@code double[]} indexed by
+ * {@link Topic#ordinal()}. A missing probability is stored as NaN and read
+ * back as null by the boxed accessors.
+ *
+ * <p>Stored as {@link #BYTES} big-endian doubles in one bytea column, the
+ * same layout Postgres' {@code float8send} produces.
+ */
+public final class TopicVector {
+
+    public static final int BYTES = Topic.COUNT * Double.BYTES;
+
+    private static final VarHandle DOUBLES =
+            MethodHandles.byteArrayViewVarHandle(double[].class, ByteOrder.BIG_ENDIAN);
+
+    private final double[] values = new double[Topic.COUNT];
+
+    public TopicVector() {
+        Arrays.fill(values, Double.NaN);
+    }
+
+    public static TopicVector of(double... values) {
+        if (values.length != Topic.COUNT) {
+            throw new IllegalArgumentException("Expected " + Topic.COUNT + " probabilities, got " + values.length);
+        }
+        TopicVector vector = new TopicVector();
+        System.arraycopy(values, 0, vector.values, 0, Topic.COUNT);
+        return vector;
+    }
+
+    public static TopicVector fromBytes(byte[] bytes) {
+        TopicVector vector = new TopicVector();
+        vector.decode(bytes);
+        return vector;
+    }
+
+    public double get(Topic topic) {
+        return values[topic.ordinal()];
+    }
+
+    public Double getOrNull(Topic topic) {
+        double value = values[topic.ordinal()];
+        return Double.isNaN(value) ? null : value;
+    }
+
+    public void set(Topic topic, double value) {
+        values[topic.ordinal()] = value;
+    }
+
+    public void set(Topic topic, Double value) {
+        values[topic.ordinal()] = value != null ? value : Double.NaN;
+    }
+
+    public boolean isEmpty() {
+        for (double value : values) {
+            if (!Double.isNaN(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void copyFrom(TopicVector other) {
+        System.arraycopy(other.values, 0, values, 0, Topic.COUNT);
+    }
+
+    public TopicVector copy() {
+        TopicVector copy = new TopicVector();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    public double[] toArray() {
+        return values.clone();
+    }
+
+    /** Topic with the highest probability, or null when every entry is missing. */
+    public Topic argmax() {
+        int best = -1;
+        for (int i = 0; i < values.length; i++) {
+            if (!Double.isNaN(values[i]) && (best < 0 || values[i] > values[best])) {
+                best = i;
+            }
+        }
+        return best >= 0 ? Topic.ofIndex(best) : null;
+    }
+
+    /**
+     * Writes the {@code k} most likely topics into {@code out}, highest first,
+     * and returns how many were written. Missing entries are never returned.
+     */
+    public int topK(int k, Topic[] out) {
+        int limit = Math.min(k, out.length);
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            double value = values[i];
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            int pos = size < limit ? size : limit;
+            while (pos > 0 && get(out[pos - 1]) < value) {
+                if (pos < limit) {
+                    out[pos] = out[pos - 1];
+                }
+                pos--;
+            }
+            if (pos < limit) {
+                out[pos] = Topic.ofIndex(i);
+                if (size < limit) {
+                    size++;
+                }
+            }
+        }
+        return size;
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[BYTES];
+        for (int i = 0; i < values.length; i++) {
+            DOUBLES.set(bytes, i * Double.BYTES, values[i]);
+        }
+        return bytes;
+    }
+
+    /** Overwrites this vector from {@link #toBytes()} output; null clears it. */
+    public void decode(byte[] bytes) {
+        if (bytes == null) {
+            Arrays.fill(values, Double.NaN);
+            return;
+        }
+        if (bytes.length != BYTES) {
+            throw new IllegalArgumentException("Expected " + BYTES + " bytes, got " + bytes.length);
+        }
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (double) DOUBLES.get(bytes, i * Double.BYTES);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof TopicVector other && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.backend.models;
+
+public class UploadCacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long bytes_saved;
+    private final long memory_entries;
+    private final long disk_entries;
+
+    public UploadCacheStats(long hits, long misses, long bytes_saved, long memory_entries, long disk_entries) {
+        this.hits = hits;
+        this.misses = misses;
+        this.bytes_saved = bytes_saved;
+        this.memory_entries = memory_entries;
+        this.disk_entries = disk_entries;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getBytes_saved() {
+        return bytes_saved;
+    }
+
+    public long getMemory_entries() {
+        return memory_entries;
+    }
+
+    public long getDisk_entries() {
+        return disk_entries;
+    }
+
+    public double getHit_rate() {
+        long total = hits + misses;
+        return total > 0 ? (double) hits / total : 0.0;
+    }
+}
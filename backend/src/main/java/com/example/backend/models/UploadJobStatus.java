@@ -0,0 +1,51 @@
+package com.example.backend.models;
+
+public class UploadJobStatus {
+
+    private final String job_id;
+    private final UploadStage stage;
+    private final long rows_processed;
+    private final long rows_total;
+    private final double rows_per_second;
+    private final long elapsed_ms;
+    private final String error;
+
+    public UploadJobStatus(String job_id, UploadStage stage, long rows_processed, long rows_total,
+                           double rows_per_second, long elapsed_ms, String error) {
+        this.job_id = job_id;
+        this.stage = stage;
+        this.rows_processed = rows_processed;
+        this.rows_total = rows_total;
+        this.rows_per_second = rows_per_second;
+        this.elapsed_ms = elapsed_ms;
+        this.error = error;
+    }
+
+    public String getJob_id() {
+        return job_id;
+    }
+
+    public UploadStage getStage() {
+        return stage;
+    }
+
+    public long getRows_processed() {
+        return rows_processed;
+    }
+
+    public long getRows_total() {
+        return rows_total;
+    }
+
+    public double getRows_per_second() {
+        return rows_per_second;
+    }
+
+    public long getElapsed_ms() {
+        return elapsed_ms;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.backend.models;
+
+public enum UploadStage {
+    QUEUED,
+    READING,
+    CLASSIFYING,
+    STORING,
+    DONE,
+    FAILED
+}
@@ -2,8 +2,14 @@ package com.example.backend.models;
 
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
 
+/**
+ * Read-only view over visits joined to their page, with the original url
+ * rebuilt. Writes go to pages and visits.
+ */
 @Entity
+@Immutable
 @Table(name = "urls")
 public class Urls {
 
@@ -20,6 +26,8 @@ public class Urls {
 
     private Long time_usec;
 
+    private Long url_hash;
+
     @ManyToOne
     @JoinColumn(name = "host_id", nullable = false)
     private Hosts host;
@@ -60,6 +68,14 @@ public class Urls {
         this.time_usec = time_usec;
     }
 
+    public Long getUrl_hash() {
+        return url_hash;
+    }
+
+    public void setUrl_hash(Long url_hash) {
+        this.url_hash = url_hash;
+    }
+
     public Hosts getHost() {
         return host;
     }
@@ -0,0 +1,67 @@
+package com.example.backend.models;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "visits",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_visits_page_time",
+                columnNames = {"page_id", "time_usec"}),
+        indexes = {
+                @Index(name = "idx_visits_time_id", columnList = "time_usec, id"),
+                @Index(name = "idx_visits_host_time_id", columnList = "host_id, time_usec, id")
+        })
+public class Visits {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", updatable = false, nullable = false)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "page_id", nullable = false)
+    private Pages page;
+
+    // Copied from the page so per-host history is one index range scan.
+    @ManyToOne
+    @JoinColumn(name = "host_id", nullable = false)
+    private Hosts host;
+
+    private Long time_usec;
+
+    public Visits() {
+
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Pages getPage() {
+        return page;
+    }
+
+    public void setPage(Pages page) {
+        this.page = page;
+    }
+
+    public Hosts getHost() {
+        return host;
+    }
+
+    public void setHost(Hosts host) {
+        this.host = host;
+    }
+
+    public Long getTime_usec() {
+        return time_usec;
+    }
+
+    public void setTime_usec(Long time_usec) {
+        this.time_usec = time_usec;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.backend.models;
+
+public enum WarmupState {
+    WARMING_UP,
+    READY,
+    FAILED
+}
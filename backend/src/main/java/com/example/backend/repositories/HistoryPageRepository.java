@@ -0,0 +1,75 @@
+package com.example.backend.repositories;
+
+import com.example.backend.models.HistoryPage;
+import com.example.backend.models.HistoryPageFilter;
+import com.example.backend.models.MlDataResponse;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+public class HistoryPageRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final HistoryRowMapper rowMapper = new HistoryRowMapper();
+
+    public HistoryPageRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Seeks on (time_usec, id) so every page is an index range scan of
+     * {@code limit} rows, however deep it is. Rows without a timestamp are
+     * not paginated.
+     */
+    public HistoryPage findPage(HistoryPageFilter filter) {
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(HistoryRowMapper.SELECT_COLUMNS)
+                .append(HistoryRowMapper.FROM_JOINS)
+                .append("WHERE u.time_usec IS NOT NULL");
+        MapSqlParameterSource params = new MapSqlParameterSource();
+
+        if (filter.fromUsec() != null) {
+            sql.append(" AND u.time_usec >= :fromUsec");
+            params.addValue("fromUsec", filter.fromUsec());
+        }
+        if (filter.toUsec() != null) {
+            sql.append(" AND u.time_usec < :toUsec");
+            params.addValue("toUsec", filter.toUsec());
+        }
+        if (filter.host() != null) {
+            sql.append(" AND h.host = :host");
+            params.addValue("host", filter.host());
+        }
+        if (filter.topic() != null) {
+            sql.append(" AND s.pred_topic = :topic");
+            params.addValue("topic", filter.topic());
+        }
+        if (filter.cursorTimeUsec() != null && filter.cursorId() != null) {
+            sql.append(" AND (u.time_usec, u.id) < (:cursorTime, :cursorId)");
+            params.addValue("cursorTime", filter.cursorTimeUsec());
+            params.addValue("cursorId", filter.cursorId());
+        }
+
+        sql.append(" ORDER BY u.time_usec DESC, u.id DESC LIMIT :limit");
+        params.addValue("limit", filter.limit() + 1);
+
+        List<Long> ids = new ArrayList<>();
+        List<MlDataResponse> rows = jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> {
+            ids.add(rs.getLong("id"));
+            return rowMapper.mapRow(rs, rowNum);
+        });
+
+        if (rows.size() <= filter.limit()) {
+            return new HistoryPage(rows, null);
+        }
+
+        List<MlDataResponse> page = rows.subList(0, filter.limit());
+        MlDataResponse last = page.get(page.size() - 1);
+        String nextCursor = last.getTime_usec() + "_" + ids.get(page.size() - 1);
+        return new HistoryPage(new ArrayList<>(page), nextCursor);
+    }
+}
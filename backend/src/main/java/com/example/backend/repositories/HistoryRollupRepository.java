@@ -0,0 +1,88 @@
+package com.example.backend.repositories;
+
+import com.example.backend.models.HostBucketCount;
+import com.example.backend.models.TimeBucket;
+import com.example.backend.models.TimeBucketCount;
+import com.example.backend.models.TopicBucketCount;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Reads host_rollups and topic_rollups. Ranges are widened to whole buckets:
+ * a bucket is returned when it starts before {@code to} and contains or
+ * follows {@code from}.
+ */
+@Repository
+public class HistoryRollupRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public HistoryRollupRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Visits and distinct hosts per bucket; a host is in exactly one topic per bucket. */
+    public List<TimeBucketCount> countVisitsByBucket(TimeBucket bucket, Long fromUsec, Long toUsec) {
+        MapSqlParameterSource params = new MapSqlParameterSource("bucket", bucket.name());
+        String sql = """
+                SELECT t.bucket_start_usec, sum(t.visits) AS visits, sum(t.hosts) AS hosts
+                FROM topic_rollups t
+                WHERE t.bucket = :bucket AND t.visits > 0""" + bucketRange("t", bucket, fromUsec, toUsec, params) + """
+                 GROUP BY t.bucket_start_usec
+                 ORDER BY t.bucket_start_usec
+                """;
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new TimeBucketCount(
+                rs.getLong("bucket_start_usec"),
+                rs.getLong("visits"),
+                rs.getLong("hosts")));
+    }
+
+    public List<TopicBucketCount> countVisitsByTopic(TimeBucket bucket, Long fromUsec, Long toUsec) {
+        MapSqlParameterSource params = new MapSqlParameterSource("bucket", bucket.name());
+        String sql = """
+                SELECT t.bucket_start_usec, t.topic, t.visits, t.hosts
+                FROM topic_rollups t
+                WHERE t.bucket = :bucket AND t.visits > 0""" + bucketRange("t", bucket, fromUsec, toUsec, params) + """
+                 ORDER BY t.bucket_start_usec, t.visits DESC, t.topic
+                """;
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new TopicBucketCount(
+                rs.getLong("bucket_start_usec"),
+                rs.getString("topic"),
+                rs.getLong("visits"),
+                rs.getLong("hosts")));
+    }
+
+    public List<HostBucketCount> countVisitsForHost(String host, TimeBucket bucket, Long fromUsec, Long toUsec) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("bucket", bucket.name())
+                .addValue("host", host);
+        String sql = """
+                SELECT r.bucket_start_usec, h.host, r.visits
+                FROM host_rollups r
+                JOIN hosts h ON h.id = r.host_id
+                WHERE h.host = :host AND r.bucket = :bucket""" + bucketRange("r", bucket, fromUsec, toUsec, params) + """
+                 ORDER BY r.bucket_start_usec
+                """;
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new HostBucketCount(
+                rs.getLong("bucket_start_usec"),
+                rs.getString("host"),
+                rs.getLong("visits")));
+    }
+
+    private static String bucketRange(String alias, TimeBucket bucket, Long fromUsec, Long toUsec,
+                                      MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder();
+        if (fromUsec != null) {
+            sql.append(" AND ").append(alias).append(".bucket_start_usec >= :fromUsec");
+            params.addValue("fromUsec", Math.floorDiv(fromUsec, bucket.getUsec()) * bucket.getUsec());
+        }
+        if (toUsec != null) {
+            sql.append(" AND ").append(alias).append(".bucket_start_usec < :toUsec");
+            params.addValue("toUsec", toUsec);
+        }
+        return sql.toString();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.backend.repositories;
+
+import com.example.backend.models.MlDataResponse;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class HistoryRowMapper implements RowMapper<MlDataResponse> {
+
+    public static final String SELECT_COLUMNS = """
+            u.id, u.title, u.url, u.time_usec, h.host,
+            s.pred_topic, s.pred_prob, s.probs
+            """;
+
+    public static final String FROM_JOINS = """
+            FROM urls u
+            JOIN hosts h ON h.id = u.host_id
+            LEFT JOIN host_stats s ON s.host_id = h.id
+            """;
+
+    @Override
+    public MlDataResponse mapRow(ResultSet rs, int rowNum) throws SQLException {
+        MlDataResponse dto = new MlDataResponse();
+        dto.setTitle(rs.getString("title"));
+        dto.setUrl(rs.getString("url"));
+        dto.setTime_usec(rs.getObject("time_usec", Long.class));
+        dto.setHost(rs.getString("host"));
+        dto.setPred_topic(rs.getString("pred_topic"));
+        dto.setPred_prob(rs.getObject("pred_prob", Double.class));
+        dto.topics().decode(rs.getBytes("probs"));
+        return dto;
+    }
+}
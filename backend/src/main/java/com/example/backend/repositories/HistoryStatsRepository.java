@@ -0,0 +1,131 @@
+package com.example.backend.repositories;
+
+import com.example.backend.models.HostCount;
+import com.example.backend.models.HostTransition;
+import com.example.backend.models.TimeBucket;
+import com.example.backend.models.TimeBucketCount;
+import com.example.backend.models.TopicCount;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public class HistoryStatsRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public HistoryStatsRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<TopicCount> countVisitsByTopic(Long fromUsec, Long toUsec) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = """
+                SELECT COALESCE(s.pred_topic, 'other') AS topic,
+                       count(*) AS visits,
+                       count(DISTINCT u.host_id) AS hosts
+                FROM urls u
+                LEFT JOIN host_stats s ON s.host_id = u.host_id
+                WHERE 1 = 1""" + timeRange(fromUsec, toUsec, params) + """
+                 GROUP BY 1
+                 ORDER BY visits DESC
+                """;
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new TopicCount(
+                rs.getString("topic"),
+                rs.getLong("visits"),
+                rs.getLong("hosts")));
+    }
+
+    public List<HostCount> findTopHosts(Long fromUsec, Long toUsec, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", limit);
+        String sql = """
+                SELECT h.host, s.pred_topic,
+                       count(*) AS visits,
+                       min(u.time_usec) AS first_visit,
+                       max(u.time_usec) AS last_visit
+                FROM urls u
+                JOIN hosts h ON h.id = u.host_id
+                LEFT JOIN host_stats s ON s.host_id = u.host_id
+                WHERE 1 = 1""" + timeRange(fromUsec, toUsec, params) + """
+                 GROUP BY h.host, s.pred_topic
+                 ORDER BY visits DESC, h.host
+                 LIMIT :limit
+                """;
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new HostCount(
+                rs.getString("host"),
+                rs.getString("pred_topic"),
+                rs.getLong("visits"),
+                rs.getObject("first_visit", Long.class),
+                rs.getObject("last_visit", Long.class)));
+    }
+
+    public List<TimeBucketCount> countVisitsByBucket(TimeBucket bucket, Long fromUsec, Long toUsec) {
+        MapSqlParameterSource params = new MapSqlParameterSource("bucketUsec", bucket.getUsec());
+        String sql = """
+                SELECT (u.time_usec / :bucketUsec) * :bucketUsec AS bucket_start,
+                       count(*) AS visits,
+                       count(DISTINCT u.host_id) AS hosts
+                FROM urls u
+                WHERE u.time_usec IS NOT NULL""" + timeRange(fromUsec, toUsec, params) + """
+                 GROUP BY 1
+                 ORDER BY 1
+                """;
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new TimeBucketCount(
+                rs.getLong("bucket_start"),
+                rs.getLong("visits"),
+                rs.getLong("hosts")));
+    }
+
+    /**
+     * Counts consecutive visits (in time order) that move from one host to
+     * another within {@code maxGapUsec}. Pairs are undirected.
+     */
+    public List<HostTransition> findHostTransitions(Long fromUsec, Long toUsec, long maxGapUsec, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("maxGapUsec", maxGapUsec)
+                .addValue("limit", limit);
+        String sql = """
+                WITH ordered AS (
+                    SELECT u.host_id, u.time_usec,
+                           lag(u.host_id) OVER (ORDER BY u.time_usec, u.id) AS prev_host_id,
+                           lag(u.time_usec) OVER (ORDER BY u.time_usec, u.id) AS prev_time_usec
+                    FROM urls u
+                    WHERE u.time_usec IS NOT NULL""" + timeRange(fromUsec, toUsec, params) + """
+
+                ), pairs AS (
+                    SELECT least(host_id, prev_host_id) AS a_id,
+                           greatest(host_id, prev_host_id) AS b_id
+                    FROM ordered
+                    WHERE prev_host_id IS NOT NULL
+                      AND prev_host_id <> host_id
+                      AND time_usec - prev_time_usec <= :maxGapUsec
+                )
+                SELECT ha.host AS source, hb.host AS target, count(*) AS weight
+                FROM pairs p
+                JOIN hosts ha ON ha.id = p.a_id
+                JOIN hosts hb ON hb.id = p.b_id
+                GROUP BY ha.host, hb.host
+                ORDER BY weight DESC, source, target
+                LIMIT :limit
+                """;
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new HostTransition(
+                rs.getString("source"),
+                rs.getString("target"),
+                rs.getLong("weight")));
+    }
+
+    private static String timeRange(Long fromUsec, Long toUsec, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder();
+        if (fromUsec != null) {
+            sql.append(" AND u.time_usec >= :fromUsec");
+            params.addValue("fromUsec", fromUsec);
+        }
+        if (toUsec != null) {
+            sql.append(" AND u.time_usec < :toUsec");
+            params.addValue("toUsec", toUsec);
+        }
+        return sql.toString();
+    }
+}
@@ -3,13 +3,21 @@ package com.example.backend.repositories;
 import com.example.backend.models.HostStats;
 import com.example.backend.models.Hosts;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface HostStatsRepository extends JpaRepository<HostStats, Long> {
     Optional<HostStats> findByHost(Hosts host);
+
+    @Query("SELECT s FROM HostStats s JOIN FETCH s.host h WHERE h.host IN :hosts AND s.updated_at >= :since")
+    List<HostStats> findFreshByHostNames(@Param("hosts") Collection<String> hosts, @Param("since") Instant since);
 }
 
 
@@ -0,0 +1,9 @@
+package com.example.backend.repositories;
+
+import com.example.backend.models.RefreshWatermarks;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RefreshWatermarksRepository extends JpaRepository<RefreshWatermarks, String> {
+}
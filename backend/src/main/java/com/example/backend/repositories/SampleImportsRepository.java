@@ -0,0 +1,9 @@
+package com.example.backend.repositories;
+
+import com.example.backend.models.SampleImports;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SampleImportsRepository extends JpaRepository<SampleImports, String> {
+}
@@ -0,0 +1,108 @@
+package com.example.backend.repositories;
+
+import com.example.backend.models.SessionStats;
+import com.example.backend.models.SessionSummary;
+import com.example.backend.models.Topic;
+import com.example.backend.models.TopicVector;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Reads the sessions written by VisitSessionizer; a session is in range when it overlaps it. */
+@Repository
+public class SessionRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public SessionRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Newest sessions first. */
+    public List<SessionSummary> findSessions(Long fromUsec, Long toUsec, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", limit);
+        String sql = """
+                SELECT s.id, s.start_usec, s.end_usec, s.visits, s.hosts, h.host AS first_host,
+                       s.top_topic, s.topic_mix
+                FROM sessions s
+                JOIN hosts h ON h.id = s.first_host_id
+                WHERE 1 = 1""" + overlap(fromUsec, toUsec, params) + """
+                 ORDER BY s.start_usec DESC
+                 LIMIT :limit
+                """;
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new SessionSummary(
+                rs.getLong("id"),
+                rs.getLong("start_usec"),
+                rs.getLong("end_usec"),
+                rs.getLong("visits"),
+                rs.getLong("hosts"),
+                rs.getString("first_host"),
+                rs.getString("top_topic"),
+                topicMix(rs.getBytes("topic_mix"))));
+    }
+
+    public SessionStats summarize(Long fromUsec, Long toUsec) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String range = overlap(fromUsec, toUsec, params);
+        String totalsSql = """
+                SELECT count(*) AS sessions,
+                       COALESCE(sum(s.visits), 0) AS visits,
+                       COALESCE(avg(s.end_usec - s.start_usec), 0) AS avg_duration,
+                       COALESCE(percentile_cont(0.5) WITHIN GROUP (ORDER BY s.end_usec - s.start_usec), 0) AS median_duration
+                FROM sessions s
+                WHERE 1 = 1""" + range;
+        String topicsSql = """
+                SELECT COALESCE(s.top_topic, 'other') AS topic, count(*) AS sessions
+                FROM sessions s
+                WHERE 1 = 1""" + range + """
+                 GROUP BY 1
+                 ORDER BY sessions DESC, topic
+                """;
+
+        Map<String, Long> byTopic = new LinkedHashMap<>();
+        jdbcTemplate.query(topicsSql, params, rs -> {
+            byTopic.put(rs.getString("topic"), rs.getLong("sessions"));
+        });
+        return jdbcTemplate.queryForObject(totalsSql, params, (rs, rowNum) -> {
+            long sessions = rs.getLong("sessions");
+            long visits = rs.getLong("visits");
+            return new SessionStats(sessions, visits,
+                    Math.round(rs.getDouble("avg_duration")),
+                    Math.round(rs.getDouble("median_duration")),
+                    sessions > 0 ? (double) visits / sessions : 0,
+                    byTopic);
+        });
+    }
+
+    private static Map<String, Double> topicMix(byte[] bytes) {
+        Map<String, Double> mix = new LinkedHashMap<>();
+        if (bytes == null) {
+            return mix;
+        }
+        TopicVector vector = TopicVector.fromBytes(bytes);
+        for (Topic topic : Topic.values()) {
+            Double share = vector.getOrNull(topic);
+            if (share != null && share > 0) {
+                mix.put(topic.getKey(), share);
+            }
+        }
+        return mix;
+    }
+
+    private static String overlap(Long fromUsec, Long toUsec, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder();
+        if (fromUsec != null) {
+            sql.append(" AND s.end_usec >= :fromUsec");
+            params.addValue("fromUsec", fromUsec);
+        }
+        if (toUsec != null) {
+            sql.append(" AND s.start_usec < :toUsec");
+            params.addValue("toUsec", toUsec);
+        }
+        return sql.toString();
+    }
+}
@@ -1,11 +1,44 @@
 package com.example.backend.repositories;
 
 
+import com.example.backend.models.HistoryRowView;
 import com.example.backend.models.Urls;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface UrlsRepository extends JpaRepository<Urls, Long> {
 
+    String HISTORY_ROW_SELECT = """
+            SELECT u.id AS id, u.title AS title, u.url AS url, u.time_usec AS time_usec, h.host AS host,
+                   s.pred_topic AS pred_topic, s.pred_prob AS pred_prob, s.probs AS probs
+            FROM Urls u
+            JOIN u.host h
+            LEFT JOIN HostStats s ON s.host = h
+            """;
+
+    @Query(HISTORY_ROW_SELECT + " ORDER BY u.id")
+    List<HistoryRowView> findAllHistoryRows();
+
+    @Query(HISTORY_ROW_SELECT + " WHERE u.id > :afterId ORDER BY u.id")
+    List<HistoryRowView> findHistoryRowsAfter(@Param("afterId") Long afterId);
+
+    @Query(HISTORY_ROW_SELECT + " WHERE u.id IN :ids ORDER BY u.id")
+    List<HistoryRowView> findHistoryRowsByIds(@Param("ids") Collection<Long> ids);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(HISTORY_ROW_SELECT + " ORDER BY u.id")
+    Stream<HistoryRowView> streamAllHistoryRows();
 }
@@ -0,0 +1,30 @@
+package com.example.backend.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers in-memory index updates until the surrounding transaction has
+ * committed, so a rollback never leaves rows the database does not have.
+ * Database work done from the callback must use its own transaction
+ * (REQUIRES_NEW); the committed one is still bound to the thread.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /** Runs {@code action} after the current transaction commits, or at once outside a transaction. */
+    static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
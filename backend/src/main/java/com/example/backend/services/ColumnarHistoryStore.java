@@ -0,0 +1,480 @@
+package com.example.backend.services;
+
+import com.example.backend.models.HostCount;
+import com.example.backend.models.MlDataResponse;
+import com.example.backend.models.TimeBucket;
+import com.example.backend.models.TimeBucketCount;
+import com.example.backend.models.TopicCount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory, column-oriented copy of the visits for analytic scans. Each
+ * visit is a slot in primitive arrays: time_usec and a dictionary-encoded
+ * host code. Topics are kept per host, as a byte code, since every visit of
+ * a host is counted under the host's current topic. Urls and titles are not
+ * copied; nothing here reads them.
+ *
+ * <p>{@link HistoryImportService} keeps it in sync by calling
+ * {@link #syncAfterImport} and {@link #updateHostTopics} once the import has
+ * committed. New visits are picked up by id, so the store only ever appends;
+ * ids skipped over because their transaction had not committed yet are
+ * tracked in {@link IdGaps} and picked up by a later catch-up. Readers work
+ * on an immutable snapshot published after each append, and never block the
+ * writer: rows are only appended past the published size, and arrays holding
+ * published rows are copied before they are changed.
+ */
+@Service
+public class ColumnarHistoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ColumnarHistoryStore.class);
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final int MAX_TOPICS = 255;
+
+    private static final String SELECT_VISITS_SQL = """
+            SELECT u.id, u.time_usec, u.host_id, h.host, s.pred_topic
+            FROM urls u
+            JOIN hosts h ON h.id = u.host_id
+            LEFT JOIN host_stats s ON s.host_id = u.host_id
+            WHERE u.id > ?
+            ORDER BY u.id
+            """;
+
+    private static final String SELECT_GAP_VISITS_SQL = """
+            SELECT u.id, u.time_usec, u.host_id, h.host, s.pred_topic
+            FROM unnest(?::bigint[], ?::bigint[]) AS g(lo, hi)
+            JOIN urls u ON u.id BETWEEN g.lo AND g.hi
+            JOIN hosts h ON h.id = u.host_id
+            LEFT JOIN host_stats s ON s.host_id = u.host_id
+            ORDER BY u.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final int parallelThreshold;
+
+    // Writer state, guarded by this.
+    private long[] timeUsec = new long[1 << 12];
+    private int[] hostCodes = new int[1 << 12];
+    private String[] hostNames = new String[1 << 8];
+    private byte[] hostTopics = new byte[1 << 8];
+    private final Map<Long, Integer> hostCodeById = new HashMap<>();
+    private final Map<String, Integer> hostCodeByName = new HashMap<>();
+    private final List<String> topicNames = new ArrayList<>(List.of(""));
+    private final Map<String, Byte> topicCodeByName = new HashMap<>();
+    private int size;
+    private int hostCount;
+    private final IdGaps visitIds;
+    private boolean loaded;
+    // Set once hostTopics is referenced by a published snapshot.
+    private boolean topicsPublished;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public ColumnarHistoryStore(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.history-store.enabled:true}") boolean enabled,
+                                @Value("${app.history-store.parallel-threshold:100000}") int parallelThreshold,
+                                @Value("${app.history-import.gap-retention-minutes:60}") long gapRetentionMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.parallelThreshold = parallelThreshold;
+        this.visitIds = new IdGaps(gapRetentionMinutes * 60_000L);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        return current().size;
+    }
+
+    /**
+     * Applies host topic changes from {@code rows}, then appends visits
+     * stored since the last sync. Call only after the import has committed.
+     */
+    public void syncAfterImport(List<MlDataResponse> rows) {
+        if (!enabled) {
+            return;
+        }
+        updateHostTopics(rows);
+        catchUp();
+    }
+
+    /**
+     * Appends every visit with an id above the last one seen, and any that
+     * committed late into an id range skipped earlier. The first call loads
+     * the whole table.
+     */
+    public synchronized int catchUp() {
+        if (!enabled) {
+            return 0;
+        }
+        long started = System.nanoTime();
+        boolean firstLoad = !loaded;
+        int before = size;
+        long now = System.currentTimeMillis();
+        RowCallbackHandler appendRow = rs -> {
+            if (!visitIds.seen(rs.getLong("id"), now)) {
+                return;
+            }
+            long time = rs.getLong("time_usec");
+            append(rs.wasNull() ? NULL_TIME : time,
+                    rs.getLong("host_id"), rs.getString("host"), rs.getString("pred_topic"));
+        };
+        readOnlyTransaction.executeWithoutResult(status -> {
+            if (!visitIds.isEmpty()) {
+                Long[] starts = visitIds.starts();
+                Long[] ends = visitIds.ends();
+                jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(SELECT_GAP_VISITS_SQL);
+                    ps.setArray(1, con.createArrayOf("bigint", starts));
+                    ps.setArray(2, con.createArrayOf("bigint", ends));
+                    return ps;
+                }, appendRow);
+            }
+            long last = visitIds.last();
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SELECT_VISITS_SQL);
+                ps.setFetchSize(1000);
+                ps.setLong(1, last);
+                return ps;
+            }, appendRow);
+        });
+        // Ranges still open after a last probe are given up.
+        visitIds.expire(now);
+        loaded = true;
+        publish();
+
+        if (firstLoad) {
+            log.info("Loaded {} visits for {} hosts into the columnar store in {} ms",
+                    size, hostCount, (System.nanoTime() - started) / 1_000_000L);
+        }
+        return size - before;
+    }
+
+    /**
+     * Re-tags every host whose predicted topic changed. The last row for a
+     * host wins, as in the importer.
+     */
+    public synchronized void updateHostTopics(List<MlDataResponse> rows) {
+        if (!enabled || !loaded) {
+            return;
+        }
+        Map<Integer, Byte> changed = new LinkedHashMap<>();
+        for (MlDataResponse row : rows) {
+            Integer host = row.getHost() != null ? hostCodeByName.get(row.getHost()) : null;
+            if (host == null) {
+                continue;
+            }
+            byte topic = topicCode(row.getPred_topic());
+            if (hostTopics[host] != topic) {
+                changed.put(host, topic);
+            } else {
+                changed.remove(host);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        unshareTopics();
+        changed.forEach((host, topic) -> hostTopics[host] = topic);
+        publish();
+    }
+
+    /** Drops everything; the next read reloads from the database. */
+    public synchronized void clear() {
+        timeUsec = new long[1 << 12];
+        hostCodes = new int[1 << 12];
+        hostNames = new String[1 << 8];
+        hostTopics = new byte[1 << 8];
+        hostCodeById.clear();
+        hostCodeByName.clear();
+        topicNames.subList(1, topicNames.size()).clear();
+        topicCodeByName.clear();
+        size = 0;
+        hostCount = 0;
+        visitIds.clear();
+        loaded = false;
+        topicsPublished = false;
+        snapshot = Snapshot.EMPTY;
+    }
+
+    public List<TopicCount> countVisitsByTopic(Long fromUsec, Long toUsec) {
+        Snapshot s = current();
+        HostScan scan = scan(s, fromUsec, toUsec);
+
+        Map<String, long[]> byTopic = new HashMap<>();
+        for (int host = 0; host < s.hostCount; host++) {
+            if (scan.visits[host] == 0) {
+                continue;
+            }
+            String topic = s.topicNames[s.hostTopics[host] & 0xFF];
+            long[] counts = byTopic.computeIfAbsent(topic != null ? topic : "other", k -> new long[2]);
+            counts[0] += scan.visits[host];
+            counts[1]++;
+        }
+        return byTopic.entrySet().stream()
+                .map(e -> new TopicCount(e.getKey(), e.getValue()[0], e.getValue()[1]))
+                .sorted(Comparator.comparingLong(TopicCount::getVisits).reversed()
+                        .thenComparing(TopicCount::getTopic))
+                .toList();
+    }
+
+    public List<HostCount> findTopHosts(Long fromUsec, Long toUsec, int limit) {
+        Snapshot s = current();
+        HostScan scan = scan(s, fromUsec, toUsec);
+
+        return IntStream.range(0, s.hostCount)
+                .filter(host -> scan.visits[host] > 0)
+                .boxed()
+                .sorted(Comparator.<Integer>comparingLong(host -> scan.visits[host]).reversed()
+                        .thenComparing(host -> s.hostNames[host]))
+                .limit(limit)
+                .map(host -> new HostCount(
+                        s.hostNames[host],
+                        s.topicNames[s.hostTopics[host] & 0xFF],
+                        scan.visits[host],
+                        scan.first[host] != Long.MAX_VALUE ? scan.first[host] : null,
+                        scan.last[host] != NULL_TIME ? scan.last[host] : null))
+                .toList();
+    }
+
+    public List<TimeBucketCount> countVisitsByBucket(TimeBucket bucket, Long fromUsec, Long toUsec) {
+        Snapshot s = current();
+        long lo = Math.max(lowerBound(fromUsec, toUsec), NULL_TIME + 1);
+        long hi = toUsec != null ? toUsec : Long.MAX_VALUE;
+        long bucketUsec = bucket.getUsec();
+
+        // One (bucket, host) key per matching visit; sorting the keys gives
+        // visits and distinct hosts per bucket in a single pass.
+        long[] times = s.timeUsec;
+        int[] hosts = s.hostCodes;
+        int matches = 0;
+        long minBucket = Long.MAX_VALUE;
+        for (int i = 0; i < s.size; i++) {
+            long t = times[i];
+            if (t >= lo && t < hi) {
+                matches++;
+                minBucket = Math.min(minBucket, t / bucketUsec);
+            }
+        }
+        if (matches == 0) {
+            return List.of();
+        }
+
+        long hostRange = Math.max(1, s.hostCount);
+        long[] keys = new long[matches];
+        int k = 0;
+        for (int i = 0; i < s.size; i++) {
+            long t = times[i];
+            if (t >= lo && t < hi) {
+                keys[k++] = (t / bucketUsec - minBucket) * hostRange + hosts[i];
+            }
+        }
+        if (matches >= parallelThreshold) {
+            Arrays.parallelSort(keys);
+        } else {
+            Arrays.sort(keys);
+        }
+
+        List<TimeBucketCount> result = new ArrayList<>();
+        int i = 0;
+        while (i < keys.length) {
+            long bucketIndex = keys[i] / hostRange;
+            long visits = 0;
+            long distinctHosts = 0;
+            long previous = -1;
+            while (i < keys.length && keys[i] / hostRange == bucketIndex) {
+                if (keys[i] != previous) {
+                    distinctHosts++;
+                    previous = keys[i];
+                }
+                visits++;
+                i++;
+            }
+            result.add(new TimeBucketCount((bucketIndex + minBucket) * bucketUsec, visits, distinctHosts));
+        }
+        return result;
+    }
+
+    private Snapshot current() {
+        if (enabled && !snapshot.loaded) {
+            catchUp();
+        }
+        return snapshot;
+    }
+
+    private void append(long time, long hostId, String host, String predTopic) {
+        if (size == timeUsec.length) {
+            int capacity = size * 2;
+            timeUsec = Arrays.copyOf(timeUsec, capacity);
+            hostCodes = Arrays.copyOf(hostCodes, capacity);
+        }
+        byte topic = topicCode(predTopic);
+        int known = hostCount;
+        int hostCode = hostCode(hostId, host, topic);
+        if (hostCode < known && hostTopics[hostCode] != topic) {
+            // The host was re-classified after its earlier visits were loaded.
+            unshareTopics();
+            hostTopics[hostCode] = topic;
+        }
+
+        timeUsec[size] = time;
+        hostCodes[size] = hostCode;
+        size++;
+    }
+
+    /**
+     * Copies the host topics before hosts a published snapshot can see are
+     * re-tagged, so readers keep the old ones.
+     */
+    private void unshareTopics() {
+        if (topicsPublished) {
+            hostTopics = hostTopics.clone();
+            topicsPublished = false;
+        }
+    }
+
+    private int hostCode(long hostId, String host, byte topic) {
+        Integer code = hostCodeById.get(hostId);
+        if (code != null) {
+            return code;
+        }
+        if (hostCount == hostNames.length) {
+            hostNames = Arrays.copyOf(hostNames, hostCount * 2);
+            hostTopics = Arrays.copyOf(hostTopics, hostCount * 2);
+        }
+        code = hostCount++;
+        hostNames[code] = host;
+        hostTopics[code] = topic;
+        hostCodeById.put(hostId, code);
+        hostCodeByName.put(host, code);
+        return code;
+    }
+
+    private byte topicCode(String topic) {
+        if (topic == null) {
+            return 0;
+        }
+        Byte code = topicCodeByName.get(topic);
+        if (code != null) {
+            return code;
+        }
+        if (topicNames.size() > MAX_TOPICS) {
+            throw new IllegalStateException("More than " + MAX_TOPICS + " distinct topics");
+        }
+        byte next = (byte) topicNames.size();
+        topicNames.add(topic);
+        topicCodeByName.put(topic, next);
+        return next;
+    }
+
+    private void publish() {
+        String[] names = topicNames.toArray(new String[0]);
+        names[0] = null;
+        snapshot = new Snapshot(loaded, size, timeUsec, hostCodes, hostCount, hostNames, hostTopics, names);
+        topicsPublished = true;
+    }
+
+    private static long lowerBound(Long fromUsec, Long toUsec) {
+        if (fromUsec != null) {
+            return Math.max(fromUsec, NULL_TIME + 1);
+        }
+        // Any time bound excludes visits without a timestamp, as in SQL.
+        return toUsec != null ? NULL_TIME + 1 : NULL_TIME;
+    }
+
+    private HostScan scan(Snapshot s, Long fromUsec, Long toUsec) {
+        long lo = lowerBound(fromUsec, toUsec);
+        long hi = toUsec != null ? toUsec : Long.MAX_VALUE;
+        if (s.size < parallelThreshold) {
+            return scanRange(s, 0, s.size, lo, hi);
+        }
+
+        int chunks = Math.max(1, Runtime.getRuntime().availableProcessors() * 4);
+        int chunkSize = (s.size + chunks - 1) / chunks;
+        return IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(c -> scanRange(s, c * chunkSize, Math.min(s.size, (c + 1) * chunkSize), lo, hi))
+                .reduce(HostScan::merge)
+                .orElseGet(() -> new HostScan(s.hostCount));
+    }
+
+    private static HostScan scanRange(Snapshot s, int start, int end, long lo, long hi) {
+        HostScan scan = new HostScan(s.hostCount);
+        long[] times = s.timeUsec;
+        int[] hosts = s.hostCodes;
+        long[] visits = scan.visits;
+        long[] first = scan.first;
+        long[] last = scan.last;
+        for (int i = start; i < end; i++) {
+            long t = times[i];
+            int host = hosts[i];
+            if (t < lo || t >= hi) {
+                continue;
+            }
+            visits[host]++;
+            if (t != NULL_TIME) {
+                first[host] = Math.min(first[host], t);
+                last[host] = Math.max(last[host], t);
+            }
+        }
+        return scan;
+    }
+
+    /** Per-host visit count and first/last visit time over one scan. */
+    private static final class HostScan {
+        final long[] visits;
+        final long[] first;
+        final long[] last;
+
+        HostScan(int hostCount) {
+            visits = new long[hostCount];
+            first = new long[hostCount];
+            last = new long[hostCount];
+            Arrays.fill(first, Long.MAX_VALUE);
+            Arrays.fill(last, NULL_TIME);
+        }
+
+        HostScan merge(HostScan other) {
+            for (int i = 0; i < visits.length; i++) {
+                visits[i] += other.visits[i];
+                first[i] = Math.min(first[i], other.first[i]);
+                last[i] = Math.max(last[i], other.last[i]);
+            }
+            return this;
+        }
+    }
+
+    private record Snapshot(boolean loaded, int size, long[] timeUsec, int[] hostCodes,
+                            int hostCount, String[] hostNames, byte[] hostTopics, String[] topicNames) {
+
+        static final Snapshot EMPTY = new Snapshot(false, 0, new long[0], new int[0],
+                0, new String[0], new byte[0], new String[]{null});
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.backend.services;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter that changes whenever stored history changes, used to version
+ * cached responses. It starts from a random value per process, so versions
+ * handed out before a restart never match afterwards.
+ */
+@Component
+public class DataGeneration {
+
+    private final AtomicLong generation = new AtomicLong(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE);
+
+    public long current() {
+        return generation.get();
+    }
+
+    /**
+     * Moves to a new generation once the current transaction ends, or at
+     * once outside a transaction. Bumping after commit means a response built
+     * under the new generation always sees the new data; a rollback only
+     * costs a cache miss.
+     */
+    public void bump() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                }
+            });
+        } else {
+            generation.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataResponse;
+import com.example.backend.models.TopicVector;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class HistoryBulkImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoryBulkImporter.class);
+
+    private static final String INSERT_HOST_SQL =
+            "INSERT INTO hosts (host) VALUES (?) ON CONFLICT (host) DO NOTHING";
+
+    private static final String SELECT_HOST_IDS_SQL =
+            "SELECT id, host FROM hosts WHERE host = ANY (?)";
+
+    private static final String UPSERT_HOST_STATS_SQL = """
+            INSERT INTO host_stats (host_id, pred_topic, pred_prob, probs, updated_at)
+            VALUES (?, ?, ?, ?, now())
+            ON CONFLICT (host_id) DO UPDATE SET
+                pred_topic = EXCLUDED.pred_topic,
+                pred_prob = EXCLUDED.pred_prob,
+                probs = EXCLUDED.probs,
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    private static final String INSERT_PAGE_SQL = """
+            INSERT INTO pages (host_id, url_hash, title_hash, url_prefix, url_rest, title)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (url_hash, title_hash) DO NOTHING
+            """;
+
+    private static final String SELECT_PAGE_IDS_SQL = """
+            SELECT p.id, p.url_hash, p.title_hash
+            FROM pages p
+            JOIN unnest(?::bigint[], ?::bigint[]) AS k(url_hash, title_hash)
+              ON p.url_hash = k.url_hash AND p.title_hash = k.title_hash
+            """;
+
+    private static final String INSERT_VISITS_SQL = """
+            INSERT INTO visits (page_id, host_id, time_usec)
+            SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::bigint[])
+            ON CONFLICT (page_id, time_usec) DO NOTHING
+            RETURNING id, page_id, time_usec
+            """;
+
+    // Any fixed key; every transaction that writes visits or host_stats takes it.
+    private static final long IMPORT_LOCK_KEY = 0x4849_5354L;
+
+    private static final String LOCK_IMPORTS_SQL = "SELECT pg_advisory_xact_lock(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HostGraphIndex hostGraphIndex;
+    private final VisitDeduplicator visitDeduplicator;
+    private final VisitRollups visitRollups;
+    private final int batchSize;
+
+    public HistoryBulkImporter(JdbcTemplate jdbcTemplate,
+                               HostGraphIndex hostGraphIndex,
+                               VisitDeduplicator visitDeduplicator,
+                               VisitRollups visitRollups,
+                               @Value("${app.history-import.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.hostGraphIndex = hostGraphIndex;
+        this.visitDeduplicator = visitDeduplicator;
+        this.visitRollups = visitRollups;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports rows with one set-based pass per table instead of per-row lookups.
+     * The last row seen for a host wins, matching the per-row path.
+     */
+    @Transactional
+    public ImportStats importRows(List<MlDataResponse> rows) {
+        long started = System.nanoTime();
+        lockImports();
+
+        Map<String, MlDataResponse> latestByHost = latestByHost(rows);
+        Map<String, Long> hostIds = resolveHostIds(new ArrayList<>(latestByHost.keySet()));
+        upsertHostStats(latestByHost, hostIds);
+
+        List<MlDataResponse> withHost = rows.stream()
+                .filter(r -> r.getHost() != null)
+                .toList();
+        List<MlDataResponse> written = storeVisits(visitDeduplicator.filterNew(withHost), hostIds);
+
+        ImportStats stats = new ImportStats(written.size(), withHost.size() - written.size(),
+                latestByHost.size(), System.nanoTime() - started);
+        log.info("Imported {} urls ({} duplicates skipped) for {} hosts in {} ms ({} rows/sec)",
+                stats.rows(), stats.duplicates(), stats.hosts(), stats.elapsedMillis(),
+                Math.round(stats.rowsPerSecond()));
+        return stats;
+    }
+
+    /**
+     * Upserts host_stats for rows whose urls are already stored, without
+     * inserting them again, and returns the ids of the hosts written.
+     */
+    @Transactional
+    public Collection<Long> upsertPredictions(List<MlDataResponse> rows) {
+        lockImports();
+        Map<String, MlDataResponse> latestByHost = latestByHost(rows);
+        Map<String, Long> hostIds = resolveHostIds(new ArrayList<>(latestByHost.keySet()));
+        upsertHostStats(latestByHost, hostIds);
+        return hostIds.values();
+    }
+
+    /**
+     * Serializes writers of visits and host_stats until the surrounding
+     * transaction ends. The deduplicator, the rollups and the host graph all
+     * read committed state to decide what a batch adds, which two
+     * overlapping imports would each count.
+     */
+    public void lockImports() {
+        jdbcTemplate.query(LOCK_IMPORTS_SQL, (RowCallbackHandler) rs -> {
+        }, IMPORT_LOCK_KEY);
+    }
+
+    private static Map<String, MlDataResponse> latestByHost(List<MlDataResponse> rows) {
+        Map<String, MlDataResponse> latestByHost = new LinkedHashMap<>();
+        for (MlDataResponse row : rows) {
+            if (row.getHost() != null) {
+                latestByHost.put(row.getHost(), row);
+            }
+        }
+        return latestByHost;
+    }
+
+    private Map<String, Long> resolveHostIds(List<String> hosts) {
+        Map<String, Long> ids = new HashMap<>(hosts.size() * 2);
+        if (hosts.isEmpty()) {
+            return ids;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_HOST_SQL, hosts, batchSize,
+                (ps, host) -> ps.setString(1, host));
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_HOST_IDS_SQL);
+            ps.setArray(1, con.createArrayOf("text", hosts.toArray()));
+            return ps;
+        }, rs -> {
+            ids.put(rs.getString("host"), rs.getLong("id"));
+        });
+        return ids;
+    }
+
+    private void upsertHostStats(Map<String, MlDataResponse> latestByHost, Map<String, Long> hostIds) {
+        Map<Long, String> previousTopics = visitRollups.currentTopics(hostIds.values());
+        Map<Long, String> topics = new HashMap<>(latestByHost.size() * 2);
+        latestByHost.forEach((host, row) -> topics.put(hostIds.get(host), VisitRollups.topicOf(row.getPred_topic())));
+
+        jdbcTemplate.batchUpdate(UPSERT_HOST_STATS_SQL, latestByHost.values(), batchSize, (ps, row) -> {
+            ps.setLong(1, hostIds.get(row.getHost()));
+            ps.setString(2, row.getPred_topic());
+            setDouble(ps, 3, row.getPred_prob());
+            TopicVector vector = row.topics();
+            ps.setBytes(4, vector.isEmpty() ? null : vector.toBytes());
+        });
+        visitRollups.moveTopics(previousTopics, topics);
+    }
+
+    /**
+     * Stores visits as rows of the page dictionary plus (page_id, time_usec).
+     * Pages are shared by every visit with the same url and title. Rows must
+     * be visits whose host_stats are already written. Only the visits the
+     * insert actually wrote are added to the rollups and the host graph, and
+     * returned.
+     */
+    public List<MlDataResponse> storeVisits(List<MlDataResponse> rows, Map<String, Long> hostIds) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        Map<PageKey, MlDataResponse> pages = new LinkedHashMap<>();
+        for (MlDataResponse row : rows) {
+            pages.putIfAbsent(PageKey.of(row), row);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_PAGE_SQL, pages.entrySet(), batchSize, (ps, entry) -> {
+            MlDataResponse row = entry.getValue();
+            short prefix = PageUrls.prefix(row.getUrl(), row.getHost());
+            ps.setLong(1, hostIds.get(row.getHost()));
+            ps.setLong(2, entry.getKey().urlHash());
+            ps.setLong(3, entry.getKey().titleHash());
+            ps.setShort(4, prefix);
+            ps.setString(5, PageUrls.rest(row.getUrl(), row.getHost(), prefix));
+            ps.setString(6, row.getTitle());
+        });
+
+        Map<PageKey, Long> pageIds = new HashMap<>(pages.size() * 2);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_PAGE_IDS_SQL);
+            ps.setArray(1, con.createArrayOf("bigint",
+                    pages.keySet().stream().map(PageKey::urlHash).toArray()));
+            ps.setArray(2, con.createArrayOf("bigint",
+                    pages.keySet().stream().map(PageKey::titleHash).toArray()));
+            return ps;
+        }, rs -> {
+            pageIds.put(new PageKey(rs.getLong("url_hash"), rs.getLong("title_hash")), rs.getLong("id"));
+        });
+
+        Map<VisitKey, Deque<MlDataResponse>> pending = new HashMap<>(rows.size() * 2);
+        for (MlDataResponse row : rows) {
+            pending.computeIfAbsent(new VisitKey(pageIds.get(PageKey.of(row)), row.getTime_usec()),
+                    k -> new ArrayDeque<>()).add(row);
+        }
+        List<MlDataResponse> written = new ArrayList<>(rows.size());
+        List<Long> visitIds = new ArrayList<>(rows.size());
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<MlDataResponse> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            Long[] chunkPageIds = chunk.stream().map(row -> pageIds.get(PageKey.of(row))).toArray(Long[]::new);
+            Long[] chunkHostIds = chunk.stream().map(row -> hostIds.get(row.getHost())).toArray(Long[]::new);
+            Long[] chunkTimes = chunk.stream().map(MlDataResponse::getTime_usec).toArray(Long[]::new);
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(INSERT_VISITS_SQL);
+                ps.setArray(1, con.createArrayOf("bigint", chunkPageIds));
+                ps.setArray(2, con.createArrayOf("bigint", chunkHostIds));
+                ps.setArray(3, con.createArrayOf("bigint", chunkTimes));
+                return ps;
+            }, rs -> {
+                long time = rs.getLong("time_usec");
+                Long timeUsec = rs.wasNull() ? null : time;
+                written.add(pending.get(new VisitKey(rs.getLong("page_id"), timeUsec)).poll());
+                visitIds.add(rs.getLong("id"));
+            });
+        }
+        visitRollups.addVisits(written, hostIds);
+        hostGraphIndex.addVisits(visitIds);
+        return written;
+    }
+
+    private static void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value != null) {
+            ps.setDouble(index, value);
+        } else {
+            ps.setNull(index, Types.DOUBLE);
+        }
+    }
+
+    private record PageKey(long urlHash, long titleHash) {
+
+        static PageKey of(MlDataResponse row) {
+            return new PageKey(VisitDeduplicator.urlHash(row.getUrl()), PageUrls.titleHash(row.getTitle()));
+        }
+    }
+
+    private record VisitKey(long pageId, Long timeUsec) {
+    }
+
+    public record ImportStats(int rows, int duplicates, int hosts, long elapsedNanos) {
+
+        public long elapsedMillis() {
+            return elapsedNanos / 1_000_000L;
+        }
+
+        public double rowsPerSecond() {
+            return elapsedNanos > 0 ? rows * 1_000_000_000.0 / elapsedNanos : rows;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataRequest;
+import com.example.backend.models.MlDataResponse;
+import com.example.backend.models.Topic;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Columnar batch format shared with the ML service ({@code ml/wire_format.py}),
+ * used instead of JSON arrays when both sides support it. All numbers are
+ * big-endian.
+ *
+ * <pre>
+ * request:  "HCB1" int32 rows | title url host : strings | time_usec : int64
+ * response: "HCB1" int32 rows | uint8 k, k x (uint8 length, ascii name)
+ *           | title url host pred_topic : strings | time_usec : int64
+ *           | pred_prob : float64 | k x float64 (the named prob_* columns)
+ * </pre>
+ *
+ * A strings column is one int32 end offset per row into the UTF-8 bytes
+ * that follow it, bitwise-complemented for null, as in {@link Utf8Column}.
+ * A null int64 is {@link Long#MIN_VALUE} and a null float64 is NaN.
+ * Unknown prob_* names are skipped when reading.
+ */
+final class HistoryColumns {
+
+    private static final byte[] MAGIC = {'H', 'C', 'B', '1'};
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final Topic[] TOPICS = Topic.values();
+
+    private HistoryColumns() {
+    }
+
+    static byte[] writeRequests(List<MlDataRequest> rows) {
+        Writer out = new Writer(rows.size() * 96);
+        out.header(rows.size());
+        out.strings(rows.size(), i -> rows.get(i).getTitle());
+        out.strings(rows.size(), i -> rows.get(i).getUrl());
+        out.strings(rows.size(), i -> rows.get(i).getHost());
+        for (MlDataRequest row : rows) {
+            out.putLong(row.getTime_usec());
+        }
+        return out.toByteArray();
+    }
+
+    static List<MlDataRequest> readRequests(byte[] bytes) {
+        Reader in = new Reader(bytes);
+        int n = in.header();
+        String[] titles = in.strings(n);
+        String[] urls = in.strings(n);
+        String[] hosts = in.strings(n);
+        List<MlDataRequest> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            MlDataRequest row = new MlDataRequest();
+            row.setTitle(titles[i]);
+            row.setUrl(urls[i]);
+            row.setHost(hosts[i]);
+            row.setTime_usec(in.getLong());
+            rows.add(row);
+        }
+        in.end();
+        return rows;
+    }
+
+    static byte[] writeResponses(List<MlDataResponse> rows) {
+        Writer out = new Writer(rows.size() * (96 + (Topic.COUNT + 1) * Double.BYTES));
+        out.header(rows.size());
+        out.put((byte) TOPICS.length);
+        for (Topic topic : TOPICS) {
+            byte[] name = topic.getProbabilityKey().getBytes(StandardCharsets.US_ASCII);
+            out.put((byte) name.length);
+            out.put(name);
+        }
+        out.strings(rows.size(), i -> rows.get(i).getTitle());
+        out.strings(rows.size(), i -> rows.get(i).getUrl());
+        out.strings(rows.size(), i -> rows.get(i).getHost());
+        out.strings(rows.size(), i -> rows.get(i).getPred_topic());
+        for (MlDataResponse row : rows) {
+            out.putLong(row.getTime_usec());
+        }
+        for (MlDataResponse row : rows) {
+            out.putDouble(row.getPred_prob() != null ? row.getPred_prob() : Double.NaN);
+        }
+        for (Topic topic : TOPICS) {
+            for (MlDataResponse row : rows) {
+                out.putDouble(row.topics().get(topic));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    static List<MlDataResponse> readResponses(byte[] bytes) {
+        Reader in = new Reader(bytes);
+        int n = in.header();
+        Topic[] probColumns = new Topic[in.getUnsignedByte()];
+        for (int c = 0; c < probColumns.length; c++) {
+            probColumns[c] = Topic.fromProbabilityKey(in.ascii(in.getUnsignedByte()));
+        }
+
+        String[] titles = in.strings(n);
+        String[] urls = in.strings(n);
+        String[] hosts = in.strings(n);
+        String[] predTopics = in.strings(n);
+        List<MlDataResponse> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            MlDataResponse row = new MlDataResponse();
+            row.setTitle(titles[i]);
+            row.setUrl(urls[i]);
+            row.setHost(hosts[i]);
+            row.setPred_topic(predTopics[i]);
+            row.setTime_usec(in.getLong());
+            rows.add(row);
+        }
+        for (MlDataResponse row : rows) {
+            double prob = in.getDouble();
+            row.setPred_prob(Double.isNaN(prob) ? null : prob);
+        }
+        for (Topic topic : probColumns) {
+            for (MlDataResponse row : rows) {
+                double prob = in.getDouble();
+                if (topic != null) {
+                    row.topics().set(topic, prob);
+                }
+            }
+        }
+        in.end();
+        return rows;
+    }
+
+    private static final class Writer {
+
+        private ByteBuffer buffer;
+
+        Writer(int expectedBytes) {
+            buffer = ByteBuffer.allocate(Math.max(expectedBytes, 64));
+        }
+
+        void header(int rows) {
+            put(MAGIC);
+            ensure(Integer.BYTES);
+            buffer.putInt(rows);
+        }
+
+        void put(byte value) {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void put(byte[] bytes) {
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void putLong(Long value) {
+            ensure(Long.BYTES);
+            buffer.putLong(value != null ? value : NULL_LONG);
+        }
+
+        void putDouble(double value) {
+            ensure(Double.BYTES);
+            buffer.putDouble(value);
+        }
+
+        void strings(int rows, IntFunction<String> column) {
+            byte[][] values = new byte[rows][];
+            int size = 0;
+            for (int i = 0; i < rows; i++) {
+                String value = column.apply(i);
+                if (value != null) {
+                    values[i] = value.getBytes(StandardCharsets.UTF_8);
+                    size += values[i].length;
+                }
+            }
+            ensure(rows * Integer.BYTES + size);
+            int end = 0;
+            for (byte[] value : values) {
+                if (value == null) {
+                    buffer.putInt(~end);
+                } else {
+                    end += value.length;
+                    buffer.putInt(end);
+                }
+            }
+            for (byte[] value : values) {
+                if (value != null) {
+                    buffer.put(value);
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                grown.put(buffer.array(), 0, buffer.position());
+                buffer = grown;
+            }
+        }
+    }
+
+    private static final class Reader {
+
+        private final ByteBuffer buffer;
+
+        Reader(byte[] bytes) {
+            buffer = ByteBuffer.wrap(bytes);
+        }
+
+        int header() {
+            byte[] magic = new byte[MAGIC.length];
+            get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IllegalArgumentException("Not a history columns batch");
+            }
+            int rows = getInt();
+            if (rows < 0 || rows > buffer.remaining() / Integer.BYTES) {
+                throw new IllegalArgumentException("Bad row count " + rows);
+            }
+            return rows;
+        }
+
+        int getUnsignedByte() {
+            try {
+                return Byte.toUnsignedInt(buffer.get());
+            } catch (BufferUnderflowException e) {
+                throw truncated(e);
+            }
+        }
+
+        int getInt() {
+            try {
+                return buffer.getInt();
+            } catch (BufferUnderflowException e) {
+                throw truncated(e);
+            }
+        }
+
+        Long getLong() {
+            try {
+                long value = buffer.getLong();
+                return value == NULL_LONG ? null : value;
+            } catch (BufferUnderflowException e) {
+                throw truncated(e);
+            }
+        }
+
+        double getDouble() {
+            try {
+                return buffer.getDouble();
+            } catch (BufferUnderflowException e) {
+                throw truncated(e);
+            }
+        }
+
+        String ascii(int length) {
+            byte[] bytes = new byte[length];
+            get(bytes);
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+
+        String[] strings(int rows) {
+            int[] ends = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                ends[i] = getInt();
+            }
+            int base = buffer.position();
+            int start = 0;
+            String[] values = new String[rows];
+            for (int i = 0; i < rows; i++) {
+                int end = ends[i];
+                if (end < 0) {
+                    start = ~end;
+                    continue;
+                }
+                if (end < start || base + end > buffer.limit()) {
+                    throw new IllegalArgumentException("Corrupt strings column at row " + i);
+                }
+                values[i] = new String(buffer.array(), base + start, end - start, StandardCharsets.UTF_8);
+                start = end;
+            }
+            buffer.position(base + start);
+            return values;
+        }
+
+        void end() {
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException(buffer.remaining() + " trailing bytes after batch");
+            }
+        }
+
+        private void get(byte[] into) {
+            try {
+                buffer.get(into);
+            } catch (BufferUnderflowException e) {
+                throw truncated(e);
+            }
+        }
+
+        private static IllegalArgumentException truncated(BufferUnderflowException e) {
+            return new IllegalArgumentException("Truncated history columns batch", e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataRequest;
+import com.example.backend.models.MlDataResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads and writes {@code MlDataRequest[]} and {@code MlDataResponse[]}
+ * bodies as {@link HistoryColumns} batches.
+ */
+class HistoryColumnsHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    static final MediaType MEDIA_TYPE = new MediaType("application", "x-history-columns");
+
+    HistoryColumnsHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == MlDataRequest[].class || clazz == MlDataResponse[].class;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        byte[] bytes = inputMessage.getBody().readAllBytes();
+        try {
+            if (clazz == MlDataRequest[].class) {
+                return HistoryColumns.readRequests(bytes).toArray(MlDataRequest[]::new);
+            }
+            return HistoryColumns.readResponses(bytes).toArray(MlDataResponse[]::new);
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object body, HttpOutputMessage outputMessage) throws IOException {
+        byte[] bytes = body instanceof MlDataRequest[] requests
+                ? HistoryColumns.writeRequests(Arrays.asList(requests))
+                : HistoryColumns.writeResponses(Arrays.asList((MlDataResponse[]) body));
+        outputMessage.getHeaders().setContentLength(bytes.length);
+        outputMessage.getBody().write(bytes);
+    }
+}
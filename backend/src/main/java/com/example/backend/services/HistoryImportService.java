@@ -2,20 +2,19 @@ package com.example.backend.services;
 
 
 import com.example.backend.models.*;
-import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Value;
-import tools.jackson.core.type.TypeReference;
 import com.example.backend.repositories.HostStatsRepository;
 import com.example.backend.repositories.HostsRepository;
 import com.example.backend.repositories.UrlsRepository;
-import tools.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Service;
 
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class HistoryImportService {
@@ -23,35 +22,107 @@ public class HistoryImportService {
     private final HostsRepository hostsRepository;
     private final HostStatsRepository hostStatsRepository;
     private final UrlsRepository urlsRepository;
-    private final ObjectMapper objectMapper;
-    private final String historySamplePath;
+    private final HistoryBulkImporter historyBulkImporter;
+    private final VisitDeduplicator visitDeduplicator;
+    private final boolean bulkImport;
+    private final HistorySampleReader historySampleReader;
+    private final int sampleBatchSize;
+    private final ColumnarHistoryStore columnarHistoryStore;
+    private final VisitRollups visitRollups;
+    private final HistorySearchIndex historySearchIndex;
+    private final HostSimilarityIndex hostSimilarityIndex;
+    private final VisitSessionizer visitSessionizer;
+    private final DataGeneration dataGeneration;
 
     public HistoryImportService(HostStatsRepository hostStatsRepository,
                                 HostsRepository hostsRepository,
                                 UrlsRepository urlsRepository,
-                                ObjectMapper objectMapper,
-                                @Value("${app.ml.history-sample.path}") String historySamplePath) {
+                                HistoryBulkImporter historyBulkImporter,
+                                VisitDeduplicator visitDeduplicator,
+                                @Value("${app.history-import.bulk:true}") boolean bulkImport,
+                                HistorySampleReader historySampleReader,
+                                @Value("${app.history-sample.batch-size:5000}") int sampleBatchSize,
+                                ColumnarHistoryStore columnarHistoryStore,
+                                VisitRollups visitRollups,
+                                HistorySearchIndex historySearchIndex,
+                                HostSimilarityIndex hostSimilarityIndex,
+                                VisitSessionizer visitSessionizer,
+                                DataGeneration dataGeneration) {
         this.hostStatsRepository = hostStatsRepository;
         this.hostsRepository = hostsRepository;
         this.urlsRepository = urlsRepository;
-        this.objectMapper = objectMapper;
-        this.historySamplePath = historySamplePath;
+        this.historyBulkImporter = historyBulkImporter;
+        this.visitDeduplicator = visitDeduplicator;
+        this.bulkImport = bulkImport;
+        this.historySampleReader = historySampleReader;
+        this.sampleBatchSize = sampleBatchSize;
+        this.columnarHistoryStore = columnarHistoryStore;
+        this.visitRollups = visitRollups;
+        this.historySearchIndex = historySearchIndex;
+        this.hostSimilarityIndex = hostSimilarityIndex;
+        this.visitSessionizer = visitSessionizer;
+        this.dataGeneration = dataGeneration;
     }
 
     public List<MlDataResponse> parseJson(String path) {
-        try{
-            String json = Files.readString(Path.of(path));
-            return objectMapper.readValue(
-                    json,
-                    new TypeReference<List<MlDataResponse>>() {}
-            );
-        } catch (Exception e) {
-            throw new RuntimeException("Error loading sample data from file: " + path, e);
-        }
+        List<MlDataResponse> rows = new ArrayList<>();
+        historySampleReader.read(Path.of(path), sampleBatchSize, rows::addAll);
+        return rows;
     }
 
     @Transactional
     public void updateHistorySample(List<MlDataResponse> rows) {
+        historyBulkImporter.lockImports();
+        if (bulkImport) {
+            historyBulkImporter.importRows(rows);
+        } else {
+            updateHistorySamplePerRow(rows);
+        }
+        updateSessions(rows);
+        AfterCommit.run(() -> {
+            columnarHistoryStore.syncAfterImport(rows);
+            historySearchIndex.catchUp();
+            hostSimilarityIndex.update(rows);
+        });
+        dataGeneration.bump();
+    }
+
+    /** Re-sessionizes around the time range of the imported rows. */
+    private void updateSessions(List<MlDataResponse> rows) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (MlDataResponse row : rows) {
+            Long time = row.getTime_usec();
+            if (time != null) {
+                min = Math.min(min, time);
+                max = Math.max(max, time);
+            }
+        }
+        if (min <= max) {
+            visitSessionizer.update(min, max);
+        }
+    }
+
+    /**
+     * Stores new predictions for hosts already imported. Sessions holding
+     * their visits get their topic mix recomputed in the same transaction.
+     */
+    @Transactional
+    public void updatePredictions(List<MlDataResponse> rows) {
+        visitSessionizer.retagHosts(historyBulkImporter.upsertPredictions(rows));
+        AfterCommit.run(() -> {
+            columnarHistoryStore.updateHostTopics(rows);
+            hostSimilarityIndex.update(rows);
+        });
+        dataGeneration.bump();
+    }
+
+    @Transactional
+    public void updateHistorySamplePerRow(List<MlDataResponse> rows) {
+        historyBulkImporter.lockImports();
+        Map<String, Long> hostIds = new HashMap<>();
+        List<MlDataResponse> fresh = visitDeduplicator.filterNew(rows);
+
         for (MlDataResponse row : rows) {
 
             Hosts host = hostsRepository
@@ -70,105 +141,35 @@ public class HistoryImportService {
                         return s;
                     });
 
+            String previousTopic = stats.getId() != null ? VisitRollups.topicOf(stats.getPred_topic()) : null;
             stats.setPred_topic(row.getPred_topic());
             stats.setPred_prob(row.getPred_prob());
-            stats.setProb_news(row.getProb_news());
-            stats.setProb_shopping(row.getProb_shopping());
-            stats.setProb_social(row.getProb_social());
-            stats.setProb_video(row.getProb_video());
-            stats.setProb_education(row.getProb_education());
-            stats.setProb_work(row.getProb_work());
-            stats.setProb_finance(row.getProb_finance());
-            stats.setProb_travel(row.getProb_travel());
-            stats.setProb_gaming(row.getProb_gaming());
-            stats.setProb_entertainment(row.getProb_entertainment());
-            stats.setProb_tech(row.getProb_tech());
-            stats.setProb_services(row.getProb_services());
-            stats.setProb_health(row.getProb_health());
-            stats.setProb_government(row.getProb_government());
-            stats.setProb_other(row.getProb_other());
-
-            hostStatsRepository.save(stats);
-
-            Urls url = new Urls();
-            url.setHost(host);
-            url.setTitle(row.getTitle());
-            url.setUrl(row.getUrl());
-            url.setTime_usec(row.getTime_usec());
-
-            urlsRepository.save(url);
-        }
-    }
+            stats.setTopics(row.topics());
+            stats.setUpdated_at(Instant.now());
+
+            // Flushed so the rollup SQL below sees the new topic.
+            hostStatsRepository.saveAndFlush(stats);
+            hostIds.put(host.getHost(), host.getId());
+            if (previousTopic != null) {
+                visitRollups.moveTopics(Map.of(host.getId(), previousTopic),
+                        Map.of(host.getId(), VisitRollups.topicOf(row.getPred_topic())));
+            }
 
-    @PostConstruct
-    @Transactional
-    public void loadSampleDataFromFile() {
-        List<MlDataResponse> rows = parseJson(historySamplePath);
-        updateHistorySample(rows);
+        }
+        for (MlDataResponse row : fresh) {
+            historyBulkImporter.storeVisits(List.of(row), Map.of(row.getHost(), hostIds.get(row.getHost())));
+        }
     }
 
     public List<MlDataRequest> formateHistorySampleRequest() {
-        List<Urls> urls = urlsRepository.findAll();
-
-        return urls.stream()
-                .map(u -> {
-                    MlDataRequest dto = new MlDataRequest();
-                    dto.setTitle(u.getTitle());
-                    dto.setUrl(u.getUrl());
-                    dto.setTime_usec(u.getTime_usec());
-
-                    Hosts host = u.getHost();
-                    dto.setHost(host != null ? host.getHost() : null);
-
-                    return dto;
-                })
+        return urlsRepository.findAllHistoryRows().stream()
+                .map(HistoryRowView::toRequest)
                 .toList();
     }
 
-
     public List<MlDataResponse> formateHistorySampleResponse() {
-        List<Urls> urls = urlsRepository.findAll();
-        List<MlDataResponse> res = new ArrayList<>();
-
-        for (Urls url : urls) {
-            Hosts host = url.getHost();
-            HostStats stats = hostStatsRepository
-                    .findByHost(host)
-                    .orElse(null);
-
-            MlDataResponse dto = new MlDataResponse();
-
-            dto.setTitle(url.getTitle());
-            dto.setUrl(url.getUrl());
-            dto.setTime_usec(url.getTime_usec());
-            dto.setHost(host.getHost());
-
-            if (stats != null) {
-                dto.setPred_topic(stats.getPred_topic());
-                dto.setPred_prob(stats.getPred_prob());
-                dto.setProb_news(stats.getProb_news());
-                dto.setProb_shopping(stats.getProb_shopping());
-                dto.setProb_social(stats.getProb_social());
-                dto.setProb_video(stats.getProb_video());
-                dto.setProb_education(stats.getProb_education());
-                dto.setProb_work(stats.getProb_work());
-                dto.setProb_finance(stats.getProb_finance());
-                dto.setProb_travel(stats.getProb_travel());
-                dto.setProb_gaming(stats.getProb_gaming());
-                dto.setProb_entertainment(stats.getProb_entertainment());
-                dto.setProb_tech(stats.getProb_tech());
-                dto.setProb_services(stats.getProb_services());
-                dto.setProb_health(stats.getProb_health());
-                dto.setProb_government(stats.getProb_government());
-                dto.setProb_other(stats.getProb_other());
-            }
-
-            res.add(dto);
-        }
-        return res;
+        return urlsRepository.findAllHistoryRows().stream()
+                .map(HistoryRowView::toResponse)
+                .toList();
     }
-
-
-
-
 }
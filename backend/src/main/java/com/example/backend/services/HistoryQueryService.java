@@ -1,16 +1,32 @@
 package com.example.backend.services;
 
+import com.example.backend.models.HistoryPage;
+import com.example.backend.models.HistoryPageFilter;
+import com.example.backend.models.HistoryRowView;
 import com.example.backend.models.MlDataRequest;
 import com.example.backend.models.MlDataResponse;
+import com.example.backend.models.UploadStage;
+import com.example.backend.repositories.HistoryPageRepository;
 import com.example.backend.repositories.HostStatsRepository;
 import com.example.backend.repositories.HostsRepository;
 import com.example.backend.repositories.UrlsRepository;
 import org.springframework.beans.factory.annotation.Value;
-
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class HistoryQueryService {
@@ -21,8 +37,17 @@ public class HistoryQueryService {
     private final boolean refreshOnRequest;
     private final HistoryImportService historyImportService;
     private final MlClientService mlClientService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final HistoryPageRepository historyPageRepository;
+    private final HistoryRefreshService historyRefreshService;
+    private final SafariHistoryReader safariHistoryReader;
+    private final PredictionService predictionService;
     private final String mlPredictPath;
-    private static final long MAX_UPLOAD_SIZE_BYTES = 500L * 1024 * 1024;
+    private final UploadResultCache uploadResultCache;
+    private final DataSize maxFileSize;
+    private final DataSize maxRequestSize;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
 
     public HistoryQueryService(HostsRepository hostsRepository,
             HostStatsRepository hostStatsRepository,
@@ -30,7 +55,15 @@ public class HistoryQueryService {
             @Value("${app.history-sample.refresh-on-request}") boolean refreshOnRequest,
             HistoryImportService historyImportService,
             MlClientService mlClientService,
-            @Value("${app.ml.predict-path}") String mlPredictPath) {
+            PlatformTransactionManager transactionManager,
+            HistoryPageRepository historyPageRepository,
+            HistoryRefreshService historyRefreshService,
+            SafariHistoryReader safariHistoryReader,
+            PredictionService predictionService,
+            @Value("${app.ml.predict-path}") String mlPredictPath,
+            UploadResultCache uploadResultCache,
+            @Value("${spring.servlet.multipart.max-file-size:1MB}") DataSize maxFileSize,
+            @Value("${spring.servlet.multipart.max-request-size:10MB}") DataSize maxRequestSize) {
 
         this.hostStatsRepository = hostStatsRepository;
         this.hostsRepository = hostsRepository;
@@ -38,34 +71,122 @@ public class HistoryQueryService {
         this.refreshOnRequest = refreshOnRequest;
         this.historyImportService = historyImportService;
         this.mlClientService = mlClientService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.historyPageRepository = historyPageRepository;
+        this.historyRefreshService = historyRefreshService;
+        this.safariHistoryReader = safariHistoryReader;
+        this.predictionService = predictionService;
         this.mlPredictPath = mlPredictPath;
+        this.uploadResultCache = uploadResultCache;
+        this.maxFileSize = maxFileSize;
+        this.maxRequestSize = maxRequestSize;
     }
 
     public List<MlDataResponse> getHistorySample() {
         if (refreshOnRequest) {
+            historyRefreshService.refresh();
+        }
+        return historyImportService.formateHistorySampleResponse();
+    }
+
+    /**
+     * Pushes every stored row to the sink while the database cursor is open,
+     * so memory use does not depend on history size.
+     */
+    public void streamHistorySample(Consumer<MlDataResponse> sink) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<HistoryRowView> rows = urlsRepository.streamAllHistoryRows()) {
+                rows.forEach(row -> sink.accept(row.toResponse()));
+            }
+        });
+    }
 
-            List<MlDataRequest> requests = historyImportService.formateHistorySampleRequest();
-            List<MlDataResponse> response = mlClientService.requestPrediction(requests, mlPredictPath);
-            historyImportService.updateHistorySample(response);
-            return response;
+    public HistoryPage getHistoryPage(Long fromUsec, Long toUsec, String host, String topic,
+            String cursor, Integer limit) {
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
 
-        } else {
-            return historyImportService.formateHistorySampleResponse();
+        Long cursorTime = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = cursor.split("_", 2);
+            try {
+                cursorTime = Long.parseLong(parts[0]);
+                cursorId = Long.parseLong(parts[1]);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor, e);
+            }
+        }
+
+        return historyPageRepository.findPage(new HistoryPageFilter(
+                fromUsec, toUsec, blankToNull(host), blankToNull(topic), cursorTime, cursorId, pageSize));
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    /**
+     * Rejects an upload with neither part, or one over the multipart limits.
+     * The servlet container enforces those limits on HTTP uploads already;
+     * this keeps the same answer for parts that reach here another way.
+     */
+    void checkUpload(MultipartFile file, MultipartFile zipFile) {
+        long fileSize = file != null ? file.getSize() : 0L;
+        long zipSize = zipFile != null ? zipFile.getSize() : 0L;
+        if (fileSize == 0 && zipSize == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one file (DB or ZIP) must be provided");
+        }
+        if (Math.max(fileSize, zipSize) > maxFileSize.toBytes() || fileSize + zipSize > maxRequestSize.toBytes()) {
+            throw new ResponseStatusException(HttpStatus.CONTENT_TOO_LARGE,
+                    "Upload is too large: " + (fileSize + zipSize) + " bytes");
         }
     }
 
     public List<MlDataResponse> processUploadedHistory(MultipartFile file, MultipartFile zipFile) {
+        checkUpload(file, zipFile);
         boolean hasFile = file != null && !file.isEmpty();
         boolean hasZip = zipFile != null && !zipFile.isEmpty();
+        return processUploadedHistory(
+                hasFile ? new UploadedPartResource(file, "history.db") : null,
+                hasZip ? new UploadedPartResource(zipFile, "data.zip") : null,
+                UploadProgress.NONE);
+    }
 
-        if (!hasFile && !hasZip) {
-            throw new IllegalArgumentException("At least one file (DB or ZIP) must be provided");
+    public List<MlDataResponse> processUploadedHistory(Resource file, Resource zipFile, UploadProgress progress) {
+        progress.stage(UploadStage.READING, 0);
+        String hash = uploadResultCache.contentHash(file, zipFile);
+        List<MlDataResponse> cached = uploadResultCache.get(hash, contentLength(file) + contentLength(zipFile));
+        if (cached != null) {
+            // Only the ML work is skipped; the rows are stored again because the
+            // database may have been reset since, and the import drops duplicates.
+            progress.stage(UploadStage.READING, cached.size());
+            progress.rowsProcessed(cached.size());
+            return store(cached, progress);
         }
 
-        if (hasFile && file.getSize() > MAX_UPLOAD_SIZE_BYTES) {
-            throw new IllegalArgumentException("Uploaded file is too large: " + file.getSize());
+        List<MlDataResponse> responses = classifyUploadedHistory(file, zipFile, progress);
+        uploadResultCache.put(hash, responses);
+        return responses;
+    }
+
+    private static long contentLength(Resource part) {
+        try {
+            return part != null ? part.contentLength() : 0L;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private List<MlDataResponse> classifyUploadedHistory(Resource file, Resource zipFile, UploadProgress progress) {
+        if (file != null && safariHistoryReader.isSqlite(file)) {
+            return classifySafariHistory(safariHistoryReader.read(file), progress);
         }
 
+        progress.stage(UploadStage.CLASSIFYING, 0);
         List<MlDataResponse> responses = mlClientService.sendSafariDbToMl(file, zipFile, "/predict-history/safari");
 
         long MAC_TO_UNIX_OFFSET = 978307200L;
@@ -80,7 +201,44 @@ public class HistoryQueryService {
             }
         }
 
+        // The ML call is opaque, so the stage total is only known once it returns.
+        progress.stage(UploadStage.CLASSIFYING, responses.size());
+        progress.rowsProcessed(responses.size());
+        return store(responses, progress);
+    }
+
+    private List<MlDataResponse> store(List<MlDataResponse> responses, UploadProgress progress) {
+        progress.stage(UploadStage.STORING, responses.size());
+        historyImportService.updateHistorySample(responses);
+        progress.rowsProcessed(responses.size());
         return responses;
     }
 
+    private List<MlDataResponse> classifySafariHistory(SafariHistoryReader.SafariHistory history,
+            UploadProgress progress) {
+        progress.stage(UploadStage.CLASSIFYING, history.pages().size());
+        Map<String, MlDataResponse> byHost = new HashMap<>();
+        predictionService.predict(history.pages(), mlPredictPath, batch -> {
+            for (MlDataResponse row : batch) {
+                byHost.put(row.getHost(), row);
+            }
+            progress.rowsProcessed(batch.size());
+        });
+
+        List<MlDataResponse> responses = new ArrayList<>(history.visits().size());
+        for (MlDataRequest visit : history.visits()) {
+            MlDataResponse dto = new MlDataResponse();
+            dto.setTitle(visit.getTitle());
+            dto.setUrl(visit.getUrl());
+            dto.setTime_usec(visit.getTime_usec());
+            dto.setHost(visit.getHost());
+            MlDataResponse prediction = byHost.get(visit.getHost());
+            if (prediction != null) {
+                dto.copyPredictionFrom(prediction);
+            }
+            responses.add(dto);
+        }
+        return store(responses, progress);
+    }
+
 }
@@ -0,0 +1,155 @@
+package com.example.backend.services;
+
+import com.example.backend.models.HistoryRowView;
+import com.example.backend.models.MlDataRequest;
+import com.example.backend.models.RefreshWatermarks;
+import com.example.backend.repositories.RefreshWatermarksRepository;
+import com.example.backend.repositories.UrlsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Re-classifies only the urls stored since the last successful refresh. The
+ * watermark is the highest urls.id that was classified plus the {@link IdGaps}
+ * ranges below it that were not committed yet, which every run probes again.
+ * Both only move forward once every batch of a run has been stored.
+ */
+@Service
+public class HistoryRefreshService {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoryRefreshService.class);
+    private static final String WATERMARK_NAME = "history-sample";
+
+    private static final String SELECT_GAP_IDS_SQL = """
+            SELECT v.id
+            FROM unnest(?::bigint[], ?::bigint[]) AS g(lo, hi)
+            JOIN visits v ON v.id BETWEEN g.lo AND g.hi
+            ORDER BY v.id
+            """;
+
+    private final UrlsRepository urlsRepository;
+    private final RefreshWatermarksRepository refreshWatermarksRepository;
+    private final PredictionService predictionService;
+    private final HistoryImportService historyImportService;
+    private final String mlPredictPath;
+    private final JdbcTemplate jdbcTemplate;
+    private final long gapRetentionMillis;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    public HistoryRefreshService(UrlsRepository urlsRepository,
+                                 RefreshWatermarksRepository refreshWatermarksRepository,
+                                 PredictionService predictionService,
+                                 HistoryImportService historyImportService,
+                                 @Value("${app.ml.predict-path}") String mlPredictPath,
+                                 JdbcTemplate jdbcTemplate,
+                                 @Value("${app.history-import.gap-retention-minutes:60}") long gapRetentionMinutes) {
+        this.urlsRepository = urlsRepository;
+        this.refreshWatermarksRepository = refreshWatermarksRepository;
+        this.predictionService = predictionService;
+        this.historyImportService = historyImportService;
+        this.mlPredictPath = mlPredictPath;
+        this.jdbcTemplate = jdbcTemplate;
+        this.gapRetentionMillis = gapRetentionMinutes * 60_000L;
+    }
+
+    /**
+     * Returns the number of urls classified. If another refresh is already
+     * running this returns 0 at once instead of queueing a duplicate run.
+     */
+    public int refresh() {
+        if (!refreshLock.tryLock()) {
+            return 0;
+        }
+        try {
+            RefreshWatermarks watermark = refreshWatermarksRepository.findById(WATERMARK_NAME)
+                    .orElseGet(() -> new RefreshWatermarks(WATERMARK_NAME));
+
+            IdGaps visitIds = readRanges(watermark);
+            int openBefore = visitIds.rangeCount();
+
+            List<HistoryRowView> rows = new ArrayList<>();
+            if (!visitIds.isEmpty()) {
+                List<Long> lateIds = jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(SELECT_GAP_IDS_SQL);
+                    ps.setArray(1, con.createArrayOf("bigint", visitIds.starts()));
+                    ps.setArray(2, con.createArrayOf("bigint", visitIds.ends()));
+                    return ps;
+                }, (rs, rowNum) -> rs.getLong("id"));
+                if (!lateIds.isEmpty()) {
+                    rows.addAll(urlsRepository.findHistoryRowsByIds(lateIds));
+                }
+            }
+            rows.addAll(urlsRepository.findHistoryRowsAfter(visitIds.last()));
+
+            long now = System.currentTimeMillis();
+            for (HistoryRowView row : rows) {
+                visitIds.seen(row.getId(), now);
+            }
+            visitIds.expire(now);
+            if (rows.isEmpty() && visitIds.rangeCount() == openBefore) {
+                return 0;
+            }
+
+            if (!rows.isEmpty()) {
+                List<MlDataRequest> requests = rows.stream()
+                        .map(HistoryRowView::toRequest)
+                        .toList();
+                predictionService.predict(requests, mlPredictPath, historyImportService::updatePredictions);
+            }
+
+            watermark.setLast_url_id(visitIds.last());
+            watermark.setOpen_ranges(writeRanges(visitIds));
+            watermark.setCompleted_at(Instant.now());
+            refreshWatermarksRepository.save(watermark);
+
+            if (!rows.isEmpty()) {
+                log.info("Refreshed predictions for {} new urls up to id {} ({} id ranges still open)",
+                        rows.size(), visitIds.last(), visitIds.rangeCount());
+            }
+            return rows.size();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private IdGaps readRanges(RefreshWatermarks watermark) {
+        IdGaps visitIds = new IdGaps(gapRetentionMillis);
+        if (watermark.getOpen_ranges() == null) {
+            visitIds.resetTo(watermark.getLast_url_id());
+            return visitIds;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(watermark.getOpen_ranges()))) {
+            visitIds.readFrom(in);
+        } catch (IOException e) {
+            log.warn("Unreadable open id ranges for watermark {}, resuming after id {}",
+                    watermark.getName(), watermark.getLast_url_id(), e);
+            visitIds.resetTo(watermark.getLast_url_id());
+        }
+        return visitIds;
+    }
+
+    private static byte[] writeRanges(IdGaps visitIds) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            visitIds.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.backend.services;
+
+import com.example.backend.models.SampleImports;
+import com.example.backend.models.StartupStatus;
+import com.example.backend.models.WarmupState;
+import com.example.backend.repositories.SampleImportsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads the sample file in the background once the context has started.
+ * The import is skipped when a file with the same SHA-256 has already been
+ * loaded. /health/ready answers 503 until the load finishes.
+ */
+@Service
+public class HistorySampleLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(HistorySampleLoader.class);
+
+    private final HistoryImportService historyImportService;
+    private final SampleImportsRepository sampleImportsRepository;
+    private final HistorySampleReader historySampleReader;
+    private final String historySamplePath;
+    private final int sampleBatchSize;
+    private final boolean loadOnStartup;
+
+    private final AtomicLong rowsLoaded = new AtomicLong();
+    private volatile WarmupState state = WarmupState.WARMING_UP;
+    private volatile boolean sampleSkipped;
+    private volatile Long sampleLoadMs;
+    private volatile Long timeToReadyMs;
+    private volatile String error;
+
+    public HistorySampleLoader(HistoryImportService historyImportService,
+                               SampleImportsRepository sampleImportsRepository,
+                               HistorySampleReader historySampleReader,
+                               @Value("${app.ml.history-sample.path}") String historySamplePath,
+                               @Value("${app.history-sample.batch-size:5000}") int sampleBatchSize,
+                               @Value("${app.history-sample.load-on-startup:true}") boolean loadOnStartup) {
+        this.historyImportService = historyImportService;
+        this.sampleImportsRepository = sampleImportsRepository;
+        this.historySampleReader = historySampleReader;
+        this.historySamplePath = historySamplePath;
+        this.sampleBatchSize = sampleBatchSize;
+        this.loadOnStartup = loadOnStartup;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onApplicationStarted() {
+        if (!loadOnStartup) {
+            finish(WarmupState.READY, 0L);
+            return;
+        }
+        Thread.ofVirtual().name("history-sample-loader").start(this::load);
+    }
+
+    public StartupStatus getStatus() {
+        return new StartupStatus(state, sampleSkipped, rowsLoaded.get(), sampleLoadMs, timeToReadyMs, error);
+    }
+
+    public boolean isReady() {
+        return state == WarmupState.READY;
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        try {
+            Path path = Path.of(historySamplePath);
+            String checksum = checksum(path);
+            if (sampleImportsRepository.existsById(checksum)) {
+                sampleSkipped = true;
+                log.info("Sample data {} already loaded (sha256 {}), skipping import", path, checksum);
+            } else {
+                long rows = loadSampleData(path);
+                sampleImportsRepository.save(new SampleImports(checksum, historySamplePath, rows));
+            }
+            finish(WarmupState.READY, System.nanoTime() - started);
+        } catch (RuntimeException e) {
+            log.error("Loading sample data from {} failed", historySamplePath, e);
+            error = e.getMessage();
+            finish(WarmupState.FAILED, System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Imports the file batch by batch, each in its own transaction through
+     * the HistoryImportService proxy. Returns the number of rows read.
+     */
+    private long loadSampleData(Path path) {
+        return historySampleReader.read(path, sampleBatchSize, batch -> {
+            historyImportService.updateHistorySample(batch);
+            rowsLoaded.addAndGet(batch.size());
+        });
+    }
+
+    private synchronized void finish(WarmupState finalState, long elapsedNanos) {
+        sampleLoadMs = elapsedNanos / 1_000_000L;
+        timeToReadyMs = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        state = finalState;
+        if (finalState == WarmupState.READY) {
+            log.info("Ready in {} ms after JVM start ({} sample rows loaded in {} ms, skipped: {})",
+                    timeToReadyMs, rowsLoaded.get(), sampleLoadMs, sampleSkipped);
+        }
+    }
+
+    private static String checksum(Path path) {
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(path), MessageDigest.getInstance("SHA-256"))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading sample data from file: " + path, e);
+        }
+    }
+}
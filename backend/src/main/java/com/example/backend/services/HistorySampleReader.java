@@ -0,0 +1,132 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataResponse;
+import com.example.backend.models.Topic;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Token-level reader for history_sample_data.json. Rows are handed out in
+ * fixed-size batches, so only one batch is ever held on the heap. Numbers in
+ * the file are quoted strings; unknown properties such as sim_* are skipped
+ * without being materialised, and prob_* values go straight into the row's
+ * topic vector as primitives.
+ */
+@Component
+public class HistorySampleReader {
+
+    private final ObjectMapper objectMapper;
+
+    public HistorySampleReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads the file and passes each batch of up to {@code batchSize} rows to
+     * {@code onBatch}. The list is reused between calls, so consumers must not
+     * keep a reference to it. Returns the number of rows read.
+     */
+    public long read(Path path, int batchSize, Consumer<List<MlDataResponse>> onBatch) {
+        try (InputStream in = Files.newInputStream(path)) {
+            return read(in, batchSize, onBatch);
+        } catch (IOException e) {
+            throw new RuntimeException("Error loading sample data from file: " + path, e);
+        }
+    }
+
+    public long read(InputStream in, int batchSize, Consumer<List<MlDataResponse>> onBatch) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+
+        List<MlDataResponse> batch = new ArrayList<>(batchSize);
+        long count = 0;
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of history rows");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                batch.add(readRow(parser));
+                count++;
+                if (batch.size() == batchSize) {
+                    onBatch.accept(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            onBatch.accept(batch);
+        }
+        return count;
+    }
+
+    private static MlDataResponse readRow(JsonParser parser) {
+        MlDataResponse row = new MlDataResponse();
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (name) {
+                case "title" -> row.setTitle(parser.getString());
+                case "url" -> row.setUrl(parser.getString());
+                case "host" -> row.setHost(parser.getString());
+                case "time_usec" -> row.setTime_usec(readLong(parser, value));
+                case "pred_topic" -> row.setPred_topic(parser.getString());
+                case "pred_prob" -> row.setPred_prob(parser.getValueAsDouble());
+                default -> {
+                    Topic topic = Topic.fromProbabilityKey(name);
+                    if (topic != null) {
+                        row.topics().set(topic, parser.getValueAsDouble());
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Parses a long straight from the parser's character buffer, so quoted
+     * timestamps do not allocate an intermediate String.
+     */
+    private static long readLong(JsonParser parser, JsonToken value) {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        char[] chars = parser.getStringCharacters();
+        int offset = parser.getStringOffset();
+        int length = parser.getStringLength();
+        if (length == 0) {
+            throw new IllegalArgumentException("Empty numeric value for " + parser.currentName());
+        }
+
+        int i = offset;
+        int end = offset + length;
+        boolean negative = chars[i] == '-';
+        if (negative && ++i == end) {
+            throw new IllegalArgumentException("Invalid numeric value for " + parser.currentName());
+        }
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Invalid numeric value for " + parser.currentName());
+            }
+            result = Math.subtractExact(Math.multiplyExact(result, 10L), digit);
+        }
+        return negative ? result : Math.negateExact(result);
+    }
+}
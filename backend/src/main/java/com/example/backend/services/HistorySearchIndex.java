@@ -0,0 +1,780 @@
+package com.example.backend.services;
+
+import com.example.backend.models.SearchHit;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted index over page titles, url paths and host names. A
+ * document is a page (one url and title); visits only raise its visit count
+ * and last visit time, which feed into ranking.
+ *
+ * <p>Terms live in a sorted map so a query term can also match as a prefix.
+ * Posting lists are append-only and ordered by document, so a query walks the
+ * rarest term and probes the others by binary search. Like
+ * {@link ColumnarHistoryStore}, the index catches up on visits by id once
+ * each import has committed, re-probing id ranges skipped by transactions
+ * that committed late ({@link IdGaps}), and readers use a published
+ * snapshot of the documents.
+ *
+ * <p>The index is written to {@code app.search.snapshot-path} after the
+ * first full build, every {@code snapshot-every-docs} new documents and on
+ * shutdown, together with the open id ranges. On restart it loads the file
+ * if the database still holds exactly the visits it indexed, and only reads
+ * newer or late visits.
+ */
+@Service
+public class HistorySearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(HistorySearchIndex.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x48534958;
+    private static final int SNAPSHOT_VERSION = 2;
+
+    static final byte TITLE = 1;
+    static final byte URL = 2;
+    static final byte HOST = 4;
+
+    private static final int MIN_TOKEN_LENGTH = 2;
+    private static final int MAX_TOKEN_LENGTH = 40;
+    private static final int MAX_PREFIX_SCAN = 4096;
+    private static final int MAX_PREFIX_TERMS = 64;
+    private static final Set<String> STOP_TOKENS = Set.of("www", "http", "https", "com", "html", "htm", "php");
+
+    private static final String SELECT_VISITS_SQL = """
+            SELECT v.id, v.page_id, v.time_usec, p.host_id, h.host, p.url_prefix, p.url_rest, p.title
+            FROM visits v
+            JOIN pages p ON p.id = v.page_id
+            JOIN hosts h ON h.id = p.host_id
+            WHERE v.id > ?
+            ORDER BY v.id
+            """;
+
+    private static final String SELECT_GAP_VISITS_SQL = """
+            SELECT v.id, v.page_id, v.time_usec, p.host_id, h.host, p.url_prefix, p.url_rest, p.title
+            FROM unnest(?::bigint[], ?::bigint[]) AS g(lo, hi)
+            JOIN visits v ON v.id BETWEEN g.lo AND g.hi
+            JOIN pages p ON p.id = v.page_id
+            JOIN hosts h ON h.id = p.host_id
+            ORDER BY v.id
+            """;
+
+    private static final String SELECT_VISIT_PAGE_SQL = "SELECT page_id FROM visits WHERE id = ?";
+
+    // Visits up to the snapshot's last id, less those in its open ranges,
+    // which the first catch-up indexes anyway.
+    private static final String COUNT_INDEXED_VISITS_SQL = """
+            SELECT (SELECT count(*) FROM visits WHERE id <= ?)
+                 - (SELECT count(*)
+                    FROM unnest(?::bigint[], ?::bigint[]) AS g(lo, hi)
+                    JOIN visits v ON v.id BETWEEN g.lo AND g.hi)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final Path snapshotPath;
+    private final int snapshotEveryDocs;
+
+    private final ConcurrentSkipListMap<String, Postings> terms = new ConcurrentSkipListMap<>();
+
+    // Writer state, guarded by this.
+    private long[] pageIds = new long[1 << 12];
+    private int[] hostCodes = new int[1 << 12];
+    private byte[] urlPrefixes = new byte[1 << 12];
+    private int[] visitCounts = new int[1 << 12];
+    private long[] lastVisitUsec = new long[1 << 12];
+    private Utf8Column urlRests = new Utf8Column();
+    private Utf8Column titles = new Utf8Column();
+    private String[] hostNames = new String[1 << 8];
+    private long[] hostIds = new long[1 << 8];
+    private final Map<Long, Integer> docByPageId = new HashMap<>();
+    private final Map<Long, Integer> hostCodeById = new HashMap<>();
+    private final Map<String, Byte> docTerms = new HashMap<>();
+    private int size;
+    private int hostCount;
+    private final IdGaps visitIds;
+    private long lastVisitPageId;
+    private long visitCount;
+    private int savedSize;
+    private boolean loaded;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public HistorySearchIndex(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.search.enabled:true}") boolean enabled,
+                              @Value("${app.search.snapshot-path:${java.io.tmpdir}/history-search.idx}") String snapshotPath,
+                              @Value("${app.search.snapshot-every-docs:50000}") int snapshotEveryDocs,
+                              @Value("${app.history-import.gap-retention-minutes:60}") long gapRetentionMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.visitIds = new IdGaps(gapRetentionMinutes * 60_000L);
+        this.enabled = enabled;
+        this.snapshotPath = Path.of(snapshotPath);
+        this.snapshotEveryDocs = snapshotEveryDocs;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        return current().size;
+    }
+
+    public int termCount() {
+        return terms.size();
+    }
+
+    /**
+     * Indexes every visit with an id above the last one seen, and any that
+     * committed late into an id range skipped earlier. The first call loads
+     * the snapshot file when it still matches the database, otherwise it
+     * reads every visit. Call only after imports have committed.
+     */
+    public synchronized int catchUp() {
+        if (!enabled) {
+            return 0;
+        }
+        long started = System.nanoTime();
+        boolean firstLoad = !loaded;
+        boolean fromSnapshot = firstLoad && loadSnapshot();
+        int before = size;
+        long now = System.currentTimeMillis();
+        RowCallbackHandler indexRow = rs -> {
+            long id = rs.getLong("id");
+            if (!visitIds.seen(id, now)) {
+                return;
+            }
+            long time = rs.getLong("time_usec");
+            addVisit(rs.getLong("page_id"), rs.wasNull() ? Long.MIN_VALUE : time,
+                    rs.getLong("host_id"), rs.getString("host"), rs.getShort("url_prefix"),
+                    rs.getString("url_rest"), rs.getString("title"));
+            if (id == visitIds.last()) {
+                lastVisitPageId = rs.getLong("page_id");
+            }
+        };
+        readOnlyTransaction.executeWithoutResult(status -> {
+            if (!visitIds.isEmpty()) {
+                Long[] starts = visitIds.starts();
+                Long[] ends = visitIds.ends();
+                jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(SELECT_GAP_VISITS_SQL);
+                    ps.setArray(1, con.createArrayOf("bigint", starts));
+                    ps.setArray(2, con.createArrayOf("bigint", ends));
+                    return ps;
+                }, indexRow);
+            }
+            long last = visitIds.last();
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SELECT_VISITS_SQL);
+                ps.setFetchSize(1000);
+                ps.setLong(1, last);
+                return ps;
+            }, indexRow);
+        });
+        // Ranges still open after a last probe are given up.
+        visitIds.expire(now);
+        loaded = true;
+        publish();
+
+        if (firstLoad) {
+            log.info("Indexed {} pages ({} terms) for search in {} ms{}", size, terms.size(),
+                    (System.nanoTime() - started) / 1_000_000L, fromSnapshot ? " from snapshot" : "");
+        }
+        if (size > 0 && (firstLoad && !fromSnapshot || size - savedSize >= snapshotEveryDocs)) {
+            saveSnapshot();
+        }
+        return size - before;
+    }
+
+    /** Drops the index and its snapshot file; the next read rebuilds from the database. */
+    public synchronized void clear() {
+        terms.clear();
+        pageIds = new long[1 << 12];
+        hostCodes = new int[1 << 12];
+        urlPrefixes = new byte[1 << 12];
+        visitCounts = new int[1 << 12];
+        lastVisitUsec = new long[1 << 12];
+        urlRests = new Utf8Column();
+        titles = new Utf8Column();
+        hostNames = new String[1 << 8];
+        hostIds = new long[1 << 8];
+        docByPageId.clear();
+        hostCodeById.clear();
+        size = 0;
+        hostCount = 0;
+        visitIds.clear();
+        lastVisitPageId = 0;
+        visitCount = 0;
+        savedSize = 0;
+        loaded = false;
+        snapshot = Snapshot.EMPTY;
+        try {
+            Files.deleteIfExists(snapshotPath);
+        } catch (IOException e) {
+            log.warn("Could not delete search snapshot {}", snapshotPath, e);
+        }
+    }
+
+    /**
+     * Returns the best {@code limit} pages containing every query term. With
+     * {@code prefix}, a last term not followed by a space also matches longer
+     * terms, as does any term ending in {@code *}. Each matching field adds
+     * the term's idf, weighted title over host over url, and the sum is
+     * boosted by the page's visit count.
+     */
+    public List<SearchHit> search(String query, int limit, boolean prefix) {
+        Snapshot s = current();
+        List<QueryTerm> queryTerms = parse(query, prefix);
+        if (queryTerms.isEmpty() || s.size == 0) {
+            return List.of();
+        }
+        for (QueryTerm term : queryTerms) {
+            if (!term.resolve(terms, s.size)) {
+                return List.of();
+            }
+        }
+        queryTerms.sort(Comparator.comparingLong(QueryTerm::documentFrequency));
+
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, Hit.WORST_FIRST);
+        QueryTerm driver = queryTerms.getFirst();
+        driver.forEachDoc(s.size, (doc, weight) -> {
+            double text = weight;
+            for (int i = 1; i < queryTerms.size(); i++) {
+                double w = queryTerms.get(i).weightOf(doc);
+                if (w == 0) {
+                    return;
+                }
+                text += w;
+            }
+            Hit hit = new Hit(doc, text * (1 + Math.log1p(s.visitCounts[doc])), s.lastVisitUsec[doc]);
+            if (top.size() < limit) {
+                top.add(hit);
+            } else if (Hit.WORST_FIRST.compare(hit, top.peek()) > 0) {
+                top.poll();
+                top.add(hit);
+            }
+        });
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(Hit.WORST_FIRST.reversed());
+        return hits.stream().map(hit -> toSearchHit(s, hit)).toList();
+    }
+
+    /** Writes the index to the snapshot file, replacing the previous one atomically. */
+    public synchronized void saveSnapshot() {
+        if (!enabled || !loaded) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            Path directory = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, snapshotPath.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                writeSnapshot(out);
+            }
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            savedSize = size;
+            log.info("Saved search snapshot of {} pages in {} ms", size, (System.nanoTime() - started) / 1_000_000L);
+        } catch (IOException e) {
+            log.warn("Could not save search snapshot {}", snapshotPath, e);
+        }
+    }
+
+    @PreDestroy
+    void saveOnShutdown() {
+        if (size > savedSize) {
+            saveSnapshot();
+        }
+    }
+
+    /**
+     * Splits text into lower-case runs of letters and digits, dropping very
+     * short or long runs and url boilerplate.
+     */
+    static void tokenize(String text, Consumer<String> out) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); ) {
+            int cp = i < text.length() ? text.codePointAt(i) : ' ';
+            boolean word = Character.isLetterOrDigit(cp);
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                emit(text.substring(start, i), out);
+                start = -1;
+            }
+            i += Character.charCount(cp);
+        }
+    }
+
+    private static void emit(String token, Consumer<String> out) {
+        if (token.length() < MIN_TOKEN_LENGTH || token.length() > MAX_TOKEN_LENGTH) {
+            return;
+        }
+        String lower = token.toLowerCase(Locale.ROOT);
+        if (!STOP_TOKENS.contains(lower)) {
+            out.accept(lower);
+        }
+    }
+
+    private Snapshot current() {
+        if (enabled && !snapshot.loaded) {
+            catchUp();
+        }
+        return snapshot;
+    }
+
+    private void addVisit(long pageId, long time, long hostId, String host, short prefix, String rest, String title) {
+        Integer known = docByPageId.get(pageId);
+        int doc = known != null ? known : addDocument(pageId, hostId, host, prefix, rest, title);
+        visitCount++;
+        visitCounts[doc]++;
+        lastVisitUsec[doc] = Math.max(lastVisitUsec[doc], time);
+    }
+
+    private int addDocument(long pageId, long hostId, String host, short prefix, String rest, String title) {
+        if (size == pageIds.length) {
+            int capacity = size * 2;
+            pageIds = Arrays.copyOf(pageIds, capacity);
+            hostCodes = Arrays.copyOf(hostCodes, capacity);
+            urlPrefixes = Arrays.copyOf(urlPrefixes, capacity);
+            visitCounts = Arrays.copyOf(visitCounts, capacity);
+            lastVisitUsec = Arrays.copyOf(lastVisitUsec, capacity);
+        }
+        int doc = size++;
+        pageIds[doc] = pageId;
+        hostCodes[doc] = hostCode(hostId, host);
+        urlPrefixes[doc] = (byte) prefix;
+        visitCounts[doc] = 0;
+        lastVisitUsec[doc] = Long.MIN_VALUE;
+        urlRests.append(rest);
+        titles.append(title);
+        docByPageId.put(pageId, doc);
+
+        docTerms.clear();
+        tokenize(title, t -> docTerms.merge(t, TITLE, (a, b) -> (byte) (a | b)));
+        tokenize(rest, t -> docTerms.merge(t, URL, (a, b) -> (byte) (a | b)));
+        tokenize(host, t -> docTerms.merge(t, HOST, (a, b) -> (byte) (a | b)));
+        docTerms.forEach((term, fields) -> terms.computeIfAbsent(term, k -> new Postings()).add(doc, fields));
+        return doc;
+    }
+
+    private int hostCode(long hostId, String host) {
+        Integer code = hostCodeById.get(hostId);
+        if (code != null) {
+            return code;
+        }
+        if (hostCount == hostNames.length) {
+            hostNames = Arrays.copyOf(hostNames, hostCount * 2);
+            hostIds = Arrays.copyOf(hostIds, hostCount * 2);
+        }
+        code = hostCount++;
+        hostNames[code] = host;
+        hostIds[code] = hostId;
+        hostCodeById.put(hostId, code);
+        return code;
+    }
+
+    private void publish() {
+        snapshot = new Snapshot(loaded, size, hostCodes, urlPrefixes, visitCounts, lastVisitUsec,
+                urlRests, titles, hostNames);
+    }
+
+    private static SearchHit toSearchHit(Snapshot s, Hit hit) {
+        int doc = hit.doc();
+        String host = s.hostNames[s.hostCodes[doc]];
+        String rest = s.urlRests.get(doc);
+        String url = switch (s.urlPrefixes[doc]) {
+            case PageUrls.HTTPS_HOST -> "https://" + host + rest;
+            case PageUrls.HTTP_HOST -> "http://" + host + rest;
+            default -> rest;
+        };
+        long last = s.lastVisitUsec[doc];
+        return new SearchHit(url, s.titles.get(doc), host, s.visitCounts[doc],
+                last != Long.MIN_VALUE ? last : null, hit.score());
+    }
+
+    private static List<QueryTerm> parse(String query, boolean prefix) {
+        List<QueryTerm> parsed = new ArrayList<>();
+        if (query == null) {
+            return parsed;
+        }
+        String trimmed = query.stripLeading();
+        boolean lastIsPrefix = prefix && !trimmed.isEmpty()
+                && Character.isLetterOrDigit(trimmed.codePointBefore(trimmed.length()));
+        for (String part : trimmed.split("\\s+")) {
+            List<String> tokens = new ArrayList<>();
+            tokenize(part, tokens::add);
+            for (int i = 0; i < tokens.size(); i++) {
+                parsed.add(new QueryTerm(tokens.get(i), part.endsWith("*") && i == tokens.size() - 1));
+            }
+        }
+        if (lastIsPrefix && !parsed.isEmpty()) {
+            parsed.set(parsed.size() - 1, new QueryTerm(parsed.getLast().text, true));
+        }
+        return parsed;
+    }
+
+    private static double fieldWeight(byte fields) {
+        double weight = 0;
+        if ((fields & TITLE) != 0) {
+            weight += 3;
+        }
+        if ((fields & HOST) != 0) {
+            weight += 2;
+        }
+        if ((fields & URL) != 0) {
+            weight += 1;
+        }
+        return weight;
+    }
+
+    private boolean loadSnapshot() {
+        if (!Files.isRegularFile(snapshotPath)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotPath), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                return false;
+            }
+            visitIds.readFrom(in);
+            long visitPageId = in.readLong();
+            long visits = in.readLong();
+            if (visitIds.last() > 0
+                    && !Boolean.TRUE.equals(readOnlyTransaction.execute(status -> matchesDatabase(visitPageId, visits)))) {
+                log.info("Search snapshot {} does not match the database; rebuilding", snapshotPath);
+                visitIds.clear();
+                return false;
+            }
+            readSnapshot(in);
+            lastVisitPageId = visitPageId;
+            visitCount = visits;
+            savedSize = size;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read search snapshot {}; rebuilding", snapshotPath, e);
+            clear();
+            return false;
+        }
+    }
+
+    /**
+     * The snapshot's last visit must still point at the same page, and the
+     * database must hold no visit up to it that the snapshot missed outside
+     * its open ranges, e.g. one whose range expired before it committed.
+     */
+    private boolean matchesDatabase(long visitPageId, long visits) {
+        long last = visitIds.last();
+        List<Long> pages = jdbcTemplate.queryForList(SELECT_VISIT_PAGE_SQL, Long.class, last);
+        if (pages.size() != 1 || pages.getFirst() != visitPageId) {
+            return false;
+        }
+        Long[] starts = visitIds.starts();
+        Long[] ends = visitIds.ends();
+        Long stored = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(COUNT_INDEXED_VISITS_SQL);
+            ps.setLong(1, last);
+            ps.setArray(2, con.createArrayOf("bigint", starts));
+            ps.setArray(3, con.createArrayOf("bigint", ends));
+            return ps;
+        }, rs -> rs.next() ? rs.getLong(1) : null);
+        return stored != null && stored == visits;
+    }
+
+    private void writeSnapshot(DataOutputStream out) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        visitIds.writeTo(out);
+        out.writeLong(lastVisitPageId);
+        out.writeLong(visitCount);
+
+        out.writeInt(hostCount);
+        for (int i = 0; i < hostCount; i++) {
+            out.writeLong(hostIds[i]);
+            writeString(out, hostNames[i]);
+        }
+        out.writeInt(size);
+        for (int doc = 0; doc < size; doc++) {
+            out.writeLong(pageIds[doc]);
+            out.writeInt(hostCodes[doc]);
+            out.writeByte(urlPrefixes[doc]);
+            out.writeInt(visitCounts[doc]);
+            out.writeLong(lastVisitUsec[doc]);
+            writeString(out, urlRests.get(doc));
+            writeString(out, titles.get(doc));
+        }
+        out.writeInt(terms.size());
+        for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+            writeString(out, entry.getKey());
+            Postings postings = entry.getValue();
+            int n = postings.size;
+            int[] docs = postings.docs;
+            byte[] fields = postings.fields;
+            out.writeInt(n);
+            for (int i = 0; i < n; i++) {
+                out.writeInt(docs[i]);
+            }
+            out.write(fields, 0, n);
+        }
+    }
+
+    private void readSnapshot(DataInputStream in) throws IOException {
+        int hosts = in.readInt();
+        for (int i = 0; i < hosts; i++) {
+            long hostId = in.readLong();
+            hostCode(hostId, readString(in));
+        }
+        int docs = in.readInt();
+        int capacity = Math.max(1 << 12, Integer.highestOneBit(Math.max(docs, 1)) << 1);
+        pageIds = new long[capacity];
+        hostCodes = new int[capacity];
+        urlPrefixes = new byte[capacity];
+        visitCounts = new int[capacity];
+        lastVisitUsec = new long[capacity];
+        for (int doc = 0; doc < docs; doc++) {
+            pageIds[doc] = in.readLong();
+            hostCodes[doc] = in.readInt();
+            urlPrefixes[doc] = in.readByte();
+            visitCounts[doc] = in.readInt();
+            lastVisitUsec[doc] = in.readLong();
+            urlRests.append(readString(in));
+            titles.append(readString(in));
+            docByPageId.put(pageIds[doc], doc);
+        }
+        size = docs;
+
+        int termCount = in.readInt();
+        for (int t = 0; t < termCount; t++) {
+            String term = readString(in);
+            int n = in.readInt();
+            int[] postingDocs = new int[Math.max(n, 4)];
+            for (int i = 0; i < n; i++) {
+                postingDocs[i] = in.readInt();
+            }
+            byte[] fields = new byte[postingDocs.length];
+            in.readFully(fields, 0, n);
+            terms.put(term, new Postings(postingDocs, fields, n));
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Documents containing one term, in ascending order, with the fields the
+     * term occurs in. Single writer; a reader reads {@code size} first and
+     * then sees arrays holding at least that many entries.
+     */
+    static final class Postings {
+        private volatile int[] docs;
+        private volatile byte[] fields;
+        private volatile int size;
+
+        Postings() {
+            this(new int[4], new byte[4], 0);
+        }
+
+        Postings(int[] docs, byte[] fields, int size) {
+            this.docs = docs;
+            this.fields = fields;
+            this.size = size;
+        }
+
+        void add(int doc, byte field) {
+            int n = size;
+            if (n == docs.length) {
+                docs = Arrays.copyOf(docs, n * 2);
+                fields = Arrays.copyOf(fields, n * 2);
+            }
+            docs[n] = doc;
+            fields[n] = field;
+            size = n + 1;
+        }
+
+        /** Fields of {@code doc}, or 0 when the term does not occur in it. */
+        byte fieldsOf(int doc) {
+            int n = size;
+            int i = Arrays.binarySearch(docs, 0, n, doc);
+            return i >= 0 ? fields[i] : 0;
+        }
+    }
+
+    @FunctionalInterface
+    private interface DocConsumer {
+        void accept(int doc, double weight);
+    }
+
+    /** One query term, resolved to the posting lists of the index terms it matches. */
+    private static final class QueryTerm {
+        final String text;
+        final boolean prefix;
+        final List<Postings> matches = new ArrayList<>();
+        double[] idf;
+        long documentFrequency;
+
+        QueryTerm(String text, boolean prefix) {
+            this.text = text;
+            this.prefix = prefix;
+        }
+
+        long documentFrequency() {
+            return documentFrequency;
+        }
+
+        /** Looks up matching terms; a prefix keeps its most frequent expansions. */
+        boolean resolve(ConcurrentSkipListMap<String, Postings> index, int docCount) {
+            if (!prefix) {
+                Postings exact = index.get(text);
+                if (exact != null) {
+                    matches.add(exact);
+                }
+            } else {
+                int scanned = 0;
+                for (Postings postings : index.subMap(text, true, text + Character.MAX_VALUE, false).values()) {
+                    matches.add(postings);
+                    if (++scanned == MAX_PREFIX_SCAN) {
+                        break;
+                    }
+                }
+                if (matches.size() > MAX_PREFIX_TERMS) {
+                    matches.sort(Comparator.comparingInt((Postings p) -> p.size).reversed());
+                    matches.subList(MAX_PREFIX_TERMS, matches.size()).clear();
+                }
+            }
+            idf = new double[matches.size()];
+            for (int i = 0; i < matches.size(); i++) {
+                int df = matches.get(i).size;
+                idf[i] = Math.log(1 + (double) docCount / Math.max(df, 1));
+                documentFrequency += df;
+            }
+            return !matches.isEmpty();
+        }
+
+        double weightOf(int doc) {
+            double best = 0;
+            for (int i = 0; i < matches.size(); i++) {
+                byte fields = matches.get(i).fieldsOf(doc);
+                if (fields != 0) {
+                    best = Math.max(best, idf[i] * fieldWeight(fields));
+                }
+            }
+            return best;
+        }
+
+        /** Visits each published document matching this term once, in order. */
+        void forEachDoc(int docCount, DocConsumer consumer) {
+            if (matches.size() == 1) {
+                Postings postings = matches.getFirst();
+                int n = postings.size;
+                int[] docs = postings.docs;
+                byte[] fields = postings.fields;
+                for (int i = 0; i < n && docs[i] < docCount; i++) {
+                    consumer.accept(docs[i], idf[0] * fieldWeight(fields[i]));
+                }
+                return;
+            }
+
+            // Union of the expansions: (doc, expansion, fields) packed into
+            // one long per posting, sorted so each doc's postings are adjacent.
+            long total = 0;
+            for (Postings postings : matches) {
+                total += postings.size;
+            }
+            long[] keys = new long[(int) Math.min(total, Integer.MAX_VALUE - 8)];
+            int k = 0;
+            for (int m = 0; m < matches.size(); m++) {
+                Postings postings = matches.get(m);
+                int n = postings.size;
+                int[] docs = postings.docs;
+                byte[] fields = postings.fields;
+                for (int i = 0; i < n && k < keys.length && docs[i] < docCount; i++) {
+                    keys[k++] = ((long) docs[i] << 32) | ((long) m << 8) | (fields[i] & 0xFF);
+                }
+            }
+            Arrays.sort(keys, 0, k);
+            int i = 0;
+            while (i < k) {
+                int doc = (int) (keys[i] >>> 32);
+                double best = 0;
+                while (i < k && (int) (keys[i] >>> 32) == doc) {
+                    int m = (int) ((keys[i] >>> 8) & 0xFFFFFF);
+                    best = Math.max(best, idf[m] * fieldWeight((byte) keys[i]));
+                    i++;
+                }
+                consumer.accept(doc, best);
+            }
+        }
+    }
+
+    private record Hit(int doc, double score, long lastVisitUsec) {
+
+        static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::score)
+                .thenComparingLong(Hit::lastVisitUsec)
+                .thenComparing(Comparator.comparingInt(Hit::doc).reversed());
+    }
+
+    private record Snapshot(boolean loaded, int size, int[] hostCodes, byte[] urlPrefixes,
+                            int[] visitCounts, long[] lastVisitUsec, Utf8Column urlRests, Utf8Column titles,
+                            String[] hostNames) {
+
+        static final Snapshot EMPTY = new Snapshot(false, 0, new int[0], new byte[0], new int[0], new long[0],
+                new Utf8Column(), new Utf8Column(), new String[0]);
+    }
+}
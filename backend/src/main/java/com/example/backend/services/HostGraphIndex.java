@@ -0,0 +1,196 @@
+package com.example.backend.services;
+
+import com.example.backend.models.HostGraph;
+import com.example.backend.models.HostGraphNode;
+import com.example.backend.models.HostTransition;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the host co-visitation graph in {@code host_edges} up to date as rows
+ * are imported, so the explore view can read a pruned graph instead of
+ * rebuilding it from every visit.
+ */
+@Service
+public class HostGraphIndex {
+
+    // The visits from ? to ? and the stored ones they sit between: the last
+    // one before the range, every one inside it and the first one after it.
+    private static final String NEIGHBOUR_VISITS_SQL = """
+            (SELECT v.host_id, v.time_usec, v.id FROM visits v
+             WHERE v.time_usec < ?
+             ORDER BY v.time_usec DESC, v.id DESC
+             LIMIT 1)
+            UNION ALL
+            (SELECT v.host_id, v.time_usec, v.id FROM visits v
+             WHERE v.time_usec BETWEEN ? AND ?)
+            UNION ALL
+            (SELECT v.host_id, v.time_usec, v.id FROM visits v
+             WHERE v.time_usec > ?
+             ORDER BY v.time_usec, v.id
+             LIMIT 1)
+            ORDER BY time_usec, id
+            """;
+
+    private static final String VISIT_RANGE_SQL = """
+            SELECT min(time_usec) AS from_usec, max(time_usec) AS to_usec
+            FROM visits
+            WHERE id = ANY (?)
+            """;
+
+    private static final String UPSERT_EDGE_SQL = """
+            INSERT INTO host_edges (source_host_id, target_host_id, weight)
+            VALUES (?, ?, ?)
+            ON CONFLICT (source_host_id, target_host_id)
+            DO UPDATE SET weight = host_edges.weight + EXCLUDED.weight
+            """;
+
+    private static final String DELETE_EMPTY_EDGE_SQL = """
+            DELETE FROM host_edges
+            WHERE source_host_id = ? AND target_host_id = ? AND weight <= 0
+            """;
+
+    private static final String TOP_EDGES_SQL = """
+            SELECT hs.host AS source, ht.host AS target, e.weight
+            FROM host_edges e
+            JOIN hosts hs ON hs.id = e.source_host_id
+            JOIN hosts ht ON ht.id = e.target_host_id
+            ORDER BY e.weight DESC, e.id
+            LIMIT ?
+            """;
+
+    private static final String NODE_TOPICS_SQL = """
+            SELECT h.host, s.pred_topic
+            FROM hosts h
+            LEFT JOIN host_stats s ON s.host_id = h.id
+            WHERE h.host = ANY (?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long sessionGapUsec;
+    private final int batchSize;
+
+    public HostGraphIndex(JdbcTemplate jdbcTemplate,
+                          @Value("${app.host-graph.session-gap-minutes:30}") long sessionGapMinutes,
+                          @Value("${app.history-import.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sessionGapUsec = sessionGapMinutes * 60 * 1_000_000L;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Adds an edge weight for every pair of consecutive visits to different
+     * hosts that are at most the session gap apart. Runs after the visits
+     * are stored, with the ids they were written under. The stored visits
+     * around and inside their time range are counted with and without them,
+     * so visits that land between stored ones gain the edges at both ends
+     * and take back the stored edges they split.
+     */
+    @Transactional
+    public void addVisits(Collection<Long> visitIds) {
+        if (visitIds.isEmpty()) {
+            return;
+        }
+        Long[] ids = visitIds.toArray(new Long[0]);
+        long[] range = new long[2];
+        boolean[] timed = new boolean[1];
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(VISIT_RANGE_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        }, rs -> {
+            range[0] = rs.getLong("from_usec");
+            range[1] = rs.getLong("to_usec");
+            timed[0] = !rs.wasNull();
+        });
+        if (!timed[0]) {
+            return;
+        }
+
+        List<long[]> after = jdbcTemplate.query(NEIGHBOUR_VISITS_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong("host_id"), rs.getLong("time_usec"), rs.getLong("id")},
+                range[0], range[0], range[1], range[1]);
+        Set<Long> added = new HashSet<>(visitIds);
+        List<long[]> before = after.stream()
+                .filter(visit -> !added.contains(visit[2]))
+                .toList();
+
+        Map<Long, Map<Long, Long>> weights = new HashMap<>();
+        countEdges(after, 1, weights);
+        countEdges(before, -1, weights);
+
+        List<long[]> edges = new ArrayList<>();
+        List<long[]> dropped = new ArrayList<>();
+        weights.forEach((a, targets) -> targets.forEach((b, w) -> {
+            if (w != 0) {
+                edges.add(new long[]{a, b, w});
+            }
+            if (w < 0) {
+                dropped.add(new long[]{a, b});
+            }
+        }));
+        jdbcTemplate.batchUpdate(UPSERT_EDGE_SQL, edges, batchSize, (ps, edge) -> {
+            ps.setLong(1, edge[0]);
+            ps.setLong(2, edge[1]);
+            ps.setLong(3, edge[2]);
+        });
+        jdbcTemplate.batchUpdate(DELETE_EMPTY_EDGE_SQL, dropped, batchSize, (ps, edge) -> {
+            ps.setLong(1, edge[0]);
+            ps.setLong(2, edge[1]);
+        });
+    }
+
+    /** Adds {@code sign} to the weight of every edge between consecutive {host_id, time_usec, ...} visits. */
+    private void countEdges(List<long[]> visits, long sign, Map<Long, Map<Long, Long>> weights) {
+        for (int i = 1; i < visits.size(); i++) {
+            long prevHost = visits.get(i - 1)[0];
+            long hostId = visits.get(i)[0];
+            if (prevHost != hostId && visits.get(i)[1] - visits.get(i - 1)[1] <= sessionGapUsec) {
+                long a = Math.min(prevHost, hostId);
+                long b = Math.max(prevHost, hostId);
+                weights.computeIfAbsent(a, k -> new HashMap<>()).merge(b, sign, Long::sum);
+            }
+        }
+    }
+
+    public HostGraph topEdges(int limit) {
+        List<HostTransition> links = jdbcTemplate.query(TOP_EDGES_SQL, (rs, rowNum) -> new HostTransition(
+                rs.getString("source"),
+                rs.getString("target"),
+                rs.getLong("weight")), limit);
+
+        Map<String, Long> nodeWeights = new LinkedHashMap<>();
+        for (HostTransition link : links) {
+            nodeWeights.merge(link.getSource(), link.getWeight(), Long::sum);
+            nodeWeights.merge(link.getTarget(), link.getWeight(), Long::sum);
+        }
+        if (nodeWeights.isEmpty()) {
+            return new HostGraph(List.of(), links);
+        }
+
+        Map<String, String> topics = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(NODE_TOPICS_SQL);
+            ps.setArray(1, con.createArrayOf("text", nodeWeights.keySet().toArray()));
+            return ps;
+        }, rs -> {
+            topics.put(rs.getString("host"), rs.getString("pred_topic"));
+        });
+
+        List<HostGraphNode> nodes = new ArrayList<>(nodeWeights.size());
+        nodeWeights.forEach((host, weight) -> nodes.add(new HostGraphNode(host, topics.get(host), weight)));
+        return new HostGraph(nodes, links);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.backend.services;
+
+import com.example.backend.models.CacheStats;
+import com.example.backend.models.MlDataRequest;
+import com.example.backend.models.MlDataResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded LRU cache of ML predictions keyed by host, or by host, title
+ * and URL when {@code app.ml.cache.fingerprint=true}. Keys hold the strings
+ * themselves, so two pages never share an entry. Entries older than the TTL
+ * count as misses.
+ */
+@Service
+public class HostPredictionCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final boolean fingerprint;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final Map<Key, Entry> entries;
+
+    public HostPredictionCache(@Value("${app.ml.cache.max-entries:50000}") int maxEntries,
+                               @Value("${app.ml.cache.ttl-minutes:1440}") long ttlMinutes,
+                               @Value("${app.ml.cache.fingerprint:false}") boolean fingerprint) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = Duration.ofMinutes(ttlMinutes).toNanos();
+        this.fingerprint = fingerprint;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > HostPredictionCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public boolean isHostKeyed() {
+        return !fingerprint;
+    }
+
+    public Duration getTtl() {
+        return Duration.ofNanos(ttlNanos);
+    }
+
+    public MlDataResponse get(MlDataRequest request) {
+        Key key = key(request.getHost(), request.getTitle(), request.getUrl());
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.storedAt() <= ttlNanos) {
+                hits.incrementAndGet();
+                return entry.prediction();
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(MlDataResponse prediction) {
+        if (prediction.getHost() == null) {
+            return;
+        }
+        Key key = key(prediction.getHost(), prediction.getTitle(), prediction.getUrl());
+        MlDataResponse template = new MlDataResponse();
+        template.setHost(prediction.getHost());
+        template.copyPredictionFrom(prediction);
+        synchronized (entries) {
+            entries.put(key, new Entry(template, System.nanoTime()));
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public CacheStats getStats() {
+        synchronized (entries) {
+            return new CacheStats(hits.get(), misses.get(), evictions.get(), entries.size());
+        }
+    }
+
+    private Key key(String host, String title, String url) {
+        return fingerprint ? new Key(host, title, url) : new Key(host, null, null);
+    }
+
+    private record Key(String host, String title, String url) {
+    }
+
+    private record Entry(MlDataResponse prediction, long storedAt) {
+    }
+}
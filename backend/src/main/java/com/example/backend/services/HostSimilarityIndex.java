@@ -0,0 +1,366 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataResponse;
+import com.example.backend.models.SimilarHost;
+import com.example.backend.models.Topic;
+import com.example.backend.models.TopicVector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory nearest-neighbour index over the per-host topic distributions in
+ * host_stats. Vectors are stored one column per topic ({@code float[topic][host]}),
+ * so exact scoring is a few element-wise passes over contiguous arrays that
+ * the JIT compiles to SIMD instructions.
+ *
+ * <p>Approximate mode is an inverted file with the topics as centroids: each
+ * host is listed under its most likely topic, and a query only scores the
+ * hosts listed under its own {@code probes} most likely topics.
+ *
+ * <p>{@link HistoryImportService} calls {@link #update} with imported rows
+ * once their host_stats have committed, so the index follows host_stats
+ * without reading it again and never holds a rolled-back vector. Updates copy the
+ * columns they change and publish a new snapshot; queries never block.
+ */
+@Service
+public class HostSimilarityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(HostSimilarityIndex.class);
+
+    private static final int DIM = Topic.COUNT;
+    private static final double LN2 = Math.log(2);
+
+    private static final String SELECT_HOST_STATS_SQL = """
+            SELECT h.host, s.pred_topic, s.probs
+            FROM host_stats s
+            JOIN hosts h ON h.id = s.host_id
+            WHERE s.probs IS NOT NULL
+            """;
+
+    public enum Metric {
+        COSINE, JS
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int defaultProbes;
+
+    // Written under this; a host may be listed before the snapshot covers it.
+    private final Map<String, Integer> hostIndex = new ConcurrentHashMap<>();
+    private boolean loaded;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public HostSimilarityIndex(JdbcTemplate jdbcTemplate,
+                               @Value("${app.host-similarity.enabled:true}") boolean enabled,
+                               @Value("${app.host-similarity.probes:2}") int defaultProbes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.defaultProbes = defaultProbes;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        return current().size;
+    }
+
+    /** Loads every host that has a topic distribution. */
+    public synchronized void load() {
+        if (!enabled || loaded) {
+            return;
+        }
+        long started = System.nanoTime();
+        Map<String, HostVector> vectors = new LinkedHashMap<>();
+        TopicVector decoded = new TopicVector();
+        jdbcTemplate.query(SELECT_HOST_STATS_SQL, (RowCallbackHandler) rs -> {
+            decoded.decode(rs.getBytes("probs"));
+            vectors.put(rs.getString("host"), new HostVector(rs.getString("pred_topic"), decoded.toArray()));
+        });
+        loaded = true;
+        apply(vectors);
+        log.info("Loaded {} host topic vectors in {} ms", snapshot.size, (System.nanoTime() - started) / 1_000_000L);
+    }
+
+    /**
+     * Applies the topic distributions of imported rows; the last row for a
+     * host wins. Call only after the rows' host_stats have committed.
+     */
+    public synchronized void update(List<MlDataResponse> rows) {
+        if (!enabled || !loaded) {
+            return;
+        }
+        Map<String, HostVector> vectors = new LinkedHashMap<>();
+        for (MlDataResponse row : rows) {
+            if (row.getHost() != null) {
+                vectors.put(row.getHost(), new HostVector(row.getPred_topic(), row.topics().toArray()));
+            }
+        }
+        apply(vectors);
+    }
+
+    public synchronized void clear() {
+        hostIndex.clear();
+        loaded = false;
+        snapshot = Snapshot.EMPTY;
+    }
+
+    /**
+     * Returns the {@code k} hosts most similar to {@code host}. Scores are
+     * higher for closer hosts: the cosine of the two distributions, or
+     * {@code 1 - JSD / ln 2} for Jensen-Shannon divergence. Approximate mode
+     * only looks at hosts filed under the query's {@code probes} most likely
+     * topics; {@code probes <= 0} uses the configured default.
+     */
+    public List<SimilarHost> findSimilar(String host, int k, Metric metric, boolean approximate, int probes) {
+        Snapshot s = current();
+        Integer query = hostIndex.get(host);
+        if (query == null || query >= s.size || s.topics[query] < 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No topic distribution for host " + host);
+        }
+
+        float[][] columns = metric == Metric.COSINE ? s.unit : s.dist;
+        float[] q = new float[DIM];
+        for (int d = 0; d < DIM; d++) {
+            q[d] = columns[d][query];
+        }
+
+        PriorityQueue<Scored> top = new PriorityQueue<>(k + 1, Comparator.comparingDouble(Scored::score));
+        if (approximate) {
+            for (int list : probeTopics(q, probes > 0 ? probes : defaultProbes)) {
+                int[] candidates = s.byTopic[list];
+                for (int i : candidates) {
+                    if (i != query) {
+                        offer(top, k, i, metric == Metric.COSINE ? dot(columns, q, i) : jsSimilarity(columns, q, i));
+                    }
+                }
+            }
+        } else {
+            float[] scores = metric == Metric.COSINE ? dotAll(columns, q, s.size) : jsSimilarityAll(columns, q, s.size);
+            for (int i = 0; i < s.size; i++) {
+                if (i != query && s.topics[i] >= 0) {
+                    offer(top, k, i, scores[i]);
+                }
+            }
+        }
+
+        List<Scored> best = new ArrayList<>(top);
+        best.sort(Comparator.comparingDouble(Scored::score).reversed());
+        return best.stream()
+                .map(r -> new SimilarHost(s.hostNames[r.index()], s.predTopics[r.index()], r.score()))
+                .toList();
+    }
+
+    private Snapshot current() {
+        if (enabled && !snapshot.loaded) {
+            load();
+        }
+        return snapshot;
+    }
+
+    private void apply(Map<String, HostVector> vectors) {
+        if (vectors.isEmpty() && snapshot.loaded) {
+            return;
+        }
+        Snapshot old = snapshot;
+        int size = old.size;
+        for (String host : vectors.keySet()) {
+            if (!hostIndex.containsKey(host)) {
+                hostIndex.put(host, size++);
+            }
+        }
+
+        // Copy on write: readers keep using the old columns.
+        int capacity = Math.max(size, 16);
+        float[][] unit = new float[DIM][];
+        float[][] dist = new float[DIM][];
+        for (int d = 0; d < DIM; d++) {
+            unit[d] = Arrays.copyOf(old.unit[d], capacity);
+            dist[d] = Arrays.copyOf(old.dist[d], capacity);
+        }
+        String[] hostNames = Arrays.copyOf(old.hostNames, capacity);
+        String[] predTopics = Arrays.copyOf(old.predTopics, capacity);
+        byte[] topics = Arrays.copyOf(old.topics, capacity);
+
+        vectors.forEach((host, vector) -> {
+            int i = hostIndex.get(host);
+            hostNames[i] = host;
+            predTopics[i] = vector.predTopic();
+            topics[i] = (byte) set(unit, dist, i, vector.probs());
+        });
+
+        snapshot = new Snapshot(true, size, hostNames, predTopics, topics,
+                unit, dist, byTopic(topics, size));
+    }
+
+    /**
+     * Writes the L2-normalized and the sum-normalized copy of one host's
+     * probabilities (missing entries count as 0) and returns its most likely
+     * topic, or -1 when it has no probabilities.
+     */
+    private static int set(float[][] unit, float[][] dist, int i, double[] probs) {
+        double sumSquares = 0;
+        double sum = 0;
+        int best = -1;
+        for (int d = 0; d < DIM; d++) {
+            double p = Double.isNaN(probs[d]) ? 0 : Math.max(probs[d], 0);
+            probs[d] = p;
+            sumSquares += p * p;
+            sum += p;
+            if (p > 0 && (best < 0 || p > probs[best])) {
+                best = d;
+            }
+        }
+        double norm = Math.sqrt(sumSquares);
+        for (int d = 0; d < DIM; d++) {
+            unit[d][i] = norm > 0 ? (float) (probs[d] / norm) : 0f;
+            dist[d][i] = sum > 0 ? (float) (probs[d] / sum) : 0f;
+        }
+        return best;
+    }
+
+    private static int[][] byTopic(byte[] topics, int size) {
+        int[] counts = new int[DIM];
+        for (int i = 0; i < size; i++) {
+            if (topics[i] >= 0) {
+                counts[topics[i]]++;
+            }
+        }
+        int[][] lists = new int[DIM][];
+        for (int d = 0; d < DIM; d++) {
+            lists[d] = new int[counts[d]];
+            counts[d] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            if (topics[i] >= 0) {
+                lists[topics[i]][counts[topics[i]]++] = i;
+            }
+        }
+        return lists;
+    }
+
+    private static int[] probeTopics(float[] q, int probes) {
+        Integer[] order = new Integer[DIM];
+        for (int d = 0; d < DIM; d++) {
+            order[d] = d;
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(q[b], q[a]));
+        int n = Math.min(probes, DIM);
+        int[] topics = new int[n];
+        for (int i = 0; i < n; i++) {
+            topics[i] = order[i];
+        }
+        return topics;
+    }
+
+    private static void offer(PriorityQueue<Scored> top, int k, int index, double score) {
+        if (top.size() < k) {
+            top.add(new Scored(index, score));
+        } else if (score > top.peek().score()) {
+            top.poll();
+            top.add(new Scored(index, score));
+        }
+    }
+
+    // One element-wise pass per topic instead of a reduction per host keeps
+    // the inner loops free of loop-carried dependencies, so they vectorize.
+    static float[] dotAll(float[][] columns, float[] q, int size) {
+        float[] scores = new float[size];
+        for (int d = 0; d < DIM; d++) {
+            float qd = q[d];
+            if (qd == 0f) {
+                continue;
+            }
+            float[] column = columns[d];
+            for (int i = 0; i < size; i++) {
+                scores[i] += qd * column[i];
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * 1 - JSD(p, q) / ln 2 for every host. A topic where either side is 0
+     * contributes {@code (p + q) / 2 * ln 2} and needs no logarithm.
+     */
+    static float[] jsSimilarityAll(float[][] columns, float[] q, int size) {
+        float[] divergence = new float[size];
+        for (int d = 0; d < DIM; d++) {
+            float qd = q[d];
+            float[] column = columns[d];
+            if (qd == 0f) {
+                float half = (float) (0.5 * LN2);
+                for (int i = 0; i < size; i++) {
+                    divergence[i] += half * column[i];
+                }
+                continue;
+            }
+            float qLogQ = (float) (qd * Math.log(qd));
+            for (int i = 0; i < size; i++) {
+                divergence[i] += jsTerm(column[i], qd, qLogQ);
+            }
+        }
+        float[] scores = new float[size];
+        float scale = (float) (1 / LN2);
+        for (int i = 0; i < size; i++) {
+            scores[i] = 1f - divergence[i] * scale;
+        }
+        return scores;
+    }
+
+    private static double dot(float[][] columns, float[] q, int i) {
+        double dot = 0;
+        for (int d = 0; d < DIM; d++) {
+            dot += q[d] * columns[d][i];
+        }
+        return dot;
+    }
+
+    private static double jsSimilarity(float[][] columns, float[] q, int i) {
+        double divergence = 0;
+        for (int d = 0; d < DIM; d++) {
+            float qd = q[d];
+            divergence += qd == 0f
+                    ? 0.5 * LN2 * columns[d][i]
+                    : jsTerm(columns[d][i], qd, (float) (qd * Math.log(qd)));
+        }
+        return 1 - divergence / LN2;
+    }
+
+    /** Contribution of one topic to JSD: (p ln p + q ln q) / 2 - m ln m with m = (p + q) / 2. */
+    private static float jsTerm(float p, float q, float qLogQ) {
+        float m = 0.5f * (p + q);
+        float pLogP = p > 0f ? p * (float) Math.log(p) : 0f;
+        return 0.5f * (pLogP + qLogQ) - m * (float) Math.log(m);
+    }
+
+    private record HostVector(String predTopic, double[] probs) {
+    }
+
+    private record Scored(int index, double score) {
+    }
+
+    private record Snapshot(boolean loaded, int size, String[] hostNames,
+                            String[] predTopics, byte[] topics, float[][] unit, float[][] dist, int[][] byTopic) {
+
+        static final Snapshot EMPTY = new Snapshot(false, 0, new String[0], new String[0], new byte[0],
+                new float[DIM][0], new float[DIM][0], new int[DIM][0]);
+    }
+}
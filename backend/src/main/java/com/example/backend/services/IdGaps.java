@@ -0,0 +1,125 @@
+package com.example.backend.services;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * High-water mark over an identity column plus the ranges below it that
+ * have not been seen yet. Identity values are taken at insert but become
+ * visible at commit, so a transaction that commits after one holding higher
+ * ids leaves a hole that fills in later; rollbacks and ON CONFLICT DO
+ * NOTHING leave holes that never fill. Readers re-probe the open ranges on
+ * every catch-up, and a range is given up once it has been open for longer
+ * than any import transaction could run. Not thread-safe; guarded by its
+ * owner.
+ */
+final class IdGaps {
+
+    private static final int MAX_RANGES = 10_000;
+
+    private final long retentionMillis;
+    // Range start -> {range end, millis when the range was opened}.
+    private final TreeMap<Long, long[]> ranges = new TreeMap<>();
+    private long last;
+
+    IdGaps(long retentionMillis) {
+        this.retentionMillis = retentionMillis;
+    }
+
+    /** Highest id seen so far. */
+    long last() {
+        return last;
+    }
+
+    boolean isEmpty() {
+        return ranges.isEmpty();
+    }
+
+    int rangeCount() {
+        return ranges.size();
+    }
+
+    /**
+     * Records {@code id} and returns false when it had been seen already.
+     * An id above the mark opens a range for the ids it skipped over.
+     */
+    boolean seen(long id, long nowMillis) {
+        if (id > last) {
+            if (id > last + 1) {
+                ranges.put(last + 1, new long[]{id - 1, nowMillis});
+                if (ranges.size() > MAX_RANGES) {
+                    ranges.pollFirstEntry();
+                }
+            }
+            last = id;
+            return true;
+        }
+        Map.Entry<Long, long[]> range = ranges.floorEntry(id);
+        if (range == null || range.getValue()[0] < id) {
+            return false;
+        }
+        long start = range.getKey();
+        long end = range.getValue()[0];
+        long opened = range.getValue()[1];
+        ranges.remove(start);
+        if (start < id) {
+            ranges.put(start, new long[]{id - 1, opened});
+        }
+        if (id < end) {
+            ranges.put(id + 1, new long[]{end, opened});
+        }
+        return true;
+    }
+
+    /** Gives up on ranges opened more than the retention before {@code nowMillis}. */
+    void expire(long nowMillis) {
+        ranges.values().removeIf(range -> nowMillis - range[1] > retentionMillis);
+    }
+
+    /** Range starts, for binding as a bigint[] next to {@link #ends()}. */
+    Long[] starts() {
+        return ranges.keySet().toArray(new Long[0]);
+    }
+
+    Long[] ends() {
+        Long[] ends = new Long[ranges.size()];
+        int i = 0;
+        for (long[] range : ranges.values()) {
+            ends[i++] = range[0];
+        }
+        return ends;
+    }
+
+    void clear() {
+        resetTo(0);
+    }
+
+    /** Drops every range and sets the mark, for state kept without its ranges. */
+    void resetTo(long last) {
+        ranges.clear();
+        this.last = last;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(last);
+        out.writeInt(ranges.size());
+        for (Map.Entry<Long, long[]> range : ranges.entrySet()) {
+            out.writeLong(range.getKey());
+            out.writeLong(range.getValue()[0]);
+            out.writeLong(range.getValue()[1]);
+        }
+    }
+
+    void readFrom(DataInputStream in) throws IOException {
+        clear();
+        last = in.readLong();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            long start = in.readLong();
+            ranges.put(start, new long[]{in.readLong(), in.readLong()});
+        }
+    }
+}
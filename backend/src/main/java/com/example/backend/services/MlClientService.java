@@ -2,96 +2,274 @@ package com.example.backend.services;
 
 import com.example.backend.models.MlDataRequest;
 import com.example.backend.models.MlDataResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 @Service
 public class MlClientService {
 
+    private static final Logger log = LoggerFactory.getLogger(MlClientService.class);
+
     private final String mlBaseUrl;
     private final RestTemplate restTemplate;
+    private final int batchSize;
+    private final int parallelism;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private volatile boolean columns;
 
-    public MlClientService(@Value("${app.ml.base-url}") String mlBaseUrl) {
+    /**
+     * With {@code app.ml.wire-format=columns} batches are sent as
+     * {@link HistoryColumns} and that format is accepted back; a server that
+     * rejects it with 415 is sent JSON from then on. A 422 that shows the
+     * body could not be decoded only resends that batch as JSON, since a
+     * single bad batch says nothing about the server. Any other value keeps
+     * to JSON.
+     */
+    public MlClientService(@Value("${app.ml.base-url}") String mlBaseUrl,
+            @Value("${app.ml.batch-size:500}") int batchSize,
+            @Value("${app.ml.parallelism:4}") int parallelism,
+            @Value("${app.ml.max-attempts:3}") int maxAttempts,
+            @Value("${app.ml.retry-backoff-ms:200}") long retryBackoffMillis,
+            @Value("${app.ml.wire-format:columns}") String wireFormat) {
 
         this.mlBaseUrl = mlBaseUrl;
         this.restTemplate = new RestTemplate();
+        this.restTemplate.getMessageConverters().addFirst(new HistoryColumnsHttpMessageConverter());
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.columns = "columns".equalsIgnoreCase(wireFormat);
+    }
+
+    /** Whether batches still go out in the columnar format. */
+    public boolean isColumnar() {
+        return columns;
     }
 
     public List<MlDataResponse> requestPrediction(List<MlDataRequest> mlDataRequest, String path) {
-        String url = mlBaseUrl + path;
+        List<List<MlDataResponse>> parts = new ArrayList<>();
+        List<List<MlDataRequest>> batches = split(mlDataRequest);
+        for (int i = 0; i < batches.size(); i++) {
+            parts.add(List.of());
+        }
 
-        MlDataResponse[] response = restTemplate.postForObject(
-                url,
-                mlDataRequest,
-                MlDataResponse[].class);
-        return response != null ? List.of(response) : List.of();
+        runBatches(batches, path, (index, rows) -> parts.set(index, rows));
+
+        List<MlDataResponse> result = new ArrayList<>(mlDataRequest.size());
+        parts.forEach(result::addAll);
+        return result;
     }
 
-    public List<MlDataResponse> sendSafariDbToMl(MultipartFile file, MultipartFile zipFile, String path) {
+    /**
+     * Sends the requests in batches of about {@code app.ml.batch-size}, at most
+     * {@code app.ml.parallelism} at a time on virtual threads. Each finished
+     * batch is handed to {@code onBatch} on the calling thread in completion
+     * order, so the caller can import it while later batches are in flight.
+     */
+    public void requestPredictionBatches(List<MlDataRequest> mlDataRequest, String path,
+            Consumer<List<MlDataResponse>> onBatch) {
+        runBatches(split(mlDataRequest), path, (index, rows) -> onBatch.accept(rows));
+    }
+
+    /**
+     * Cuts the requests into batches of about {@code app.ml.batch-size} on
+     * host boundaries. ML classifies a host from all of its rows in one
+     * request, so every row of a host goes in the same batch, hosts in the
+     * order first seen; a host with more rows than a batch gets one of its own.
+     */
+    private List<List<MlDataRequest>> split(List<MlDataRequest> requests) {
+        Map<String, List<MlDataRequest>> byHost = new HashMap<>();
+        List<List<MlDataRequest>> groups = new ArrayList<>();
+        for (MlDataRequest request : requests) {
+            if (request.getHost() == null) {
+                groups.add(List.of(request));
+                continue;
+            }
+            byHost.computeIfAbsent(request.getHost(), host -> {
+                List<MlDataRequest> group = new ArrayList<>();
+                groups.add(group);
+                return group;
+            }).add(request);
+        }
+
+        List<List<MlDataRequest>> batches = new ArrayList<>();
+        List<MlDataRequest> current = new ArrayList<>();
+        for (List<MlDataRequest> group : groups) {
+            if (!current.isEmpty() && current.size() + group.size() > batchSize) {
+                batches.add(current);
+                current = new ArrayList<>();
+            }
+            current.addAll(group);
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    private void runBatches(List<List<MlDataRequest>> batches, String path, BatchConsumer onBatch) {
         String url = mlBaseUrl + path;
-        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            CompletionService<IndexedBatch> completion = new ExecutorCompletionService<>(executor);
+            int next = 0;
+            int inFlight = 0;
 
-        if (file != null && !file.isEmpty()) {
-            ByteArrayResource fileResource;
-            try {
-                fileResource = new ByteArrayResource(file.getBytes()) {
-                    @Override
-                    public String getFilename() {
-                        return file.getOriginalFilename() != null
-                                ? file.getOriginalFilename()
-                                : "history.db";
-                    }
-                };
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to read uploaded file", e);
+            while (next < batches.size() || inFlight > 0) {
+                while (inFlight < parallelism && next < batches.size()) {
+                    int index = next++;
+                    List<MlDataRequest> batch = batches.get(index);
+                    completion.submit(() -> new IndexedBatch(index, postWithRetry(url, batch)));
+                    inFlight++;
+                }
+
+                IndexedBatch done = completion.take().get();
+                inFlight--;
+                onBatch.accept(done.index(), done.rows());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for ML predictions", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
             }
-            body.add("file", fileResource);
-        } else if (zipFile != null && !zipFile.isEmpty()) {
+            throw new IllegalStateException("ML prediction batch failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-            ByteArrayResource fileResource;
+    private List<MlDataResponse> postWithRetry(String url, List<MlDataRequest> batch) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
             try {
-                fileResource = new ByteArrayResource(zipFile.getBytes()) {
-                    @Override
-                    public String getFilename() {
-                        return zipFile.getOriginalFilename() != null
-                                ? zipFile.getOriginalFilename()
-                                : "data.zip";
-                    }
-                };
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to read uploaded zip file", e);
+                return post(url, batch);
+            } catch (ResourceAccessException | HttpServerErrorException e) {
+                if (attempt >= maxAttempts) {
+                    throw new IllegalStateException(
+                            "ML batch of " + batch.size() + " rows failed after " + attempt + " attempts", e);
+                }
+                Thread.sleep(retryBackoffMillis * attempt);
             }
-            body.add("file", fileResource);
         }
+    }
 
-        if (zipFile != null && !zipFile.isEmpty()) {
+    private List<MlDataResponse> post(String url, List<MlDataRequest> batch) {
+        if (columns) {
             try {
-                ByteArrayResource zipResource = new ByteArrayResource(zipFile.getBytes()) {
-                    @Override
-                    public String getFilename() {
-                        return zipFile.getOriginalFilename() != null
-                                ? zipFile.getOriginalFilename()
-                                : "data.zip";
+                return exchange(url, batch.toArray(MlDataRequest[]::new), HistoryColumnsHttpMessageConverter.MEDIA_TYPE);
+            } catch (HttpClientErrorException e) {
+                if (e.getStatusCode().value() == HttpStatus.UNSUPPORTED_MEDIA_TYPE.value()) {
+                    if (columns) {
+                        columns = false;
+                        log.warn("ML service at {} rejected columnar batches (415), falling back to JSON", mlBaseUrl);
                     }
-                };
-                body.add("zip", zipResource);
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to read uploaded zip file", e);
+                } else if (e.getStatusCode().value() == 422
+                        && isDecodingRejection(e.getResponseBodyAsString())) {
+                    log.warn("ML service at {} could not decode a columnar batch, resending it as JSON", mlBaseUrl);
+                } else {
+                    throw e;
+                }
+            }
+        }
+        return exchange(url, batch, MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * A server without the columnar reader parses the body as JSON and
+     * answers 422 with a decode or content-type error; field-level
+     * validation errors are real rejections of the rows.
+     */
+    private static boolean isDecodingRejection(String body) {
+        String lower = body.toLowerCase(Locale.ROOT);
+        return lower.contains("json_invalid")
+                || lower.contains("json decode")
+                || lower.contains("jsondecode")
+                || lower.contains("content-type")
+                || lower.contains("content type")
+                || lower.contains("media type");
+    }
+
+    private List<MlDataResponse> exchange(String url, Object body, MediaType contentType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        acceptSupportedFormat(headers);
+        MlDataResponse[] response = restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(body, headers),
+                MlDataResponse[].class).getBody();
+        return response != null ? List.of(response) : List.of();
+    }
+
+    /**
+     * Left empty, RestTemplate accepts every format it can read, the
+     * columnar one first; otherwise only JSON is asked for.
+     */
+    private void acceptSupportedFormat(HttpHeaders headers) {
+        if (!columns) {
+            headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        }
+    }
+
+    @FunctionalInterface
+    private interface BatchConsumer {
+        void accept(int index, List<MlDataResponse> rows);
+    }
+
+    private record IndexedBatch(int index, List<MlDataResponse> rows) {
+    }
+
+    /**
+     * Forwards the upload to ML without buffering it: each part is streamed
+     * from the container's temp file straight into the outbound request.
+     * A zip-only upload is sent once, as the "file" part.
+     */
+    public List<MlDataResponse> sendSafariDbToMl(MultipartFile file, MultipartFile zipFile, String path) {
+        Resource fileResource = file != null && !file.isEmpty() ? new UploadedPartResource(file, "history.db") : null;
+        Resource zipResource = zipFile != null && !zipFile.isEmpty() ? new UploadedPartResource(zipFile, "data.zip") : null;
+        return sendSafariDbToMl(fileResource, zipResource, path);
+    }
+
+    public List<MlDataResponse> sendSafariDbToMl(Resource file, Resource zipFile, String path) {
+        String url = mlBaseUrl + path;
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+
+        if (file != null) {
+            body.add("file", file);
+            if (zipFile != null) {
+                body.add("zip", zipFile);
             }
+        } else if (zipFile != null) {
+            body.add("file", zipFile);
         }
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        acceptSupportedFormat(headers);
 
         HttpEntity<MultiValueMap<String, Object>> request = new HttpEntity<>(body, headers);
 
@@ -0,0 +1,62 @@
+package com.example.backend.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Encoding of page rows: urls are stored without a leading
+ * {@code https://<host>} or {@code http://<host>}, which the urls view adds
+ * back from the host. Must stay in line with V3__pages_and_visits.sql.
+ */
+final class PageUrls {
+
+    static final short NO_PREFIX = 0;
+    static final short HTTPS_HOST = 1;
+    static final short HTTP_HOST = 2;
+
+    private PageUrls() {
+    }
+
+    static short prefix(String url, String host) {
+        if (url == null || host == null) {
+            return NO_PREFIX;
+        }
+        if (startsWithHost(url, "https://", host)) {
+            return HTTPS_HOST;
+        }
+        if (startsWithHost(url, "http://", host)) {
+            return HTTP_HOST;
+        }
+        return NO_PREFIX;
+    }
+
+    static String rest(String url, String host, short prefix) {
+        return switch (prefix) {
+            case HTTPS_HOST -> url.substring("https://".length() + host.length());
+            case HTTP_HOST -> url.substring("http://".length() + host.length());
+            default -> url;
+        };
+    }
+
+    /** First 8 bytes of md5(title) as a signed long, matching the SQL migration; 0 for null. */
+    static long titleHash(String title) {
+        if (title == null) {
+            return 0L;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(title.getBytes(StandardCharsets.UTF_8));
+            long hash = 0L;
+            for (int i = 0; i < Long.BYTES; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+
+    private static boolean startsWithHost(String url, String scheme, String host) {
+        return url.startsWith(scheme) && url.startsWith(host, scheme.length());
+    }
+}
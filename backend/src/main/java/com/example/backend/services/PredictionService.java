@@ -0,0 +1,166 @@
+package com.example.backend.services;
+
+import com.example.backend.models.HostStats;
+import com.example.backend.models.MlDataRequest;
+import com.example.backend.models.MlDataResponse;
+import com.example.backend.repositories.HostStatsRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Answers prediction requests from {@link HostPredictionCache} and fresh
+ * {@code host_stats} rows where possible, and only sends the rest to ML.
+ */
+@Service
+public class PredictionService {
+
+    private final HostPredictionCache hostPredictionCache;
+    private final HostStatsRepository hostStatsRepository;
+    private final MlClientService mlClientService;
+
+    public PredictionService(HostPredictionCache hostPredictionCache,
+                             HostStatsRepository hostStatsRepository,
+                             MlClientService mlClientService) {
+        this.hostPredictionCache = hostPredictionCache;
+        this.hostStatsRepository = hostStatsRepository;
+        this.mlClientService = mlClientService;
+    }
+
+    public void predict(List<MlDataRequest> requests, String path, Consumer<List<MlDataResponse>> onBatch) {
+        List<MlDataResponse> answered = new ArrayList<>();
+        List<MlDataRequest> misses = new ArrayList<>();
+
+        for (MlDataRequest request : requests) {
+            MlDataResponse cached = request.getHost() != null ? hostPredictionCache.get(request) : null;
+            if (cached != null) {
+                answered.add(withPrediction(request, cached));
+            } else {
+                misses.add(request);
+            }
+        }
+
+        if (hostPredictionCache.isHostKeyed() && !misses.isEmpty()) {
+            misses = answerFromHostStats(misses, answered);
+        }
+
+        if (!answered.isEmpty()) {
+            onBatch.accept(answered);
+        }
+        if (misses.isEmpty()) {
+            return;
+        }
+        if (hostPredictionCache.isHostKeyed()) {
+            requestPerHost(misses, path, onBatch);
+        } else {
+            mlClientService.requestPredictionBatches(misses, path, batch -> {
+                batch.forEach(hostPredictionCache::put);
+                onBatch.accept(batch);
+            });
+        }
+    }
+
+    /**
+     * Sends ML every distinct page of each missed host, grouped by host, since
+     * ML classifies a host from the text of all the pages it is given.
+     * Repeated visits of the same page are sent once, and every miss of a
+     * host is answered from the host's prediction, as the cache would once it
+     * came back.
+     */
+    private void requestPerHost(List<MlDataRequest> misses, String path, Consumer<List<MlDataResponse>> onBatch) {
+        Map<String, List<MlDataRequest>> byHost = new LinkedHashMap<>();
+        Map<String, List<MlDataRequest>> pagesByHost = new LinkedHashMap<>();
+        Set<Page> seenPages = new HashSet<>();
+        List<MlDataRequest> unique = new ArrayList<>();
+        for (MlDataRequest request : misses) {
+            if (request.getHost() == null) {
+                unique.add(request);
+                continue;
+            }
+            byHost.computeIfAbsent(request.getHost(), host -> new ArrayList<>()).add(request);
+            if (seenPages.add(new Page(request.getHost(), request.getTitle(), request.getUrl()))) {
+                pagesByHost.computeIfAbsent(request.getHost(), host -> new ArrayList<>()).add(request);
+            }
+        }
+        pagesByHost.values().forEach(unique::addAll);
+
+        Set<String> answeredHosts = new HashSet<>();
+        mlClientService.requestPredictionBatches(unique, path, batch -> {
+            List<MlDataResponse> answered = new ArrayList<>(batch.size());
+            for (MlDataResponse prediction : batch) {
+                hostPredictionCache.put(prediction);
+                List<MlDataRequest> sameHost = prediction.getHost() != null ? byHost.get(prediction.getHost()) : null;
+                if (sameHost == null) {
+                    answered.add(prediction);
+                } else if (answeredHosts.add(prediction.getHost())) {
+                    for (MlDataRequest request : sameHost) {
+                        answered.add(withPrediction(request, prediction));
+                    }
+                }
+            }
+            onBatch.accept(answered);
+        });
+    }
+
+    private List<MlDataRequest> answerFromHostStats(List<MlDataRequest> misses, List<MlDataResponse> answered) {
+        Set<String> hosts = new LinkedHashSet<>();
+        for (MlDataRequest request : misses) {
+            if (request.getHost() != null) {
+                hosts.add(request.getHost());
+            }
+        }
+        if (hosts.isEmpty()) {
+            return misses;
+        }
+
+        Instant since = Instant.now().minus(hostPredictionCache.getTtl());
+        Map<String, MlDataResponse> fresh = new HashMap<>();
+        for (HostStats stats : hostStatsRepository.findFreshByHostNames(hosts, since)) {
+            MlDataResponse prediction = fromHostStats(stats);
+            hostPredictionCache.put(prediction);
+            fresh.put(prediction.getHost(), prediction);
+        }
+
+        List<MlDataRequest> remaining = new ArrayList<>();
+        for (MlDataRequest request : misses) {
+            MlDataResponse prediction = fresh.get(request.getHost());
+            if (prediction != null) {
+                answered.add(withPrediction(request, prediction));
+            } else {
+                remaining.add(request);
+            }
+        }
+        return remaining;
+    }
+
+    private static MlDataResponse withPrediction(MlDataRequest request, MlDataResponse prediction) {
+        MlDataResponse dto = new MlDataResponse();
+        dto.setTitle(request.getTitle());
+        dto.setUrl(request.getUrl());
+        dto.setTime_usec(request.getTime_usec());
+        dto.setHost(request.getHost());
+        dto.copyPredictionFrom(prediction);
+        return dto;
+    }
+
+    private static MlDataResponse fromHostStats(HostStats stats) {
+        MlDataResponse dto = new MlDataResponse();
+        dto.setHost(stats.getHost().getHost());
+        dto.setPred_topic(stats.getPred_topic());
+        dto.setPred_prob(stats.getPred_prob());
+        dto.topics().copyFrom(stats.getTopics());
+        return dto;
+    }
+
+    private record Page(String host, String title, String url) {
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.backend.services;
+
+import com.example.backend.models.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized GET responses keyed by request path and query, each stored
+ * once as-is and once gzip-compressed. An entry only serves the
+ * {@link DataGeneration} it was built under. The cache is an LRU bounded by
+ * entry count and by total bytes.
+ */
+@Service
+public class ResponseCache {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    public ResponseCache(@Value("${app.response-cache.max-entries:128}") int maxEntries,
+                         @Value("${app.response-cache.max-bytes:268435456}") long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    public Entry get(String key, long generation) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.generation() == generation) {
+                hits.incrementAndGet();
+                return entry;
+            }
+            if (entry != null) {
+                remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /** Compresses and stores a body; bodies over the byte limit are returned but not kept. */
+    public Entry put(String key, long generation, String contentType, byte[] body) {
+        Entry entry = new Entry(generation, contentType, body, gzip(body));
+        if (entry.size() > maxBytes) {
+            return entry;
+        }
+        synchronized (entries) {
+            remove(key);
+            entries.put(key, entry);
+            bytes += entry.size();
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+                bytes -= eldest.next().getValue().size();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+        return entry;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    public CacheStats getStats() {
+        synchronized (entries) {
+            return new CacheStats(hits.get(), misses.get(), evictions.get(), entries.size());
+        }
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.size();
+        }
+    }
+
+    static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 1 << 16)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public record Entry(long generation, String contentType, byte[] body, byte[] gzipped) {
+
+        long size() {
+            return (long) body.length + gzipped.length;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.backend.services;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/** Rebuilds the visit rollups on startup when run with {@code --rebuild-rollups}. */
+@Component
+public class RollupRebuildRunner implements ApplicationRunner {
+
+    static final String OPTION = "rebuild-rollups";
+
+    private final VisitRollups visitRollups;
+
+    public RollupRebuildRunner(VisitRollups visitRollups) {
+        this.visitRollups = visitRollups;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption(OPTION)) {
+            visitRollups.rebuild();
+        }
+    }
+}
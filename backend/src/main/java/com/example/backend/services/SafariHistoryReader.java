@@ -0,0 +1,184 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.sqlite.SQLiteConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reads a Safari History.db on the backend so only compact, deduplicated page
+ * requests go to ML. Visit times are converted from the Mac epoch in the
+ * query itself.
+ */
+@Service
+public class SafariHistoryReader {
+
+    private static final byte[] SQLITE_HEADER = "SQLite format 3\0".getBytes(StandardCharsets.US_ASCII);
+
+    private static final String VISITS_SQL = """
+            SELECT v.title,
+                   i.url,
+                   CAST(v.visit_time * 1000000 AS INTEGER) + 978307200000000 AS time_usec
+            FROM history_visits v
+            JOIN history_items i ON v.history_item = i.id
+            WHERE i.url IS NOT NULL AND v.visit_time IS NOT NULL
+            """;
+
+    private final double sampleFraction;
+
+    public SafariHistoryReader(@Value("${app.upload.sqlite.sample-fraction:0.04}") double sampleFraction) {
+        this.sampleFraction = sampleFraction;
+    }
+
+    public boolean isSqlite(Resource file) {
+        try (InputStream in = file.getInputStream()) {
+            byte[] header = in.readNBytes(SQLITE_HEADER.length);
+            return Arrays.equals(header, SQLITE_HEADER);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read uploaded file", e);
+        }
+    }
+
+    public SafariHistory read(Resource file) {
+        if (file.isFile()) {
+            try {
+                return read(file.getFile().toPath());
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to open uploaded history file", e);
+            }
+        }
+
+        Path dbFile = null;
+        try {
+            dbFile = Files.createTempFile("history", ".db");
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, dbFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return read(dbFile);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store uploaded history file", e);
+        } finally {
+            if (dbFile != null) {
+                try {
+                    Files.deleteIfExists(dbFile);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    public SafariHistory read(Path dbFile) {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+
+        List<MlDataRequest> visits = new ArrayList<>();
+        Map<String, MlDataRequest> pages = new LinkedHashMap<>();
+
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile, config.toProperties());
+             PreparedStatement statement = connection.prepareStatement(VISITS_SQL);
+             ResultSet rs = statement.executeQuery()) {
+
+            while (rs.next()) {
+                if (sampleFraction < 1.0 && ThreadLocalRandom.current().nextDouble() > sampleFraction) {
+                    continue;
+                }
+
+                String url = rs.getString("url");
+                String host = hostOf(url);
+                if (host == null) {
+                    continue;
+                }
+
+                MlDataRequest visit = new MlDataRequest();
+                visit.setTitle(rs.getString("title"));
+                visit.setUrl(url);
+                visit.setTime_usec(rs.getLong("time_usec"));
+                visit.setHost(host);
+                visits.add(visit);
+
+                pages.putIfAbsent(host + '\n' + visit.getTitle() + '\n' + url, visit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalArgumentException("Unsupported history file: SQLite schema not recognized", e);
+        }
+
+        return new SafariHistory(visits, new ArrayList<>(pages.values()));
+    }
+
+    /**
+     * Host of {@code url} as Python's {@code urlparse(url).hostname} reads
+     * it: the authority after "//", without userinfo or port, lowercased.
+     * Parsed by hand, as {@link java.net.URI} rejects the underscores, spaces and
+     * pipes that browsers keep in history.
+     */
+    static String hostOf(String url) {
+        if (url == null) {
+            return null;
+        }
+        int start = schemeEnd(url);
+        if (!url.startsWith("//", start)) {
+            return null;
+        }
+        start += 2;
+        int end = start;
+        while (end < url.length() && "/?#".indexOf(url.charAt(end)) < 0) {
+            end++;
+        }
+        int at = url.lastIndexOf('@', end - 1);
+        if (at >= start) {
+            start = at + 1;
+        }
+
+        String host;
+        if (url.startsWith("[", start)) {
+            int close = url.indexOf(']', start);
+            host = url.substring(start + 1, close > 0 && close < end ? close : end);
+        } else {
+            int port = url.indexOf(':', start);
+            host = url.substring(start, port >= 0 && port < end ? port : end);
+        }
+        return host.isEmpty() ? null : host.toLowerCase(Locale.ROOT);
+    }
+
+    /** Index just past "scheme:", or 0 when the url does not start with a valid scheme. */
+    private static int schemeEnd(String url) {
+        int colon = url.indexOf(':');
+        if (colon <= 0 || !Character.isLetter(url.charAt(0))) {
+            return 0;
+        }
+        for (int i = 1; i < colon; i++) {
+            char c = url.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '+' && c != '-' && c != '.') {
+                return 0;
+            }
+        }
+        return colon + 1;
+    }
+
+    /**
+     * Every sampled visit, plus the distinct (host, title, url) pages among
+     * them, which is all ML needs to classify the hosts.
+     */
+    public record SafariHistory(List<MlDataRequest> visits, List<MlDataRequest> pages) {
+    }
+}
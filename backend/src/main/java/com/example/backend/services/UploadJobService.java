@@ -0,0 +1,236 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataResponse;
+import com.example.backend.models.UploadJobStatus;
+import com.example.backend.models.UploadStage;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs history uploads on a bounded worker pool so the request thread only
+ * has to move the parts to disk. A finished job spools its results to a
+ * JSON file that the results endpoint streams, so retained jobs hold no rows
+ * in memory. Finished jobs are kept, oldest first, up to
+ * {@code app.upload.jobs.retained}.
+ */
+@Service
+public class UploadJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadJobService.class);
+
+    private final HistoryQueryService historyQueryService;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor executor;
+    private final int retainedJobs;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public UploadJobService(HistoryQueryService historyQueryService,
+                            ObjectMapper objectMapper,
+                            @Value("${app.upload.jobs.pool-size:2}") int poolSize,
+                            @Value("${app.upload.jobs.queue-depth:8}") int queueDepth,
+                            @Value("${app.upload.jobs.retained:16}") int retainedJobs) {
+        this.historyQueryService = historyQueryService;
+        this.objectMapper = objectMapper;
+        this.retainedJobs = retainedJobs;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueDepth),
+                Thread.ofPlatform().name("upload-job-", 0).factory());
+    }
+
+    public UploadJobStatus submit(MultipartFile file, MultipartFile zipFile) {
+        historyQueryService.checkUpload(file, zipFile);
+        boolean hasFile = file != null && !file.isEmpty();
+        boolean hasZip = zipFile != null && !zipFile.isEmpty();
+
+        Job job = new Job(UUID.randomUUID().toString());
+        try {
+            job.file = hasFile ? store(file, "history.db") : null;
+            job.zip = hasZip ? store(zipFile, "data.zip") : null;
+        } catch (IOException e) {
+            job.deleteFiles();
+            throw new RuntimeException("Failed to store uploaded history", e);
+        }
+
+        try {
+            jobs.put(job.id, job);
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            job.deleteFiles();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Upload queue is full", e);
+        }
+        evictFinishedJobs();
+        return job.status();
+    }
+
+    public UploadJobStatus getStatus(String jobId) {
+        return find(jobId).status();
+    }
+
+    /** The finished job's results as a JSON array file. */
+    public Resource getResults(String jobId) {
+        Job job = find(jobId);
+        if (job.stage != UploadStage.DONE) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload job is " + job.stage);
+        }
+        return new FileSystemResource(job.results);
+    }
+
+    private Job find(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown upload job " + jobId);
+        }
+        return job;
+    }
+
+    private void run(Job job) {
+        job.startedAt = System.nanoTime();
+        try {
+            List<MlDataResponse> results = historyQueryService.processUploadedHistory(job.file, job.zip, job);
+            job.results = spool(results);
+            job.finishedAt = System.nanoTime();
+            job.stage = UploadStage.DONE;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Upload job {} failed", job.id, e);
+            job.error = e.getMessage();
+            job.finishedAt = System.nanoTime();
+            job.stage = UploadStage.FAILED;
+        } finally {
+            job.deleteFiles();
+        }
+    }
+
+    private void evictFinishedJobs() {
+        List<Job> finished = new ArrayList<>();
+        for (Job job : jobs.values()) {
+            if (job.stage == UploadStage.DONE || job.stage == UploadStage.FAILED) {
+                finished.add(job);
+            }
+        }
+        if (finished.size() <= retainedJobs) {
+            return;
+        }
+        finished.sort((a, b) -> Long.compare(a.finishedAt, b.finishedAt));
+        for (int i = 0; i < finished.size() - retainedJobs; i++) {
+            jobs.remove(finished.get(i).id);
+            finished.get(i).deleteResults();
+        }
+    }
+
+    private Path spool(List<MlDataResponse> results) throws IOException {
+        Path path = Files.createTempFile("upload-results", ".json");
+        try (OutputStream out = Files.newOutputStream(path)) {
+            objectMapper.writeValue(out, results);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        return path;
+    }
+
+    private static Resource store(MultipartFile part, String fallbackFilename) throws IOException {
+        Path path = Files.createTempFile("upload", ".part");
+        part.transferTo(path);
+        String filename = part.getOriginalFilename() != null ? part.getOriginalFilename() : fallbackFilename;
+        return new FileSystemResource(path) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+        jobs.values().forEach(Job::deleteResults);
+    }
+
+    private static final class Job implements UploadProgress {
+
+        private final String id;
+        private final AtomicLong rowsProcessed = new AtomicLong();
+        private volatile UploadStage stage = UploadStage.QUEUED;
+        private volatile long rowsTotal;
+        private volatile long startedAt;
+        private volatile long stageStartedAt;
+        private volatile long finishedAt;
+        private volatile String error;
+        private volatile Path results;
+        private Resource file;
+        private Resource zip;
+
+        private Job(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void stage(UploadStage stage, long totalRows) {
+            this.rowsTotal = totalRows;
+            this.rowsProcessed.set(0);
+            this.stageStartedAt = System.nanoTime();
+            this.stage = stage;
+        }
+
+        @Override
+        public void rowsProcessed(long rows) {
+            rowsProcessed.addAndGet(rows);
+        }
+
+        private UploadJobStatus status() {
+            long end = finishedAt != 0 ? finishedAt : System.nanoTime();
+            long elapsed = startedAt != 0 ? end - startedAt : 0;
+            long inStage = stageStartedAt != 0 ? end - stageStartedAt : 0;
+            long processed = rowsProcessed.get();
+            double rate = inStage > 0 ? processed * 1_000_000_000.0 / inStage : 0.0;
+            return new UploadJobStatus(id, stage, processed, rowsTotal, rate,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), error);
+        }
+
+        private void deleteResults() {
+            if (results != null) {
+                try {
+                    Files.deleteIfExists(results);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+
+        private void deleteFiles() {
+            for (Resource resource : new Resource[]{file, zip}) {
+                if (resource == null) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(resource.getFile().toPath());
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
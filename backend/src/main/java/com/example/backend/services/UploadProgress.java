@@ -0,0 +1,24 @@
+package com.example.backend.services;
+
+import com.example.backend.models.UploadStage;
+
+/**
+ * Progress of an upload, reported per stage: entering a stage starts its
+ * row count from zero.
+ */
+public interface UploadProgress {
+
+    UploadProgress NONE = new UploadProgress() {
+        @Override
+        public void stage(UploadStage stage, long totalRows) {
+        }
+
+        @Override
+        public void rowsProcessed(long rows) {
+        }
+    };
+
+    void stage(UploadStage stage, long totalRows);
+
+    void rowsProcessed(long rows);
+}
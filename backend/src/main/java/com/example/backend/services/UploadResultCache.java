@@ -0,0 +1,200 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataResponse;
+import com.example.backend.models.UploadCacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Results of earlier uploads keyed by the SHA-256 of the uploaded parts. A
+ * small LRU in memory sits in front of a bounded directory of JSON files;
+ * both evict least recently used entries.
+ */
+@Service
+public class UploadResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadResultCache.class);
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final int maxMemoryEntries;
+    private final int maxDiskEntries;
+    private final Map<String, List<MlDataResponse>> memory;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    public UploadResultCache(ObjectMapper objectMapper,
+                             @Value("${app.upload.cache.dir:${java.io.tmpdir}/history-upload-cache}") String directory,
+                             @Value("${app.upload.cache.memory-entries:4}") int maxMemoryEntries,
+                             @Value("${app.upload.cache.disk-entries:64}") int maxDiskEntries) {
+        this.objectMapper = objectMapper;
+        this.directory = Path.of(directory);
+        this.maxMemoryEntries = maxMemoryEntries;
+        this.maxDiskEntries = maxDiskEntries;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<MlDataResponse>> eldest) {
+                return size() > UploadResultCache.this.maxMemoryEntries;
+            }
+        };
+    }
+
+    /**
+     * SHA-256 over both parts, read as streams. Each part is prefixed with its
+     * role so a db and a zip with the same bytes do not collide.
+     */
+    public String contentHash(Resource file, Resource zipFile) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, "file", file);
+            update(digest, "zip", zipFile);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read uploaded file", e);
+        }
+    }
+
+    public List<MlDataResponse> get(String hash, long uploadBytes) {
+        List<MlDataResponse> cached;
+        synchronized (memory) {
+            cached = memory.get(hash);
+        }
+        if (cached == null) {
+            cached = readFromDisk(hash);
+            if (cached != null) {
+                synchronized (memory) {
+                    memory.put(hash, cached);
+                }
+            }
+        }
+
+        if (cached == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        bytesSaved.addAndGet(uploadBytes);
+        return cached;
+    }
+
+    public void put(String hash, List<MlDataResponse> results) {
+        synchronized (memory) {
+            memory.put(hash, results);
+        }
+        writeToDisk(hash, results);
+    }
+
+    public UploadCacheStats getStats() {
+        long memoryEntries;
+        synchronized (memory) {
+            memoryEntries = memory.size();
+        }
+        return new UploadCacheStats(hits.get(), misses.get(), bytesSaved.get(), memoryEntries, diskEntries().size());
+    }
+
+    private static void update(MessageDigest digest, String role, Resource part) throws IOException {
+        digest.update(role.getBytes(StandardCharsets.US_ASCII));
+        if (part == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        digest.update((byte) 1);
+        try (InputStream in = new DigestInputStream(part.getInputStream(), digest)) {
+            byte[] buffer = new byte[64 * 1024];
+            while (in.read(buffer) != -1) {
+                // DigestInputStream updates the digest as it reads
+            }
+        }
+    }
+
+    private List<MlDataResponse> readFromDisk(String hash) {
+        Path path = directory.resolve(hash + ".json");
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            List<MlDataResponse> results = List.of(objectMapper.readValue(in, MlDataResponse[].class));
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return results;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Dropping unreadable upload cache entry {}", path, e);
+            deleteQuietly(path);
+            return null;
+        }
+    }
+
+    private synchronized void writeToDisk(String hash, List<MlDataResponse> results) {
+        try {
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, hash, ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                objectMapper.writeValue(out, results);
+            }
+            Files.move(tmp, directory.resolve(hash + ".json"),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write upload cache entry {}", hash, e);
+            return;
+        }
+
+        List<Path> entries = diskEntries();
+        for (int i = 0; i < entries.size() - maxDiskEntries; i++) {
+            deleteQuietly(entries.get(i));
+        }
+    }
+
+    private List<Path> diskEntries() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(p -> p.getFileName().toString().endsWith(".json"))
+                    .sorted(Comparator.comparingLong(UploadResultCache::lastModified))
+                    .toList();
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.backend.services;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Exposes an uploaded part as a resource that is read from the part's own
+ * stream (the servlet container's temp file) instead of a heap copy. The
+ * length is known up front so the outbound request can be streamed.
+ */
+class UploadedPartResource extends AbstractResource {
+
+    private final MultipartFile part;
+    private final String fallbackFilename;
+
+    UploadedPartResource(MultipartFile part, String fallbackFilename) {
+        this.part = part;
+        this.fallbackFilename = fallbackFilename;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return part.getInputStream();
+    }
+
+    @Override
+    public long contentLength() {
+        return part.getSize();
+    }
+
+    @Override
+    public String getFilename() {
+        return part.getOriginalFilename() != null ? part.getOriginalFilename() : fallbackFilename;
+    }
+
+    @Override
+    public String getDescription() {
+        return "uploaded part [" + getFilename() + "]";
+    }
+}
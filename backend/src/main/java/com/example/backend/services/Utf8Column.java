@@ -0,0 +1,53 @@
+package com.example.backend.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Append-only string column packed as UTF-8 into one byte array with an
+ * offset per row, instead of one String object per value. A null value is
+ * recorded as a bitwise-complemented end offset. Single writer; readers only
+ * look at rows the writer has already published.
+ */
+class Utf8Column {
+
+    private byte[] data = new byte[1 << 16];
+    private int[] ends = new int[1 << 10];
+    private int size;
+
+    void append(String value) {
+        if (size + 1 >= ends.length) {
+            ends = Arrays.copyOf(ends, ends.length * 2);
+        }
+        int start = end(size);
+        if (value == null) {
+            ends[size + 1] = ~start;
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (start + bytes.length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, start + bytes.length));
+            }
+            System.arraycopy(bytes, 0, data, start, bytes.length);
+            ends[size + 1] = start + bytes.length;
+        }
+        size++;
+    }
+
+    String get(int row) {
+        int end = ends[row + 1];
+        if (end < 0) {
+            return null;
+        }
+        int start = end(row);
+        return new String(data, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    long byteSize() {
+        return (long) data.length + (long) ends.length * Integer.BYTES;
+    }
+
+    private int end(int row) {
+        int end = ends[row];
+        return end < 0 ? ~end : end;
+    }
+}
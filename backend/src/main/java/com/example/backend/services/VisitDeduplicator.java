@@ -0,0 +1,146 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Drops visits that are already stored, keyed by (url, time_usec); a null
+ * time matches a stored null time. A Bloom filter over url_hash answers
+ * "definitely new" for most rows; only rows it has probably seen are checked
+ * against urls, in one query per chunk, and the stored url is compared in
+ * full so a url_hash collision never drops a visit.
+ *
+ * <p>This is stricter than the unique (page_id, time_usec) constraint on
+ * visits, which stays the final guard: a page is a (url, title) pair, so a
+ * repeat of a visit with a different title is dropped here, while two
+ * null-time visits of one page both pass the constraint.
+ */
+@Service
+public class VisitDeduplicator {
+
+    private static final String SELECT_KEYS_SQL = "SELECT url_hash, time_usec FROM urls";
+
+    private static final String PROBE_SQL = """
+            SELECT u.url, u.time_usec
+            FROM urls u
+            JOIN unnest(?::bigint[], ?::bigint[]) AS k(url_hash, time_usec)
+              ON u.url_hash = k.url_hash AND u.time_usec IS NOT DISTINCT FROM k.time_usec
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VisitBloomFilter bloomFilter;
+    private final int batchSize;
+    private boolean warmedUp;
+
+    public VisitDeduplicator(JdbcTemplate jdbcTemplate,
+                             @Value("${app.history-import.bloom.expected-visits:2000000}") long expectedVisits,
+                             @Value("${app.history-import.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+                             @Value("${app.history-import.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bloomFilter = new VisitBloomFilter(expectedVisits, falsePositiveRate);
+        this.batchSize = batchSize;
+    }
+
+    public static long urlHash(String url) {
+        if (url == null) {
+            return 0L;
+        }
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < url.length(); i++) {
+            hash ^= url.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the rows that are not stored yet and not repeated earlier in
+     * the same list, in their original order.
+     */
+    public synchronized List<MlDataResponse> filterNew(List<MlDataResponse> rows) {
+        warmUp();
+
+        Set<VisitKey> inBatch = new HashSet<>();
+        List<MlDataResponse> unique = new ArrayList<>(rows.size());
+        List<MlDataResponse> maybeStored = new ArrayList<>();
+
+        for (MlDataResponse row : rows) {
+            VisitKey key = VisitKey.of(row);
+            if (!inBatch.add(key)) {
+                continue;
+            }
+            unique.add(row);
+            if (bloomFilter.mightContain(key.bloomKey())) {
+                maybeStored.add(row);
+            }
+        }
+
+        Set<VisitKey> stored = maybeStored.isEmpty() ? Set.of() : probe(maybeStored);
+
+        List<MlDataResponse> fresh = new ArrayList<>(unique.size());
+        for (MlDataResponse row : unique) {
+            VisitKey key = VisitKey.of(row);
+            if (!stored.contains(key)) {
+                fresh.add(row);
+                bloomFilter.put(key.bloomKey());
+            }
+        }
+        return fresh;
+    }
+
+    private Set<VisitKey> probe(List<MlDataResponse> rows) {
+        Set<VisitKey> stored = new HashSet<>();
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<MlDataResponse> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            Long[] hashes = new Long[chunk.size()];
+            Long[] times = new Long[chunk.size()];
+            for (int i = 0; i < chunk.size(); i++) {
+                hashes[i] = urlHash(chunk.get(i).getUrl());
+                times[i] = chunk.get(i).getTime_usec();
+            }
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(PROBE_SQL);
+                ps.setArray(1, con.createArrayOf("bigint", hashes));
+                ps.setArray(2, con.createArrayOf("bigint", times));
+                return ps;
+            }, rs -> {
+                stored.add(new VisitKey(rs.getString("url"), rs.getObject("time_usec", Long.class)));
+            });
+        }
+        return stored;
+    }
+
+    private void warmUp() {
+        if (warmedUp) {
+            return;
+        }
+        jdbcTemplate.query(SELECT_KEYS_SQL, rs -> {
+            bloomFilter.put(bloomKey(rs.getLong("url_hash"), rs.getObject("time_usec", Long.class)));
+        });
+        warmedUp = true;
+    }
+
+    private static long bloomKey(long urlHash, Long timeUsec) {
+        long time = timeUsec != null ? timeUsec : Long.MIN_VALUE;
+        return urlHash * 31 + time;
+    }
+
+    private record VisitKey(String url, Long timeUsec) {
+
+        static VisitKey of(MlDataResponse row) {
+            return new VisitKey(row.getUrl(), row.getTime_usec());
+        }
+
+        long bloomKey() {
+            return VisitDeduplicator.bloomKey(urlHash(url), timeUsec);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataResponse;
+import com.example.backend.models.TimeBucket;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains host_rollups and topic_rollups, per-hour and per-day visit
+ * counts, inside the import transaction. A host is counted under its
+ * current topic; when a host is re-classified its buckets move from the old
+ * topic to the new one. {@link #rebuild()} recomputes both tables from
+ * scratch for backfills.
+ */
+@Service
+public class VisitRollups {
+
+    private static final Logger log = LoggerFactory.getLogger(VisitRollups.class);
+
+    private static final String DEFAULT_TOPIC = "other";
+
+    // Host deltas are upserted first; hosts that get a new row for a bucket
+    // add one to the distinct-host count of their topic for that bucket.
+    private static final String ADD_VISITS_SQL = """
+            WITH delta(bucket_start_usec, host_id, visits) AS (
+                SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::bigint[])
+            ), upserted AS (
+                INSERT INTO host_rollups (bucket, bucket_start_usec, host_id, visits)
+                SELECT ?, bucket_start_usec, host_id, visits FROM delta
+                ON CONFLICT (bucket, bucket_start_usec, host_id)
+                DO UPDATE SET visits = host_rollups.visits + EXCLUDED.visits
+                RETURNING bucket_start_usec, host_id, (xmax = 0) AS inserted
+            )
+            INSERT INTO topic_rollups (bucket, bucket_start_usec, topic, visits, hosts)
+            SELECT ?, d.bucket_start_usec, COALESCE(s.pred_topic, 'other'),
+                   sum(d.visits), count(*) FILTER (WHERE u.inserted)
+            FROM delta d
+            JOIN upserted u ON u.bucket_start_usec = d.bucket_start_usec AND u.host_id = d.host_id
+            LEFT JOIN host_stats s ON s.host_id = d.host_id
+            GROUP BY d.bucket_start_usec, 3
+            ON CONFLICT (bucket, bucket_start_usec, topic)
+            DO UPDATE SET visits = topic_rollups.visits + EXCLUDED.visits,
+                          hosts = topic_rollups.hosts + EXCLUDED.hosts
+            """;
+
+    private static final String SELECT_TOPICS_SQL = """
+            SELECT host_id, COALESCE(pred_topic, 'other') AS topic
+            FROM host_stats
+            WHERE host_id = ANY (?)
+            """;
+
+    private static final String REMOVE_FROM_OLD_TOPIC_SQL = """
+            WITH changed(host_id, old_topic) AS (
+                SELECT * FROM unnest(?::bigint[], ?::text[])
+            )
+            UPDATE topic_rollups t
+            SET visits = t.visits - m.visits, hosts = t.hosts - m.hosts
+            FROM (
+                SELECT r.bucket, r.bucket_start_usec, c.old_topic, sum(r.visits) AS visits, count(*) AS hosts
+                FROM host_rollups r
+                JOIN changed c ON c.host_id = r.host_id
+                GROUP BY r.bucket, r.bucket_start_usec, c.old_topic
+            ) m
+            WHERE t.bucket = m.bucket AND t.bucket_start_usec = m.bucket_start_usec AND t.topic = m.old_topic
+            """;
+
+    private static final String ADD_TO_NEW_TOPIC_SQL = """
+            WITH changed(host_id, new_topic) AS (
+                SELECT * FROM unnest(?::bigint[], ?::text[])
+            )
+            INSERT INTO topic_rollups (bucket, bucket_start_usec, topic, visits, hosts)
+            SELECT r.bucket, r.bucket_start_usec, c.new_topic, sum(r.visits), count(*)
+            FROM host_rollups r
+            JOIN changed c ON c.host_id = r.host_id
+            GROUP BY r.bucket, r.bucket_start_usec, c.new_topic
+            ON CONFLICT (bucket, bucket_start_usec, topic)
+            DO UPDATE SET visits = topic_rollups.visits + EXCLUDED.visits,
+                          hosts = topic_rollups.hosts + EXCLUDED.hosts
+            """;
+
+    private static final String REBUILD_HOSTS_SQL = """
+            INSERT INTO host_rollups (bucket, bucket_start_usec, host_id, visits)
+            SELECT ?, (u.time_usec / ?) * ?, u.host_id, count(*)
+            FROM urls u
+            WHERE u.time_usec IS NOT NULL
+            GROUP BY 2, 3
+            """;
+
+    private static final String REBUILD_TOPICS_SQL = """
+            INSERT INTO topic_rollups (bucket, bucket_start_usec, topic, visits, hosts)
+            SELECT r.bucket, r.bucket_start_usec, COALESCE(s.pred_topic, 'other'), sum(r.visits), count(*)
+            FROM host_rollups r
+            LEFT JOIN host_stats s ON s.host_id = r.host_id
+            GROUP BY r.bucket, r.bucket_start_usec, 3
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataGeneration dataGeneration;
+
+    public VisitRollups(JdbcTemplate jdbcTemplate, DataGeneration dataGeneration) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataGeneration = dataGeneration;
+    }
+
+    /**
+     * Adds newly stored visits to both granularities, counted under each
+     * host's topic in host_stats, so host_stats must be written first.
+     */
+    public void addVisits(List<MlDataResponse> rows, Map<String, Long> hostIds) {
+        for (TimeBucket bucket : TimeBucket.values()) {
+            Map<BucketHost, long[]> visits = new LinkedHashMap<>();
+            for (MlDataResponse row : rows) {
+                if (row.getTime_usec() == null) {
+                    continue;
+                }
+                long start = (row.getTime_usec() / bucket.getUsec()) * bucket.getUsec();
+                visits.computeIfAbsent(new BucketHost(start, hostIds.get(row.getHost())), k -> new long[1])[0]++;
+            }
+            if (visits.isEmpty()) {
+                continue;
+            }
+
+            Long[] starts = new Long[visits.size()];
+            Long[] hosts = new Long[visits.size()];
+            Long[] counts = new Long[visits.size()];
+            int i = 0;
+            for (Map.Entry<BucketHost, long[]> entry : visits.entrySet()) {
+                starts[i] = entry.getKey().bucketStartUsec();
+                hosts[i] = entry.getKey().hostId();
+                counts[i] = entry.getValue()[0];
+                i++;
+            }
+
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(ADD_VISITS_SQL);
+                ps.setArray(1, con.createArrayOf("bigint", starts));
+                ps.setArray(2, con.createArrayOf("bigint", hosts));
+                ps.setArray(3, con.createArrayOf("bigint", counts));
+                ps.setString(4, bucket.name());
+                ps.setString(5, bucket.name());
+                return ps;
+            });
+        }
+    }
+
+    /** Current rollup topic of each host that already has host_stats. */
+    public Map<Long, String> currentTopics(Collection<Long> hostIds) {
+        Map<Long, String> topics = new HashMap<>(hostIds.size() * 2);
+        if (hostIds.isEmpty()) {
+            return topics;
+        }
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_TOPICS_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", hostIds.toArray()));
+            return ps;
+        }, rs -> {
+            topics.put(rs.getLong("host_id"), rs.getString("topic"));
+        });
+        return topics;
+    }
+
+    /**
+     * Moves the buckets of every host whose topic differs between
+     * {@code before} and {@code after} to its new topic.
+     */
+    public void moveTopics(Map<Long, String> before, Map<Long, String> after) {
+        Map<Long, String[]> changed = new LinkedHashMap<>();
+        before.forEach((hostId, oldTopic) -> {
+            String newTopic = after.get(hostId);
+            if (newTopic != null && !newTopic.equals(oldTopic)) {
+                changed.put(hostId, new String[]{oldTopic, newTopic});
+            }
+        });
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        Long[] hostIds = changed.keySet().toArray(new Long[0]);
+        String[] oldTopics = changed.values().stream().map(t -> t[0]).toArray(String[]::new);
+        String[] newTopics = changed.values().stream().map(t -> t[1]).toArray(String[]::new);
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(REMOVE_FROM_OLD_TOPIC_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", hostIds));
+            ps.setArray(2, con.createArrayOf("text", oldTopics));
+            return ps;
+        });
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(ADD_TO_NEW_TOPIC_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", hostIds));
+            ps.setArray(2, con.createArrayOf("text", newTopics));
+            return ps;
+        });
+    }
+
+    /** Recomputes both rollup tables from every stored visit. */
+    @Transactional
+    public void rebuild() {
+        long started = System.nanoTime();
+        jdbcTemplate.execute("TRUNCATE host_rollups, topic_rollups RESTART IDENTITY");
+        for (TimeBucket bucket : TimeBucket.values()) {
+            jdbcTemplate.update(REBUILD_HOSTS_SQL, bucket.name(), bucket.getUsec(), bucket.getUsec());
+        }
+        jdbcTemplate.update(REBUILD_TOPICS_SQL);
+        dataGeneration.bump();
+        log.info("Rebuilt visit rollups in {} ms", (System.nanoTime() - started) / 1_000_000L);
+    }
+
+    static String topicOf(String predTopic) {
+        return predTopic != null ? predTopic : DEFAULT_TOPIC;
+    }
+
+    private record BucketHost(long bucketStartUsec, long hostId) {
+    }
+}
@@ -0,0 +1,307 @@
+package com.example.backend.services;
+
+import com.example.backend.models.Topic;
+import com.example.backend.models.TopicVector;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits the time-ordered visits into sessions wherever two consecutive
+ * visits are more than the idle gap apart, and stores them in sessions.
+ *
+ * <p>{@link #update} is given the time range of the visits an import just
+ * stored. Every session that could merge with them (ending less than a gap
+ * before the earliest or starting less than a gap after the latest) is
+ * deleted, and the visits from the first such session's start to the last
+ * one's end are sessionized again. Sessions are disjoint in time, so no
+ * other session can change. Visits normally arrive in time order, so that
+ * is the last session plus the new visits; a late batch re-splits only the
+ * sessions around it. {@link #retagHosts} recomputes the topic mix of the
+ * sessions holding visits of hosts whose predictions changed.
+ *
+ * <p>Runs are serialized by a row lock on a refresh_watermarks row named
+ * after the gap, held until the import transaction ends, so each run sees
+ * every visit committed by the runs before it. A different gap has no row
+ * yet and starts a full rebuild.
+ */
+@Service
+public class VisitSessionizer {
+
+    private static final Logger log = LoggerFactory.getLogger(VisitSessionizer.class);
+
+    private static final String WATERMARK_PREFIX = "sessions:";
+    private static final Topic[] TOPICS = Topic.values();
+
+    private static final String LOCK_WATERMARK_SQL =
+            "SELECT last_url_id FROM refresh_watermarks WHERE name = ? FOR UPDATE";
+
+    private static final String INSERT_WATERMARK_SQL = """
+            INSERT INTO refresh_watermarks (name, last_url_id) VALUES (?, 0)
+            ON CONFLICT (name) DO NOTHING
+            """;
+
+    private static final String AFFECTED_SQL = """
+            SELECT min(start_usec) AS first_start, max(end_usec) AS last_end
+            FROM sessions
+            WHERE end_usec >= ? AND start_usec <= ?
+            """;
+
+    private static final String DELETE_AFFECTED_SQL =
+            "DELETE FROM sessions WHERE end_usec >= ? AND start_usec <= ?";
+
+    // Sessions holding a visit of any of the hosts ?, found from each visit
+    // through the last session starting at or before it.
+    private static final String SESSIONS_OF_HOSTS_SQL = """
+            SELECT DISTINCT s.id, s.start_usec, s.end_usec
+            FROM visits v
+            JOIN LATERAL (
+                SELECT id, start_usec, end_usec FROM sessions
+                WHERE start_usec <= v.time_usec
+                ORDER BY start_usec DESC
+                LIMIT 1
+            ) s ON s.end_usec >= v.time_usec
+            WHERE v.host_id = ANY (?)
+            ORDER BY s.start_usec
+            """;
+
+    private static final String DELETE_SESSIONS_SQL = "DELETE FROM sessions WHERE id = ANY (?)";
+
+    private static final String SELECT_VISITS_SQL = """
+            SELECT v.time_usec, v.host_id, s.probs
+            FROM visits v
+            LEFT JOIN host_stats s ON s.host_id = v.host_id
+            WHERE v.time_usec BETWEEN ? AND ?
+            ORDER BY v.time_usec, v.id
+            """;
+
+    private static final String INSERT_SESSION_SQL = """
+            INSERT INTO sessions (start_usec, end_usec, visits, hosts, first_host_id, top_topic, topic_mix)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long gapUsec;
+    private final int batchSize;
+    private final String watermarkName;
+    private final DataGeneration dataGeneration;
+
+    public VisitSessionizer(JdbcTemplate jdbcTemplate,
+                            DataGeneration dataGeneration,
+                            @Value("${app.sessions.gap-minutes:30}") long gapMinutes,
+                            @Value("${app.history-import.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.gapUsec = gapMinutes * 60 * 1_000_000L;
+        this.batchSize = batchSize;
+        this.watermarkName = WATERMARK_PREFIX + gapUsec;
+        this.dataGeneration = dataGeneration;
+    }
+
+    public long getGapUsec() {
+        return gapUsec;
+    }
+
+    /**
+     * Re-sessionizes around visits just stored with times from
+     * {@code minTimeUsec} to {@code maxTimeUsec}, in the importing
+     * transaction, and returns the number of sessions written.
+     */
+    @Transactional
+    public int update(long minTimeUsec, long maxTimeUsec) {
+        if (!lockWatermark()) {
+            return rebuild();
+        }
+
+        long affectedFrom = minTimeUsec - gapUsec;
+        long affectedTo = maxTimeUsec + gapUsec;
+        long[] range = {minTimeUsec, maxTimeUsec};
+        jdbcTemplate.query(AFFECTED_SQL, (RowCallbackHandler) rs -> {
+            long firstStart = rs.getLong("first_start");
+            if (!rs.wasNull()) {
+                range[0] = Math.min(range[0], firstStart);
+                range[1] = Math.max(range[1], rs.getLong("last_end"));
+            }
+        }, affectedFrom, affectedTo);
+        jdbcTemplate.update(DELETE_AFFECTED_SQL, affectedFrom, affectedTo);
+        int written = sessionize(range[0], range[1]);
+        jdbcTemplate.update("UPDATE refresh_watermarks SET completed_at = now() WHERE name = ?", watermarkName);
+        return written;
+    }
+
+    /**
+     * Recomputes the topic mix of every session holding a visit of one of
+     * {@code hostIds}, after their predictions changed, and returns the
+     * number of sessions written. Session boundaries depend only on visit
+     * times, so each affected session is sessionized again over its own
+     * span and nothing else moves.
+     */
+    @Transactional
+    public int retagHosts(Collection<Long> hostIds) {
+        if (hostIds.isEmpty()) {
+            return 0;
+        }
+        if (!lockWatermark()) {
+            return rebuild();
+        }
+
+        List<long[]> affected = new ArrayList<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SESSIONS_OF_HOSTS_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", hostIds.toArray()));
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            affected.add(new long[]{rs.getLong("id"), rs.getLong("start_usec"), rs.getLong("end_usec")});
+        });
+        if (affected.isEmpty()) {
+            return 0;
+        }
+
+        Long[] ids = affected.stream().map(session -> session[0]).toArray(Long[]::new);
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(DELETE_SESSIONS_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        });
+        int written = 0;
+        for (long[] session : affected) {
+            written += sessionize(session[1], session[2]);
+        }
+        return written;
+    }
+
+    /** Drops every session and sessionizes all visits with the configured gap. */
+    @Transactional
+    public int rebuild() {
+        long started = System.nanoTime();
+        jdbcTemplate.update(INSERT_WATERMARK_SQL, watermarkName);
+        jdbcTemplate.query(LOCK_WATERMARK_SQL, (RowCallbackHandler) rs -> { }, watermarkName);
+        jdbcTemplate.update("DELETE FROM refresh_watermarks WHERE name LIKE ? AND name <> ?",
+                WATERMARK_PREFIX + "%", watermarkName);
+        jdbcTemplate.execute("TRUNCATE sessions RESTART IDENTITY");
+
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(max(id), 0) FROM visits", Long.class);
+        int written = sessionize(Long.MIN_VALUE, Long.MAX_VALUE);
+        jdbcTemplate.update("UPDATE refresh_watermarks SET last_url_id = ?, completed_at = now() WHERE name = ?",
+                maxId, watermarkName);
+        dataGeneration.bump();
+        log.info("Rebuilt {} sessions with a {} minute gap in {} ms", written, gapUsec / 60_000_000L,
+                (System.nanoTime() - started) / 1_000_000L);
+        return written;
+    }
+
+    /** Locks this gap's watermark row; false when it has none yet. */
+    private boolean lockWatermark() {
+        return !jdbcTemplate.queryForList(LOCK_WATERMARK_SQL, Long.class, watermarkName).isEmpty();
+    }
+
+    /** Walks the visits from {@code fromUsec} to {@code toUsec} in time order and inserts their sessions. */
+    private int sessionize(long fromUsec, long toUsec) {
+        List<Session> pending = new ArrayList<>();
+        int[] written = new int[1];
+        Session[] current = new Session[1];
+        TopicVector probs = new TopicVector();
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_VISITS_SQL);
+            ps.setFetchSize(1000);
+            ps.setLong(1, fromUsec);
+            ps.setLong(2, toUsec);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            long time = rs.getLong("time_usec");
+            long hostId = rs.getLong("host_id");
+            Session session = current[0];
+            if (session == null || time - session.end > gapUsec) {
+                if (session != null) {
+                    pending.add(session);
+                    if (pending.size() == batchSize) {
+                        written[0] += insert(pending);
+                    }
+                }
+                session = new Session(time, hostId);
+                current[0] = session;
+            }
+            probs.decode(rs.getBytes("probs"));
+            session.add(time, hostId, probs);
+        });
+        if (current[0] != null) {
+            pending.add(current[0]);
+        }
+        written[0] += insert(pending);
+        return written[0];
+    }
+
+    private int insert(List<Session> sessions) {
+        if (sessions.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SESSION_SQL, sessions, batchSize, (ps, session) -> {
+            TopicVector mix = session.mix();
+            Topic top = mix.argmax();
+            ps.setLong(1, session.start);
+            ps.setLong(2, session.end);
+            ps.setLong(3, session.visits);
+            ps.setLong(4, session.hosts.size());
+            ps.setLong(5, session.firstHostId);
+            ps.setString(6, top != null ? top.getKey() : null);
+            ps.setBytes(7, mix.isEmpty() ? null : mix.toBytes());
+        });
+        int count = sessions.size();
+        sessions.clear();
+        return count;
+    }
+
+    /** Running totals of one session while the visits are walked. */
+    private static final class Session {
+        final long start;
+        final long firstHostId;
+        final Set<Long> hosts = new HashSet<>();
+        final double[] probSums = new double[Topic.COUNT];
+        long end;
+        long visits;
+        long visitsWithProbs;
+
+        Session(long start, long firstHostId) {
+            this.start = start;
+            this.end = start;
+            this.firstHostId = firstHostId;
+        }
+
+        void add(long time, long hostId, TopicVector probs) {
+            end = time;
+            visits++;
+            hosts.add(hostId);
+            if (probs.isEmpty()) {
+                return;
+            }
+            visitsWithProbs++;
+            for (Topic topic : TOPICS) {
+                double p = probs.get(topic);
+                if (!Double.isNaN(p)) {
+                    probSums[topic.ordinal()] += p;
+                }
+            }
+        }
+
+        TopicVector mix() {
+            TopicVector mix = new TopicVector();
+            if (visitsWithProbs > 0) {
+                for (Topic topic : TOPICS) {
+                    mix.set(topic, probSums[topic.ordinal()] / visitsWithProbs);
+                }
+            }
+            return mix;
+        }
+    }
+}
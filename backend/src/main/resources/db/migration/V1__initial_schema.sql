@@ -0,0 +1,71 @@
+CREATE TABLE hosts (
+    id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    host VARCHAR(255),
+    CONSTRAINT uk_hosts_host UNIQUE (host)
+);
+
+CREATE TABLE host_stats (
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    host_id            BIGINT NOT NULL,
+    pred_topic         VARCHAR(255),
+    pred_prob          DOUBLE PRECISION,
+    prob_news          DOUBLE PRECISION,
+    prob_shopping      DOUBLE PRECISION,
+    prob_social        DOUBLE PRECISION,
+    prob_video         DOUBLE PRECISION,
+    prob_education     DOUBLE PRECISION,
+    prob_work          DOUBLE PRECISION,
+    prob_finance       DOUBLE PRECISION,
+    prob_travel        DOUBLE PRECISION,
+    prob_gaming        DOUBLE PRECISION,
+    prob_entertainment DOUBLE PRECISION,
+    prob_tech          DOUBLE PRECISION,
+    prob_services      DOUBLE PRECISION,
+    prob_health        DOUBLE PRECISION,
+    prob_government    DOUBLE PRECISION,
+    prob_other         DOUBLE PRECISION,
+    updated_at         TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT uk_host_stats_host UNIQUE (host_id),
+    CONSTRAINT fk_host_stats_host FOREIGN KEY (host_id) REFERENCES hosts (id)
+);
+
+CREATE INDEX idx_host_stats_topic_host ON host_stats (pred_topic, host_id);
+
+CREATE TABLE urls (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title     TEXT,
+    url       TEXT,
+    time_usec BIGINT,
+    url_hash  BIGINT,
+    host_id   BIGINT NOT NULL,
+    CONSTRAINT uk_urls_url_hash_time UNIQUE (url_hash, time_usec),
+    CONSTRAINT fk_urls_host FOREIGN KEY (host_id) REFERENCES hosts (id)
+);
+
+CREATE INDEX idx_urls_time_id ON urls (time_usec, id);
+CREATE INDEX idx_urls_host_time_id ON urls (host_id, time_usec, id);
+
+CREATE TABLE host_edges (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    source_host_id BIGINT NOT NULL,
+    target_host_id BIGINT NOT NULL,
+    weight         BIGINT NOT NULL,
+    CONSTRAINT uk_host_edges_pair UNIQUE (source_host_id, target_host_id),
+    CONSTRAINT fk_host_edges_source FOREIGN KEY (source_host_id) REFERENCES hosts (id),
+    CONSTRAINT fk_host_edges_target FOREIGN KEY (target_host_id) REFERENCES hosts (id)
+);
+
+CREATE INDEX idx_host_edges_weight ON host_edges (weight);
+
+CREATE TABLE refresh_watermarks (
+    name         VARCHAR(255) PRIMARY KEY,
+    last_url_id  BIGINT NOT NULL,
+    completed_at TIMESTAMP(6) WITH TIME ZONE
+);
+
+CREATE TABLE sample_imports (
+    checksum  VARCHAR(64) PRIMARY KEY,
+    path      TEXT,
+    row_count BIGINT NOT NULL,
+    loaded_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,41 @@
+-- The 15 prob_* columns become one bytea of big-endian doubles in topic
+-- order, matching TopicVector. Missing probabilities are stored as NaN.
+ALTER TABLE host_stats ADD COLUMN probs BYTEA;
+
+UPDATE host_stats SET probs =
+    float8send(COALESCE(prob_news, 'NaN')) ||
+    float8send(COALESCE(prob_shopping, 'NaN')) ||
+    float8send(COALESCE(prob_social, 'NaN')) ||
+    float8send(COALESCE(prob_video, 'NaN')) ||
+    float8send(COALESCE(prob_education, 'NaN')) ||
+    float8send(COALESCE(prob_work, 'NaN')) ||
+    float8send(COALESCE(prob_finance, 'NaN')) ||
+    float8send(COALESCE(prob_travel, 'NaN')) ||
+    float8send(COALESCE(prob_gaming, 'NaN')) ||
+    float8send(COALESCE(prob_entertainment, 'NaN')) ||
+    float8send(COALESCE(prob_tech, 'NaN')) ||
+    float8send(COALESCE(prob_services, 'NaN')) ||
+    float8send(COALESCE(prob_health, 'NaN')) ||
+    float8send(COALESCE(prob_government, 'NaN')) ||
+    float8send(COALESCE(prob_other, 'NaN'))
+WHERE num_nonnulls(
+    prob_news, prob_shopping, prob_social, prob_video, prob_education,
+    prob_work, prob_finance, prob_travel, prob_gaming, prob_entertainment,
+    prob_tech, prob_services, prob_health, prob_government, prob_other) > 0;
+
+ALTER TABLE host_stats
+    DROP COLUMN prob_news,
+    DROP COLUMN prob_shopping,
+    DROP COLUMN prob_social,
+    DROP COLUMN prob_video,
+    DROP COLUMN prob_education,
+    DROP COLUMN prob_work,
+    DROP COLUMN prob_finance,
+    DROP COLUMN prob_travel,
+    DROP COLUMN prob_gaming,
+    DROP COLUMN prob_entertainment,
+    DROP COLUMN prob_tech,
+    DROP COLUMN prob_services,
+    DROP COLUMN prob_health,
+    DROP COLUMN prob_government,
+    DROP COLUMN prob_other;
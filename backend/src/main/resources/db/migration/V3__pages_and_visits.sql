@@ -0,0 +1,75 @@
+-- Split urls into a page dictionary and a slim visits table. A page is one
+-- (url, title) pair; its url is stored without the scheme and host prefix
+-- when it starts with one (url_prefix 1 = https://<host>, 2 = http://<host>,
+-- 0 = stored verbatim). "urls" becomes a view with the old columns, so
+-- readers are unchanged.
+CREATE TABLE pages (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    host_id    BIGINT NOT NULL,
+    url_hash   BIGINT NOT NULL,
+    title_hash BIGINT NOT NULL,
+    url_prefix SMALLINT NOT NULL,
+    url_rest   TEXT,
+    title      TEXT,
+    CONSTRAINT uk_pages_url_title UNIQUE (url_hash, title_hash),
+    CONSTRAINT fk_pages_host FOREIGN KEY (host_id) REFERENCES hosts (id)
+);
+
+CREATE INDEX idx_pages_host ON pages (host_id);
+
+CREATE TABLE visits (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    page_id   BIGINT NOT NULL,
+    time_usec BIGINT,
+    CONSTRAINT uk_visits_page_time UNIQUE (page_id, time_usec),
+    CONSTRAINT fk_visits_page FOREIGN KEY (page_id) REFERENCES pages (id)
+);
+
+CREATE INDEX idx_visits_time_id ON visits (time_usec, id);
+
+-- title_hash is the first 8 bytes of md5(title) as a signed bigint, 0 for
+-- no title; PageUrls.titleHash computes the same value in Java.
+INSERT INTO pages (host_id, url_hash, title_hash, url_prefix, url_rest, title)
+SELECT DISTINCT ON (u.url_hash, u.title)
+       u.host_id,
+       u.url_hash,
+       COALESCE(('x' || left(md5(u.title), 16))::bit(64)::bigint, 0),
+       CASE
+           WHEN starts_with(u.url, 'https://' || h.host) THEN 1
+           WHEN starts_with(u.url, 'http://' || h.host) THEN 2
+           ELSE 0
+       END,
+       CASE
+           WHEN starts_with(u.url, 'https://' || h.host) THEN substr(u.url, length('https://' || h.host) + 1)
+           WHEN starts_with(u.url, 'http://' || h.host) THEN substr(u.url, length('http://' || h.host) + 1)
+           ELSE u.url
+       END,
+       u.title
+FROM urls u
+JOIN hosts h ON h.id = u.host_id
+ORDER BY u.url_hash, u.title, u.id;
+
+INSERT INTO visits (id, page_id, time_usec)
+SELECT u.id, p.id, u.time_usec
+FROM urls u
+JOIN pages p ON p.url_hash = u.url_hash AND p.title IS NOT DISTINCT FROM u.title
+ON CONFLICT (page_id, time_usec) DO NOTHING;
+
+SELECT setval(pg_get_serial_sequence('visits', 'id'), COALESCE(max(id), 0) + 1, false) FROM visits;
+
+DROP TABLE urls;
+
+CREATE VIEW urls AS
+SELECT v.id,
+       p.title,
+       CASE p.url_prefix
+           WHEN 1 THEN 'https://' || h.host || p.url_rest
+           WHEN 2 THEN 'http://' || h.host || p.url_rest
+           ELSE p.url_rest
+       END AS url,
+       v.time_usec,
+       p.url_hash,
+       p.host_id
+FROM visits v
+LEFT JOIN pages p ON p.id = v.page_id
+LEFT JOIN hosts h ON h.id = p.host_id;
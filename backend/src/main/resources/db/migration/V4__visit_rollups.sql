@@ -0,0 +1,37 @@
+-- Per-hour and per-day visit counts by host and by topic, maintained at
+-- ingest time (VisitRollups). bucket is the TimeBucket name. A host counts
+-- under its current pred_topic, 'other' when it has none.
+CREATE TABLE host_rollups (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    bucket            VARCHAR(255) NOT NULL,
+    bucket_start_usec BIGINT NOT NULL,
+    host_id           BIGINT NOT NULL,
+    visits            BIGINT NOT NULL,
+    CONSTRAINT uk_host_rollups_bucket_host UNIQUE (bucket, bucket_start_usec, host_id),
+    CONSTRAINT fk_host_rollups_host FOREIGN KEY (host_id) REFERENCES hosts (id)
+);
+
+CREATE INDEX idx_host_rollups_host ON host_rollups (host_id, bucket, bucket_start_usec);
+
+CREATE TABLE topic_rollups (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    bucket            VARCHAR(255) NOT NULL,
+    bucket_start_usec BIGINT NOT NULL,
+    topic             VARCHAR(255) NOT NULL,
+    visits            BIGINT NOT NULL,
+    hosts             BIGINT NOT NULL,
+    CONSTRAINT uk_topic_rollups_bucket_topic UNIQUE (bucket, bucket_start_usec, topic)
+);
+
+INSERT INTO host_rollups (bucket, bucket_start_usec, host_id, visits)
+SELECT b.bucket, (u.time_usec / b.usec) * b.usec, u.host_id, count(*)
+FROM urls u
+CROSS JOIN (VALUES ('HOUR', 3600000000::bigint), ('DAY', 86400000000::bigint)) AS b(bucket, usec)
+WHERE u.time_usec IS NOT NULL
+GROUP BY 1, 2, 3;
+
+INSERT INTO topic_rollups (bucket, bucket_start_usec, topic, visits, hosts)
+SELECT r.bucket, r.bucket_start_usec, COALESCE(s.pred_topic, 'other'), sum(r.visits), count(*)
+FROM host_rollups r
+LEFT JOIN host_stats s ON s.host_id = r.host_id
+GROUP BY r.bucket, r.bucket_start_usec, 3;
@@ -0,0 +1,18 @@
+-- Browsing sessions: runs of visits with no idle gap longer than the
+-- configured app.sessions.gap-minutes. Maintained by VisitSessionizer;
+-- topic_mix is the mean host_stats.probs of the session's visits in
+-- TopicVector layout, top_topic its most likely topic.
+CREATE TABLE sessions (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    start_usec    BIGINT NOT NULL,
+    end_usec      BIGINT NOT NULL,
+    visits        BIGINT NOT NULL,
+    hosts         BIGINT NOT NULL,
+    first_host_id BIGINT NOT NULL,
+    top_topic     VARCHAR(255),
+    topic_mix     BYTEA,
+    CONSTRAINT fk_sessions_first_host FOREIGN KEY (first_host_id) REFERENCES hosts (id)
+);
+
+CREATE INDEX idx_sessions_start ON sessions (start_usec);
+CREATE INDEX idx_sessions_end ON sessions (end_usec);
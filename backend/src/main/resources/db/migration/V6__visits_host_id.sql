@@ -0,0 +1,30 @@
+-- Copy each visit's host_id from its page, so a single-host page of
+-- history is one backward range scan on (host_id, time_usec, id), as it
+-- was on urls before V3. A page's host never changes, so the copy cannot
+-- go stale. "urls" now takes host_id from visits.
+ALTER TABLE visits ADD COLUMN host_id BIGINT;
+
+UPDATE visits v
+SET host_id = p.host_id
+FROM pages p
+WHERE p.id = v.page_id;
+
+ALTER TABLE visits ALTER COLUMN host_id SET NOT NULL;
+ALTER TABLE visits ADD CONSTRAINT fk_visits_host FOREIGN KEY (host_id) REFERENCES hosts (id);
+
+CREATE INDEX idx_visits_host_time_id ON visits (host_id, time_usec, id);
+
+CREATE OR REPLACE VIEW urls AS
+SELECT v.id,
+       p.title,
+       CASE p.url_prefix
+           WHEN 1 THEN 'https://' || h.host || p.url_rest
+           WHEN 2 THEN 'http://' || h.host || p.url_rest
+           ELSE p.url_rest
+       END AS url,
+       v.time_usec,
+       p.url_hash,
+       v.host_id
+FROM visits v
+LEFT JOIN pages p ON p.id = v.page_id
+LEFT JOIN hosts h ON h.id = v.host_id;
@@ -0,0 +1,3 @@
+-- Id ranges below last_url_id that were still uncommitted when a refresh
+-- ran, in the IdGaps serialized form. NULL means none are tracked.
+ALTER TABLE refresh_watermarks ADD COLUMN open_ranges BYTEA;
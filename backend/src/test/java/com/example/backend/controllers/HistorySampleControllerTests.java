@@ -0,0 +1,20 @@
+package com.example.backend.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HistorySampleControllerTests {
+
+	@Test
+	void unknownStreamFormatIsABadRequest() {
+		HistorySampleController controller = new HistorySampleController(null, null, null);
+
+		ResponseStatusException e = assertThrows(ResponseStatusException.class,
+				() -> controller.streamHistorySample("xml"));
+		assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+	}
+}
@@ -0,0 +1,22 @@
+package com.example.backend.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HistorySearchControllerTests {
+
+	@Test
+	void limitOutOfRangeIsABadRequest() {
+		HistorySearchController controller = new HistorySearchController(null);
+
+		for (int limit : new int[]{0, 101}) {
+			ResponseStatusException e = assertThrows(ResponseStatusException.class,
+					() -> controller.search("news", limit, true));
+			assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+		}
+	}
+}
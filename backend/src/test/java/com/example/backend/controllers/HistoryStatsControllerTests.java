@@ -0,0 +1,35 @@
+package com.example.backend.controllers;
+
+import com.example.backend.models.TimeBucket;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HistoryStatsControllerTests {
+
+	@Test
+	void parsesBucketsInAnyCase() {
+		assertEquals(TimeBucket.HOUR, HistoryStatsController.parseBucket("hour"));
+		assertEquals(TimeBucket.DAY, HistoryStatsController.parseBucket("DAY"));
+	}
+
+	@Test
+	void unknownBucketIsABadRequest() {
+		ResponseStatusException e = assertThrows(ResponseStatusException.class,
+				() -> HistoryStatsController.parseBucket("week"));
+		assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+	}
+
+	@Test
+	void limitOutOfRangeIsABadRequest() {
+		assertEquals(1000, HistoryStatsController.checkLimit(1000));
+		for (int limit : new int[]{0, -5, 1001}) {
+			ResponseStatusException e = assertThrows(ResponseStatusException.class,
+					() -> HistoryStatsController.checkLimit(limit));
+			assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.example.backend.controllers;
+
+import com.example.backend.services.HostSimilarityIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HostSimilarityControllerTests {
+
+	@Test
+	void parsesMetricAndMode() {
+		assertEquals(HostSimilarityIndex.Metric.COSINE, HostSimilarityController.parseMetric("cosine"));
+		assertFalse(HostSimilarityController.parseApproximate("exact"));
+		assertTrue(HostSimilarityController.parseApproximate("Approx"));
+	}
+
+	@Test
+	void badParametersAreBadRequests() {
+		assertEquals(500, HostSimilarityController.checkK(500));
+		assertBadRequest(() -> HostSimilarityController.checkK(0));
+		assertBadRequest(() -> HostSimilarityController.checkK(501));
+		assertBadRequest(() -> HostSimilarityController.parseMetric("manhattan"));
+		assertBadRequest(() -> HostSimilarityController.parseApproximate("fuzzy"));
+	}
+
+	private static void assertBadRequest(Runnable call) {
+		ResponseStatusException e = assertThrows(ResponseStatusException.class, call::run);
+		assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+	}
+}
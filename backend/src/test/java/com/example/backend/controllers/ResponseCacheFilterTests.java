@@ -0,0 +1,87 @@
+package com.example.backend.controllers;
+
+import com.example.backend.services.DataGeneration;
+import com.example.backend.services.ResponseCache;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCacheFilterTests {
+
+	private final DataGeneration dataGeneration = new DataGeneration();
+	private final ResponseCacheFilter filter = new ResponseCacheFilter(dataGeneration, new ResponseCache(16, 1 << 20),
+			true, List.of("/api/stats/"), false);
+	private final AtomicInteger controllerCalls = new AtomicInteger();
+
+	@Test
+	void answersMatchingEtagWithNotModifiedUntilDataChanges() throws Exception {
+		MockHttpServletResponse first = get(null, null);
+		String etag = first.getHeader(HttpHeaders.ETAG);
+		assertEquals(HttpServletResponse.SC_OK, first.getStatus());
+		assertEquals("[{\"topic\":\"news\"}]", first.getContentAsString());
+
+		MockHttpServletResponse second = get(etag, null);
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, second.getStatus());
+		assertEquals(1, controllerCalls.get());
+
+		dataGeneration.bump();
+		MockHttpServletResponse third = get(etag, null);
+		assertEquals(HttpServletResponse.SC_OK, third.getStatus());
+		assertNotEquals(etag, third.getHeader(HttpHeaders.ETAG));
+		assertEquals(2, controllerCalls.get());
+	}
+
+	@Test
+	void servesPrecompressedBodyFromCache() throws Exception {
+		get(null, null);
+		MockHttpServletResponse gzipped = get(null, "br;q=1.0, gzip;q=0.8");
+
+		assertEquals("gzip", gzipped.getHeader(HttpHeaders.CONTENT_ENCODING));
+		assertEquals(1, controllerCalls.get());
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+			assertArrayEquals("[{\"topic\":\"news\"}]".getBytes(StandardCharsets.UTF_8), in.readAllBytes());
+		}
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED,
+				get(gzipped.getHeader(HttpHeaders.ETAG), null).getStatus());
+	}
+
+	@Test
+	void parsesConditionalAndEncodingHeaders() {
+		assertTrue(ResponseCacheFilter.notModified("\"x\", W/\"abc-gzip\"", "abc"));
+		assertFalse(ResponseCacheFilter.notModified("\"abcd\"", "abc"));
+		assertFalse(ResponseCacheFilter.acceptsGzip("gzip;q=0, br"));
+		assertTrue(ResponseCacheFilter.acceptsGzip("deflate, GZIP"));
+	}
+
+	private MockHttpServletResponse get(String ifNoneMatch, String acceptEncoding) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/stats/topics");
+		request.setQueryString("from=1");
+		if (ifNoneMatch != null) {
+			request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+		}
+		if (acceptEncoding != null) {
+			request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, (req, res) -> {
+			controllerCalls.incrementAndGet();
+			res.setContentType("application/json");
+			res.getOutputStream().write("[{\"topic\":\"news\"}]".getBytes(StandardCharsets.UTF_8));
+		});
+		return response;
+	}
+}
@@ -0,0 +1,21 @@
+package com.example.backend.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SessionControllerTests {
+
+	@Test
+	void limitOutOfRangeIsABadRequest() {
+		assertEquals(1000, SessionController.checkLimit(1000));
+		for (int limit : new int[]{0, -1, 1001}) {
+			ResponseStatusException e = assertThrows(ResponseStatusException.class,
+					() -> SessionController.checkLimit(limit));
+			assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.example.backend.models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the boxed per-field layout the models used to have with
+ * {@link TopicVector}: bytes allocated per row and rows mapped per second
+ * from the stored form. A plain JUnit harness like {@code HistoryBenchmarkTests}
+ * rather than JMH, which the build does not carry; the figures are for
+ * comparing the two layouts, not absolute numbers. Run with -Dbenchmark=true.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TopicVectorBenchmarkTests {
+
+	private static final int ROWS = 200_000;
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int MEASURED_ROUNDS = 10;
+
+	@Test
+	void compareBoxedFieldsWithTopicVector() {
+		Random random = new Random(42);
+		double[][] source = new double[ROWS][Topic.COUNT];
+		byte[][] stored = new byte[ROWS][];
+		for (int i = 0; i < ROWS; i++) {
+			for (int t = 0; t < Topic.COUNT; t++) {
+				source[i][t] = random.nextDouble();
+			}
+			stored[i] = TopicVector.of(source[i]).toBytes();
+		}
+
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			mapBoxed(source);
+			mapVector(stored);
+		}
+
+		long boxedBytes = allocatedBytes(() -> mapBoxed(source));
+		long vectorBytes = allocatedBytes(() -> mapVector(stored));
+		double boxedRate = rowsPerSecond(() -> mapBoxed(source));
+		double vectorRate = rowsPerSecond(() -> mapVector(stored));
+
+		System.out.printf("boxed fields: %d bytes/row, %.0f rows/sec%n", boxedBytes / ROWS, boxedRate);
+		System.out.printf("topic vector: %d bytes/row, %.0f rows/sec%n", vectorBytes / ROWS, vectorRate);
+	}
+
+	private static List<BoxedProbabilities> mapBoxed(double[][] source) {
+		List<BoxedProbabilities> rows = new ArrayList<>(source.length);
+		for (double[] values : source) {
+			rows.add(new BoxedProbabilities(values));
+		}
+		return rows;
+	}
+
+	private static List<TopicVector> mapVector(byte[][] stored) {
+		List<TopicVector> rows = new ArrayList<>(stored.length);
+		for (byte[] bytes : stored) {
+			rows.add(TopicVector.fromBytes(bytes));
+		}
+		return rows;
+	}
+
+	private static long allocatedBytes(Runnable task) {
+		com.sun.management.ThreadMXBean threads =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().threadId();
+		long before = threads.getThreadAllocatedBytes(threadId);
+		task.run();
+		return threads.getThreadAllocatedBytes(threadId) - before;
+	}
+
+	private static double rowsPerSecond(Runnable task) {
+		long started = System.nanoTime();
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			task.run();
+		}
+		long elapsed = System.nanoTime() - started;
+		return (double) ROWS * MEASURED_ROUNDS * 1_000_000_000L / elapsed;
+	}
+
+	/** The 15 boxed fields MlDataResponse and HostStats used to carry. */
+	private static final class BoxedProbabilities {
+		private final Double news, shopping, social, video, education, work, finance, travel,
+				gaming, entertainment, tech, services, health, government, other;
+
+		BoxedProbabilities(double[] v) {
+			news = v[0];
+			shopping = v[1];
+			social = v[2];
+			video = v[3];
+			education = v[4];
+			work = v[5];
+			finance = v[6];
+			travel = v[7];
+			gaming = v[8];
+			entertainment = v[9];
+			tech = v[10];
+			services = v[11];
+			health = v[12];
+			government = v[13];
+			other = v[14];
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.example.backend.models;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopicVectorTests {
+
+	@Test
+	void argmaxAndTopKSkipMissingTopics() {
+		TopicVector vector = new TopicVector();
+		assertNull(vector.argmax());
+
+		vector.set(Topic.NEWS, 0.2);
+		vector.set(Topic.GAMING, 0.5);
+		vector.set(Topic.TECH, 0.3);
+		assertEquals(Topic.GAMING, vector.argmax());
+
+		Topic[] top = new Topic[2];
+		assertEquals(2, vector.topK(2, top));
+		assertArrayEquals(new Topic[]{Topic.GAMING, Topic.TECH}, top);
+
+		Topic[] all = new Topic[Topic.COUNT];
+		assertEquals(3, vector.topK(Topic.COUNT, all));
+		assertEquals(Topic.NEWS, all[2]);
+	}
+
+	@Test
+	void bytesRoundTripKeepsMissingValues() {
+		TopicVector vector = new TopicVector();
+		vector.set(Topic.OTHER, 0.125);
+
+		byte[] bytes = vector.toBytes();
+		assertEquals(TopicVector.BYTES, bytes.length);
+
+		TopicVector decoded = TopicVector.fromBytes(bytes);
+		assertEquals(vector, decoded);
+		assertEquals(0.125, decoded.getOrNull(Topic.OTHER));
+		assertNull(decoded.getOrNull(Topic.NEWS));
+		assertTrue(TopicVector.fromBytes(null).isEmpty());
+	}
+
+	@Test
+	void responseKeepsProbabilityJsonShape() {
+		JsonMapper mapper = JsonMapper.builder().build();
+		MlDataResponse row = mapper.readValue(
+				"{\"host\":\"a.example\",\"prob_news\":0.25,\"prob_other\":0.75}", MlDataResponse.class);
+
+		assertEquals(0.25, row.topics().get(Topic.NEWS));
+		assertEquals(Topic.OTHER, row.topics().argmax());
+
+		JsonNode json = mapper.valueToTree(row);
+		assertEquals(0.25, json.get("prob_news").asDouble());
+		assertTrue(json.get("prob_tech").isNull());
+		for (Topic topic : Topic.values()) {
+			assertTrue(json.has(topic.getProbabilityKey()));
+		}
+		assertFalse(json.has("probs"));
+	}
+}
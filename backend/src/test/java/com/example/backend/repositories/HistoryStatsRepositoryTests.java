@@ -0,0 +1,122 @@
+package com.example.backend.repositories;
+
+import com.example.backend.models.HostCount;
+import com.example.backend.models.HostTransition;
+import com.example.backend.models.MlDataResponse;
+import com.example.backend.models.TimeBucket;
+import com.example.backend.models.TimeBucketCount;
+import com.example.backend.models.TopicCount;
+import com.example.backend.services.HistoryImportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the SQL aggregates against five visits in a day of their own:
+ * a and b alternate within the gap, c comes back alone hours later.
+ */
+@SpringBootTest(properties = "app.history-sample.load-on-startup=false")
+class HistoryStatsRepositoryTests {
+
+	private static final long MINUTE_USEC = 60 * 1_000_000L;
+	private static final long HOUR_USEC = 60 * MINUTE_USEC;
+	private static final long DAY_USEC = TimeBucket.DAY.getUsec();
+
+	@Autowired
+	private HistoryStatsRepository historyStatsRepository;
+
+	@Autowired
+	private HistoryImportService historyImportService;
+
+	private long day;
+	private String a;
+	private String b;
+	private String c;
+
+	@BeforeEach
+	void importFixture() {
+		// A whole day far past any real history, so only the fixture falls in it.
+		day = 5_000_000_000_000_000L / DAY_USEC * DAY_USEC + ThreadLocalRandom.current().nextLong(1_000_000) * DAY_USEC;
+		a = "a-" + day + ".example";
+		b = "b-" + day + ".example";
+		c = "c-" + day + ".example";
+		historyImportService.updateHistorySample(List.of(
+				row(a, "tech", day),
+				row(b, "news", day + 10 * MINUTE_USEC),
+				row(a, "tech", day + 20 * MINUTE_USEC),
+				row(c, "tech", day + 3 * HOUR_USEC),
+				row(c, "tech", day + 3 * HOUR_USEC + MINUTE_USEC)));
+	}
+
+	@Test
+	void countsVisitsAndDistinctHostsPerTopic() {
+		List<TopicCount> topics = historyStatsRepository.countVisitsByTopic(day, day + DAY_USEC);
+
+		assertEquals(2, topics.size());
+		assertEquals("tech", topics.get(0).getTopic());
+		assertEquals(4, topics.get(0).getVisits());
+		assertEquals(2, topics.get(0).getHosts());
+		assertEquals("news", topics.get(1).getTopic());
+		assertEquals(1, topics.get(1).getVisits());
+		assertEquals(1, topics.get(1).getHosts());
+	}
+
+	@Test
+	void ranksHostsWithTheirFirstAndLastVisit() {
+		List<HostCount> hosts = historyStatsRepository.findTopHosts(day, day + DAY_USEC, 2);
+
+		assertEquals(List.of(a, c), hosts.stream().map(HostCount::getHost).toList());
+		assertEquals(2, hosts.get(0).getVisits());
+		assertEquals(day, hosts.get(0).getFirst_visit_usec());
+		assertEquals(day + 20 * MINUTE_USEC, hosts.get(0).getLast_visit_usec());
+		assertEquals(day + 3 * HOUR_USEC + MINUTE_USEC, hosts.get(1).getLast_visit_usec());
+	}
+
+	@Test
+	void bucketsByHourWithDistinctHosts() {
+		List<TimeBucketCount> buckets = historyStatsRepository.countVisitsByBucket(TimeBucket.HOUR, day, day + DAY_USEC);
+
+		assertEquals(2, buckets.size());
+		assertEquals(day, buckets.get(0).getBucket_start_usec());
+		assertEquals(3, buckets.get(0).getVisits());
+		assertEquals(2, buckets.get(0).getHosts());
+		assertEquals(day + 3 * HOUR_USEC, buckets.get(1).getBucket_start_usec());
+		assertEquals(2, buckets.get(1).getVisits());
+		assertEquals(1, buckets.get(1).getHosts());
+	}
+
+	@Test
+	void countsHostChangesWithinTheGapOnly() {
+		List<HostTransition> transitions = historyStatsRepository.findHostTransitions(
+				day, day + DAY_USEC, 30 * MINUTE_USEC, 10);
+
+		// a -> b -> a within the gap; a -> c is hours apart and c -> c is no change.
+		assertEquals(1, transitions.size());
+		assertEquals(Set.of(a, b), Set.of(transitions.get(0).getSource(), transitions.get(0).getTarget()));
+		assertEquals(2, transitions.get(0).getWeight());
+
+		List<HostTransition> wide = historyStatsRepository.findHostTransitions(
+				day, day + DAY_USEC, 4 * HOUR_USEC, 10);
+		assertEquals(2, wide.size());
+		assertEquals(1, wide.get(1).getWeight());
+		assertEquals(Set.of(a, c), Set.of(wide.get(1).getSource(), wide.get(1).getTarget()));
+	}
+
+	private static MlDataResponse row(String host, String topic, long timeUsec) {
+		MlDataResponse row = new MlDataResponse();
+		row.setHost(host);
+		row.setUrl("https://" + host + "/" + timeUsec);
+		row.setTitle("Visit " + timeUsec);
+		row.setTime_usec(timeUsec);
+		row.setPred_topic(topic);
+		row.setPred_prob(0.9);
+		return row;
+	}
+}
@@ -0,0 +1,354 @@
+package com.example.backend.services;
+
+import com.example.backend.models.HostCount;
+import com.example.backend.models.MlDataRequest;
+import com.example.backend.models.MlDataResponse;
+import com.example.backend.models.SearchHit;
+import com.example.backend.models.SimilarHost;
+import com.example.backend.models.TimeBucket;
+import com.example.backend.models.TimeBucketCount;
+import com.example.backend.models.Topic;
+import com.example.backend.models.TopicCount;
+import com.example.backend.models.TopicVector;
+import com.example.backend.repositories.HistoryStatsRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "app.history-sample.load-on-startup=false")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class HistoryBenchmarkTests {
+
+	private static final int LARGE_DATASET_ROWS = 1_000_000;
+
+	@Autowired
+	private HistoryImportService historyImportService;
+
+	@Autowired
+	private HistoryBulkImporter historyBulkImporter;
+
+	@Autowired
+	private HistoryQueryService historyQueryService;
+
+	@Autowired
+	private HistoryStatsRepository historyStatsRepository;
+
+	@Autowired
+	private ColumnarHistoryStore columnarHistoryStore;
+
+	@Autowired
+	private HistorySearchIndex historySearchIndex;
+
+	@Autowired
+	private HostSimilarityIndex hostSimilarityIndex;
+
+	@Autowired
+	private VisitSessionizer visitSessionizer;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Value("${app.ml.history-sample.path}")
+	private String historySamplePath;
+
+	@Test
+	void compareBulkWithPerRowImport() {
+		List<MlDataResponse> rows = historyImportService.parseJson(historySamplePath);
+
+		truncate();
+		long started = System.nanoTime();
+		historyImportService.updateHistorySamplePerRow(rows);
+		long perRowNanos = System.nanoTime() - started;
+		long perRowCount = countUrls();
+
+		truncate();
+		HistoryBulkImporter.ImportStats bulk = historyBulkImporter.importRows(rows);
+		long bulkCount = countUrls();
+
+		assertEquals(perRowCount, bulkCount);
+		System.out.printf("per-row: %d rows in %d ms (%.0f rows/sec)%n",
+				rows.size(), perRowNanos / 1_000_000L, rows.size() * 1_000_000_000.0 / perRowNanos);
+		System.out.printf("bulk:    %d rows in %d ms (%.0f rows/sec)%n",
+				bulk.rows(), bulk.elapsedMillis(), bulk.rowsPerSecond());
+	}
+
+	@Test
+	void streamLargeDatasetWithFlatHeap() {
+		truncate();
+		List<MlDataResponse> batch = new ArrayList<>();
+		for (int i = 0; i < LARGE_DATASET_ROWS; i++) {
+			batch.add(syntheticRow(i));
+			if (batch.size() == 50_000) {
+				historyBulkImporter.importRows(batch);
+				batch.clear();
+			}
+		}
+		historyBulkImporter.importRows(batch);
+
+		System.gc();
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		long baselineHeap = memory.getHeapMemoryUsage().getUsed();
+		long[] peakHeap = {baselineHeap};
+		long[] firstRowNanos = {-1};
+		long[] streamed = {0};
+
+		long started = System.nanoTime();
+		historyQueryService.streamHistorySample(row -> {
+			if (firstRowNanos[0] < 0) {
+				firstRowNanos[0] = System.nanoTime() - started;
+			}
+			if (++streamed[0] % 10_000 == 0) {
+				peakHeap[0] = Math.max(peakHeap[0], memory.getHeapMemoryUsage().getUsed());
+			}
+		});
+		long totalNanos = System.nanoTime() - started;
+
+		assertEquals(LARGE_DATASET_ROWS, streamed[0]);
+		System.out.printf("stream: %d rows, first row after %d ms, total %d ms, peak heap +%d MB%n",
+				streamed[0], firstRowNanos[0] / 1_000_000L, totalNanos / 1_000_000L,
+				(peakHeap[0] - baselineHeap) / (1024 * 1024));
+	}
+
+	@Test
+	void compareColumnarStoreWithSql() {
+		truncate();
+		List<MlDataResponse> batch = new ArrayList<>();
+		for (int i = 0; i < LARGE_DATASET_ROWS; i++) {
+			batch.add(syntheticRow(i));
+			if (batch.size() == 50_000) {
+				historyBulkImporter.importRows(batch);
+				batch.clear();
+			}
+		}
+		historyBulkImporter.importRows(batch);
+		columnarHistoryStore.catchUp();
+
+		Long from = 1_700_000_000_000_000L + 100_000 * 1_000_000L;
+		Long to = from + 500_000 * 1_000_000L;
+
+		List<TopicCount> sqlTopics = time("sql topics",
+				() -> historyStatsRepository.countVisitsByTopic(from, to));
+		List<TopicCount> storeTopics = time("columnar topics",
+				() -> columnarHistoryStore.countVisitsByTopic(from, to));
+		assertEquals(topicMap(sqlTopics), topicMap(storeTopics));
+
+		List<HostCount> sqlHosts = time("sql hosts",
+				() -> historyStatsRepository.findTopHosts(from, to, 50));
+		List<HostCount> storeHosts = time("columnar hosts",
+				() -> columnarHistoryStore.findTopHosts(from, to, 50));
+		assertEquals(sqlHosts.stream().map(HostCount::getHost).toList(),
+				storeHosts.stream().map(HostCount::getHost).toList());
+
+		List<TimeBucketCount> sqlBuckets = time("sql activity",
+				() -> historyStatsRepository.countVisitsByBucket(TimeBucket.HOUR, from, to));
+		List<TimeBucketCount> storeBuckets = time("columnar activity",
+				() -> columnarHistoryStore.countVisitsByBucket(TimeBucket.HOUR, from, to));
+		assertEquals(sqlBuckets.stream().map(TimeBucketCount::getHosts).toList(),
+				storeBuckets.stream().map(TimeBucketCount::getHosts).toList());
+	}
+
+	@Test
+	void compareSearchIndexWithIlike() {
+		truncate();
+		List<MlDataResponse> batch = new ArrayList<>();
+		for (int i = 0; i < LARGE_DATASET_ROWS; i++) {
+			batch.add(syntheticRow(i));
+			if (batch.size() == 50_000) {
+				historyBulkImporter.importRows(batch);
+				batch.clear();
+			}
+		}
+		historyBulkImporter.importRows(batch);
+		long started = System.nanoTime();
+		historySearchIndex.catchUp();
+		System.out.printf("%-18s %d ms%n", "index build:", (System.nanoTime() - started) / 1_000_000L);
+
+		List<String> sqlUrls = time("sql ilike", () -> jdbcTemplate.queryForList(
+				"SELECT url FROM urls WHERE title ILIKE '%page 424242%' OR url ILIKE '%424242%'", String.class));
+		List<SearchHit> exact = time("index exact", () -> historySearchIndex.search("page 424242", 20, false));
+		assertEquals(sqlUrls, exact.stream().map(SearchHit::getUrl).toList());
+
+		List<SearchHit> prefix = time("index prefix", () -> historySearchIndex.search("host-42 synth", 20, true));
+		assertEquals(20, prefix.size());
+	}
+
+	@Test
+	void similarHostsOverHundredThousandHosts() {
+		truncate();
+		Random random = new Random(42);
+		List<MlDataResponse> batch = new ArrayList<>();
+		for (int i = 0; i < 100_000; i++) {
+			MlDataResponse row = syntheticRow(i);
+			row.setHost("similar-" + i + ".example");
+			double[] probs = new double[Topic.COUNT];
+			for (int t = 0; t < Topic.COUNT; t++) {
+				probs[t] = random.nextDouble() * (t == i % Topic.COUNT ? 4 : 1);
+			}
+			row.topics().copyFrom(TopicVector.of(probs));
+			batch.add(row);
+			if (batch.size() == 10_000) {
+				historyBulkImporter.upsertPredictions(batch);
+				batch.clear();
+			}
+		}
+		hostSimilarityIndex.load();
+
+		List<SimilarHost> exact = time("exact cosine",
+				() -> hostSimilarityIndex.findSimilar("similar-7.example", 20, HostSimilarityIndex.Metric.COSINE, false, 0));
+		List<SimilarHost> approximate = time("approx cosine",
+				() -> hostSimilarityIndex.findSimilar("similar-7.example", 20, HostSimilarityIndex.Metric.COSINE, true, 2));
+		time("exact js",
+				() -> hostSimilarityIndex.findSimilar("similar-7.example", 20, HostSimilarityIndex.Metric.JS, false, 0));
+		time("approx js",
+				() -> hostSimilarityIndex.findSimilar("similar-7.example", 20, HostSimilarityIndex.Metric.JS, true, 2));
+
+		long recalled = approximate.stream().map(SimilarHost::getHost)
+				.filter(host -> exact.stream().anyMatch(e -> e.getHost().equals(host)))
+				.count();
+		System.out.printf("approx recall@20: %.2f%n", recalled / 20.0);
+	}
+
+	@Test
+	void incrementalSessionsMatchFullRebuild() {
+		truncate();
+		List<MlDataResponse> batch = new ArrayList<>();
+		long started = System.nanoTime();
+		for (int i = 0; i < LARGE_DATASET_ROWS; i++) {
+			MlDataResponse row = syntheticRow(i);
+			// An idle hour every 500 visits, and one late visit per batch.
+			row.setTime_usec(1_700_000_000_000_000L + i * 1_000_000L + (i / 500) * 3_600_000_000L
+					- (i % 10_000 == 9_999 ? 7_200_000_000L : 0));
+			batch.add(row);
+			if (batch.size() == 10_000) {
+				historyImportService.updateHistorySample(batch);
+				batch.clear();
+			}
+		}
+		historyImportService.updateHistorySample(batch);
+		long incrementalNanos = System.nanoTime() - started;
+		List<Map<String, Object>> incremental = sessions();
+
+		started = System.nanoTime();
+		visitSessionizer.rebuild();
+		long rebuildNanos = System.nanoTime() - started;
+
+		assertEquals(sessions(), incremental);
+		System.out.printf("sessions: %d, incremental total %d ms, full rebuild %d ms%n",
+				incremental.size(), incrementalNanos / 1_000_000L, rebuildNanos / 1_000_000L);
+	}
+
+	@Test
+	void compareColumnarWireFormatWithJson() {
+		ObjectMapper objectMapper = JsonMapper.builder().build();
+		List<MlDataRequest> requests = new ArrayList<>();
+		List<MlDataResponse> responses = new ArrayList<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 100_000; i++) {
+			MlDataResponse row = syntheticRow(i);
+			double[] probs = new double[Topic.COUNT];
+			for (int t = 0; t < Topic.COUNT; t++) {
+				probs[t] = random.nextDouble() / Topic.COUNT;
+			}
+			row.topics().copyFrom(TopicVector.of(probs));
+			responses.add(row);
+
+			MlDataRequest request = new MlDataRequest();
+			request.setHost(row.getHost());
+			request.setUrl(row.getUrl());
+			request.setTitle(row.getTitle());
+			request.setTime_usec(row.getTime_usec());
+			requests.add(request);
+		}
+
+		MlDataRequest[] requestArray = requests.toArray(MlDataRequest[]::new);
+		MlDataResponse[] responseArray = responses.toArray(MlDataResponse[]::new);
+		wireFormat("json request", requestArray, objectMapper::writeValueAsBytes,
+				bytes -> objectMapper.readValue(bytes, MlDataRequest[].class));
+		wireFormat("columns request", requests, HistoryColumns::writeRequests, HistoryColumns::readRequests);
+		wireFormat("json response", responseArray, objectMapper::writeValueAsBytes,
+				bytes -> objectMapper.readValue(bytes, MlDataResponse[].class));
+		List<MlDataResponse> decoded = wireFormat("columns response", responses,
+				HistoryColumns::writeResponses, HistoryColumns::readResponses);
+
+		assertEquals(responses.get(99_999).topics(), decoded.get(99_999).topics());
+	}
+
+	/** Prints the encoded size and the mean encode and decode time of 5 runs over 100k rows. */
+	private static <T, R> R wireFormat(String label, T rows, Function<T, byte[]> encode, Function<byte[], R> decode) {
+		byte[] bytes = encode.apply(rows);
+		R decoded = decode.apply(bytes);
+		long started = System.nanoTime();
+		for (int i = 0; i < 5; i++) {
+			bytes = encode.apply(rows);
+		}
+		long encodeNanos = (System.nanoTime() - started) / 5;
+		started = System.nanoTime();
+		for (int i = 0; i < 5; i++) {
+			decoded = decode.apply(bytes);
+		}
+		long decodeNanos = (System.nanoTime() - started) / 5;
+		System.out.printf("%-18s %,d bytes, encode %d ms, decode %d ms%n", label + ":", bytes.length,
+				encodeNanos / 1_000_000L, decodeNanos / 1_000_000L);
+		return decoded;
+	}
+
+	private List<Map<String, Object>> sessions() {
+		return jdbcTemplate.queryForList(
+				"SELECT start_usec, end_usec, visits, hosts, first_host_id, top_topic FROM sessions ORDER BY start_usec");
+	}
+
+	private static <T> T time(String label, Supplier<T> query) {
+		T result = query.get();
+		long started = System.nanoTime();
+		for (int i = 0; i < 5; i++) {
+			result = query.get();
+		}
+		System.out.printf("%-18s %d ms%n", label + ":", (System.nanoTime() - started) / 5_000_000L);
+		return result;
+	}
+
+	private static Map<String, Long> topicMap(List<TopicCount> counts) {
+		return counts.stream().collect(Collectors.toMap(TopicCount::getTopic, TopicCount::getVisits));
+	}
+
+	private static MlDataResponse syntheticRow(int i) {
+		MlDataResponse row = new MlDataResponse();
+		row.setHost("host-" + (i % 5_000) + ".example");
+		row.setUrl("https://host-" + (i % 5_000) + ".example/page/" + i);
+		row.setTitle("Synthetic page " + i);
+		row.setTime_usec(1_700_000_000_000_000L + i * 1_000_000L);
+		row.setPred_topic(Topic.ofIndex(i % 5_000 % Topic.COUNT).getKey());
+		row.setPred_prob(0.1);
+		return row;
+	}
+
+	private void truncate() {
+		jdbcTemplate.execute("TRUNCATE sessions, host_rollups, topic_rollups, visits, pages, host_edges, host_stats, hosts, sample_imports RESTART IDENTITY");
+		jdbcTemplate.update("DELETE FROM refresh_watermarks WHERE name LIKE 'sessions:%'");
+		columnarHistoryStore.clear();
+		historySearchIndex.clear();
+		hostSimilarityIndex.clear();
+	}
+
+	private long countUrls() {
+		Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM urls", Long.class);
+		return count != null ? count : 0;
+	}
+}
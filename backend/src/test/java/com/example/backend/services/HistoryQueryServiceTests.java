@@ -0,0 +1,101 @@
+package com.example.backend.services;
+
+import com.example.backend.models.HistoryPage;
+import com.example.backend.models.MlDataResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "app.history-sample.load-on-startup=false")
+class HistoryQueryServiceTests {
+
+	private static final long START = 1_700_000_000_000_000L;
+
+	@Autowired
+	private HistoryQueryService historyQueryService;
+
+	@Autowired
+	private HistoryImportService historyImportService;
+
+	@Test
+	void cursorsWalkEveryRowOnceNewestFirst() {
+		String host = "pages-" + System.nanoTime() + ".example";
+		// Two visits share a time, so the id breaks the tie.
+		historyImportService.updateHistorySample(List.of(
+				row(host, 0, START), row(host, 1, START + 1), row(host, 2, START + 1),
+				row(host, 3, START + 2), row(host, 4, START + 3)));
+
+		List<String> urls = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			HistoryPage page = historyQueryService.getHistoryPage(null, null, host, null, cursor, 2);
+			page.getItems().forEach(item -> urls.add(item.getUrl()));
+			cursor = page.getNext_cursor();
+			pages++;
+		} while (cursor != null);
+
+		assertEquals(3, pages);
+		assertEquals(List.of(url(host, 4), url(host, 3), url(host, 2), url(host, 1), url(host, 0)), urls);
+	}
+
+	@Test
+	void nextPageIsUnchangedByNewerInserts() {
+		String host = "pages-" + System.nanoTime() + ".example";
+		historyImportService.updateHistorySample(List.of(
+				row(host, 0, START), row(host, 1, START + 1), row(host, 2, START + 2), row(host, 3, START + 3)));
+
+		HistoryPage first = historyQueryService.getHistoryPage(null, null, host, null, null, 2);
+		assertEquals(List.of(url(host, 3), url(host, 2)), urls(first));
+		assertNotNull(first.getNext_cursor());
+
+		historyImportService.updateHistorySample(List.of(row(host, 4, START + 4), row(host, 5, START + 5)));
+
+		HistoryPage second = historyQueryService.getHistoryPage(null, null, host, null, first.getNext_cursor(), 2);
+		assertEquals(List.of(url(host, 1), url(host, 0)), urls(second));
+		assertNull(second.getNext_cursor());
+	}
+
+	@Test
+	void malformedCursorOrLimitIsABadRequest() {
+		for (String cursor : List.of("abc", "12", "12_x", "_5")) {
+			ResponseStatusException e = assertThrows(ResponseStatusException.class,
+					() -> historyQueryService.getHistoryPage(null, null, null, null, cursor, 10));
+			assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+		}
+		for (int limit : new int[]{0, -1, 1001}) {
+			ResponseStatusException e = assertThrows(ResponseStatusException.class,
+					() -> historyQueryService.getHistoryPage(null, null, null, null, null, limit));
+			assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+		}
+	}
+
+	private static List<String> urls(HistoryPage page) {
+		return page.getItems().stream().map(MlDataResponse::getUrl).toList();
+	}
+
+	private static String url(String host, int i) {
+		return "https://" + host + "/" + i;
+	}
+
+	private static MlDataResponse row(String host, int i, long timeUsec) {
+		MlDataResponse row = new MlDataResponse();
+		row.setHost(host);
+		row.setUrl(url(host, i));
+		row.setTitle("Page " + i);
+		row.setTime_usec(timeUsec);
+		row.setPred_topic("tech");
+		row.setPred_prob(0.5);
+		return row;
+	}
+}
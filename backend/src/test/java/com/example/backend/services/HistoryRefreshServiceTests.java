@@ -0,0 +1,172 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataResponse;
+import com.example.backend.repositories.RefreshWatermarksRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+		"app.history-sample.load-on-startup=false",
+		"app.ml.wire-format=json",
+		"app.ml.batch-size=2",
+		"app.ml.parallelism=1",
+		"app.ml.max-attempts=1",
+		"app.ml.cache.ttl-minutes=0"
+})
+class HistoryRefreshServiceTests {
+
+	private static final ObjectMapper objectMapper = JsonMapper.builder().build();
+	private static final HttpServer server = startStubServer();
+	private static final AtomicInteger calls = new AtomicInteger();
+	private static final List<String> urls = new CopyOnWriteArrayList<>();
+	// Calls numbered above this answer 503; 0 never fails.
+	private static volatile int failAfterCall;
+
+	@Autowired
+	private HistoryRefreshService historyRefreshService;
+
+	@Autowired
+	private HistoryImportService historyImportService;
+
+	@Autowired
+	private RefreshWatermarksRepository refreshWatermarksRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@DynamicPropertySource
+	static void mlBaseUrl(DynamicPropertyRegistry registry) {
+		registry.add("app.ml.base-url", () -> "http://localhost:" + server.getAddress().getPort());
+	}
+
+	@AfterAll
+	static void stopStubServer() {
+		server.stop(0);
+	}
+
+	@BeforeEach
+	void classifyEverythingStored() {
+		failAfterCall = 0;
+		historyRefreshService.refresh();
+		calls.set(0);
+		urls.clear();
+	}
+
+	@Test
+	void watermarkAdvancesOnlyAfterEveryBatchSucceeds() {
+		String run = Long.toString(System.nanoTime());
+		historyImportService.updateHistorySample(rows(run, 3));
+		long before = watermark();
+
+		// Two batches of two and one; the first is stored, the second fails.
+		failAfterCall = 1;
+		assertThrows(RuntimeException.class, historyRefreshService::refresh);
+		assertEquals(2, calls.get());
+		assertEquals(before, watermark());
+
+		failAfterCall = 0;
+		assertEquals(3, historyRefreshService.refresh());
+		assertEquals(maxVisitId(), watermark());
+		assertEquals(0, historyRefreshService.refresh());
+	}
+
+	@Test
+	void visitCommittedBelowTheWatermarkIsStillClassified() {
+		String run = Long.toString(System.nanoTime());
+		// Ids taken by a transaction that has not committed yet.
+		long late = jdbcTemplate.queryForObject("SELECT nextval(pg_get_serial_sequence('visits', 'id'))", Long.class);
+		historyImportService.updateHistorySample(rows(run, 1));
+		assertEquals(1, historyRefreshService.refresh());
+		assertTrue(watermark() > late);
+
+		jdbcTemplate.update("""
+				INSERT INTO visits (id, page_id, host_id, time_usec)
+				SELECT ?, page_id, host_id, time_usec + 1 FROM visits WHERE id = ?
+				""", late, watermark());
+		urls.clear();
+
+		assertEquals(1, historyRefreshService.refresh());
+		assertEquals(List.of("https://refresh-" + run + "-0.example/0"), urls);
+		assertEquals(0, historyRefreshService.refresh());
+	}
+
+	private long watermark() {
+		return refreshWatermarksRepository.findById("history-sample").orElseThrow().getLast_url_id();
+	}
+
+	private long maxVisitId() {
+		return jdbcTemplate.queryForObject("SELECT max(id) FROM visits", Long.class);
+	}
+
+	private static List<MlDataResponse> rows(String run, int count) {
+		List<MlDataResponse> rows = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			MlDataResponse row = new MlDataResponse();
+			row.setHost("refresh-" + run + "-" + i + ".example");
+			row.setUrl("https://refresh-" + run + "-" + i + ".example/" + i);
+			row.setTitle("Page " + i);
+			row.setTime_usec(1_700_000_000_000_000L + i);
+			row.setPred_topic("tech");
+			row.setPred_prob(0.5);
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	private static HttpServer startStubServer() {
+		try {
+			HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+			server.createContext("/predict-history", HistoryRefreshServiceTests::predict);
+			server.start();
+			return server;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void predict(HttpExchange exchange) throws IOException {
+		int call = calls.incrementAndGet();
+		if (failAfterCall > 0 && call > failAfterCall) {
+			exchange.sendResponseHeaders(503, -1);
+			return;
+		}
+		ArrayNode response = objectMapper.createArrayNode();
+		for (JsonNode item : objectMapper.readTree(exchange.getRequestBody())) {
+			ObjectNode row = ((ObjectNode) item).deepCopy();
+			urls.add(row.get("url").asString());
+			row.put("pred_topic", "other");
+			row.put("pred_prob", 1.0);
+			response.add(row);
+		}
+		byte[] body = objectMapper.writeValueAsBytes(response);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, body.length);
+		exchange.getResponseBody().write(body);
+		exchange.close();
+	}
+}
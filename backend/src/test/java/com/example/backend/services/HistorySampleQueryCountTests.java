@@ -0,0 +1,58 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataResponse;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"app.history-sample.load-on-startup=false"
+})
+class HistorySampleQueryCountTests {
+
+	@Autowired
+	private HistoryImportService historyImportService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void responseUsesSingleStatementRegardlessOfRowCount() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		statistics.clear();
+		int before = historyImportService.formateHistorySampleResponse().size();
+		assertEquals(1, statistics.getPrepareStatementCount());
+
+		historyImportService.updateHistorySample(rows(250));
+
+		statistics.clear();
+		int after = historyImportService.formateHistorySampleResponse().size();
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(before + 250, after);
+	}
+
+	private static List<MlDataResponse> rows(int count) {
+		List<MlDataResponse> rows = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			MlDataResponse row = new MlDataResponse();
+			row.setHost("query-count-" + (i % 40) + ".example");
+			row.setUrl("https://query-count-" + (i % 40) + ".example/" + i);
+			row.setTitle("Page " + i);
+			row.setTime_usec(1_700_000_000_000_000L + i);
+			row.setPred_topic("tech");
+			row.setPred_prob(0.5);
+			rows.add(row);
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,64 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataResponse;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HistorySampleReaderTests {
+
+	private final HistorySampleReader reader = new HistorySampleReader(JsonMapper.builder().build());
+
+	@Test
+	void readsQuotedNumbersInFixedSizeBatches() {
+		String json = """
+				[
+				  {"title": "a", "url": "https://a.example/", "time_usec": "1762149071329172",
+				   "host": "a.example", "pred_topic": "news", "pred_prob": "0.5",
+				   "sim_news": "0.9", "prob_news": "0.5", "extra": {"nested": [1, 2]}},
+				  {"title": null, "url": "https://b.example/", "time_usec": 42, "host": "b.example",
+				   "prob_other": 0.25},
+				  {"url": "https://c.example/", "time_usec": "-7", "host": "c.example"}
+				]
+				""";
+		List<Integer> batchSizes = new ArrayList<>();
+		List<MlDataResponse> rows = new ArrayList<>();
+
+		long count = reader.read(stream(json), 2, batch -> {
+			batchSizes.add(batch.size());
+			rows.addAll(batch);
+		});
+
+		assertEquals(3, count);
+		assertEquals(List.of(2, 1), batchSizes);
+		assertEquals(1762149071329172L, rows.get(0).getTime_usec());
+		assertEquals(0.5, rows.get(0).getPred_prob());
+		assertEquals(0.5, rows.get(0).getProb_news());
+		assertEquals("news", rows.get(0).getPred_topic());
+		assertNull(rows.get(1).getTitle());
+		assertEquals(42L, rows.get(1).getTime_usec());
+		assertEquals(0.25, rows.get(1).getProb_other());
+		assertEquals(-7L, rows.get(2).getTime_usec());
+	}
+
+	@Test
+	void rejectsNonNumericTimestamps() {
+		String json = """
+				[{"url": "https://a.example/", "time_usec": "12x", "host": "a.example"}]
+				""";
+
+		assertThrows(IllegalArgumentException.class, () -> reader.read(stream(json), 10, batch -> {}));
+	}
+
+	private static ByteArrayInputStream stream(String json) {
+		return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,44 @@
+package com.example.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HistorySearchIndexTests {
+
+	@Test
+	void tokenizesTitlesAndUrlsIntoLowerCaseWords() {
+		assertEquals(List.of("straße", "über", "alles", "2024"), tokens("Straße – Über ALLES (2024)"));
+		assertEquals(List.of("wiki", "java", "virtual", "machine", "oldid", "42"),
+				tokens("/wiki/Java_virtual_machine.html?oldid=42"));
+		assertEquals(List.of("news", "ycombinator"), tokens("www.news.ycombinator.com"));
+	}
+
+	@Test
+	void dropsSingleCharactersAndOverlongRuns() {
+		assertEquals(List.of("ok"), tokens("a b ok " + "x".repeat(41)));
+		assertEquals(List.of(), tokens(null));
+	}
+
+	@Test
+	void postingsReportFieldsPerDocument() {
+		HistorySearchIndex.Postings postings = new HistorySearchIndex.Postings();
+		for (int doc = 0; doc < 10; doc += 2) {
+			postings.add(doc, HistorySearchIndex.TITLE);
+		}
+		postings.add(11, (byte) (HistorySearchIndex.URL | HistorySearchIndex.HOST));
+
+		assertEquals(HistorySearchIndex.TITLE, postings.fieldsOf(4));
+		assertEquals(0, postings.fieldsOf(5));
+		assertEquals(HistorySearchIndex.URL | HistorySearchIndex.HOST, postings.fieldsOf(11));
+	}
+
+	private static List<String> tokens(String text) {
+		List<String> tokens = new ArrayList<>();
+		HistorySearchIndex.tokenize(text, tokens::add);
+		return tokens;
+	}
+}
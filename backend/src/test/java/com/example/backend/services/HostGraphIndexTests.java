@@ -0,0 +1,110 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+		"app.history-sample.load-on-startup=false",
+		"app.host-graph.session-gap-minutes=30"
+})
+class HostGraphIndexTests {
+
+	private static final long MINUTE_USEC = 60 * 1_000_000L;
+
+	@Autowired
+	private HistoryImportService historyImportService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void batchesInTimeOrderAreJoinedAcrossTheBoundary() {
+		long start = freshStart();
+		String run = Long.toString(start);
+
+		historyImportService.updateHistorySample(List.of(row(run, "a", start)));
+		historyImportService.updateHistorySample(List.of(
+				row(run, "b", start + 10 * MINUTE_USEC),
+				row(run, "c", start + 20 * MINUTE_USEC)));
+
+		assertEquals(Map.of("a-b", 1L, "b-c", 1L), edges(run));
+	}
+
+	@Test
+	void outOfOrderBatchSplicesBothEndsAndTakesBackTheSplitEdge() {
+		long start = freshStart();
+		String run = Long.toString(start);
+
+		historyImportService.updateHistorySample(List.of(
+				row(run, "a", start),
+				row(run, "d", start + 30 * MINUTE_USEC)));
+		assertEquals(Map.of("a-d", 1L), edges(run));
+
+		historyImportService.updateHistorySample(List.of(
+				row(run, "b", start + 10 * MINUTE_USEC),
+				row(run, "c", start + 20 * MINUTE_USEC)));
+
+		assertEquals(Map.of("a-b", 1L, "b-c", 1L, "c-d", 1L), edges(run));
+	}
+
+	@Test
+	void outOfOrderBatchMergesWithStoredVisitsInsideItsRange() {
+		long start = freshStart();
+		String run = Long.toString(start);
+
+		historyImportService.updateHistorySample(List.of(row(run, "b", start + 10 * MINUTE_USEC)));
+		historyImportService.updateHistorySample(List.of(
+				row(run, "a", start),
+				row(run, "c", start + 20 * MINUTE_USEC)));
+
+		assertEquals(Map.of("a-b", 1L, "b-c", 1L), edges(run));
+	}
+
+	/** Far past any real history, so stored visits never neighbour the test's own. */
+	private static long freshStart() {
+		return 4_000_000_000_000_000L + ThreadLocalRandom.current().nextLong(1_000_000) * 24 * 60 * MINUTE_USEC;
+	}
+
+	/** Edge weights between this run's hosts, keyed by their page letters in order. */
+	private Map<String, Long> edges(String run) {
+		Map<String, Long> edges = new HashMap<>();
+		jdbcTemplate.query("""
+				SELECT hs.host AS source, ht.host AS target, e.weight
+				FROM host_edges e
+				JOIN hosts hs ON hs.id = e.source_host_id
+				JOIN hosts ht ON ht.id = e.target_host_id
+				WHERE hs.host LIKE ? AND ht.host LIKE ?
+				""", rs -> {
+			String a = letter(rs.getString("source"));
+			String b = letter(rs.getString("target"));
+			String key = a.compareTo(b) < 0 ? a + "-" + b : b + "-" + a;
+			edges.put(key, rs.getLong("weight"));
+		}, "%-" + run + ".example", "%-" + run + ".example");
+		return edges;
+	}
+
+	private static String letter(String host) {
+		return host.substring(0, host.indexOf('-'));
+	}
+
+	private static MlDataResponse row(String run, String letter, long timeUsec) {
+		MlDataResponse row = new MlDataResponse();
+		row.setHost(letter + "-" + run + ".example");
+		row.setUrl("https://" + letter + "-" + run + ".example/");
+		row.setTitle("Page " + letter);
+		row.setTime_usec(timeUsec);
+		row.setPred_topic("tech");
+		row.setPred_prob(0.5);
+		return row;
+	}
+}
@@ -0,0 +1,79 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataRequest;
+import com.example.backend.models.MlDataResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HostPredictionCacheTests {
+
+	@Test
+	void hostKeyedEntryAnswersEveryPageOfTheHost() {
+		HostPredictionCache cache = new HostPredictionCache(10, 60, false);
+		cache.put(prediction("a.example", "/1", "news"));
+
+		MlDataResponse hit = cache.get(request("a.example", "/2"));
+		assertEquals("news", hit.getPred_topic());
+		assertNull(cache.get(request("b.example", "/1")));
+		assertEquals(1, cache.getStats().getHits());
+		assertEquals(1, cache.getStats().getMisses());
+	}
+
+	@Test
+	void fingerprintKeySeparatesPagesOfOneHost() {
+		HostPredictionCache cache = new HostPredictionCache(10, 60, true);
+		cache.put(prediction("a.example", "/1", "news"));
+		cache.put(prediction("a.example", "/2", "sports"));
+
+		assertEquals("news", cache.get(request("a.example", "/1")).getPred_topic());
+		assertEquals("sports", cache.get(request("a.example", "/2")).getPred_topic());
+		assertNull(cache.get(request("a.example", "/3")));
+	}
+
+	@Test
+	void expiredEntryIsAMissAndDropped() throws InterruptedException {
+		HostPredictionCache cache = new HostPredictionCache(10, 0, false);
+		cache.put(prediction("a.example", "/1", "news"));
+		Thread.sleep(1);
+
+		assertNull(cache.get(request("a.example", "/1")));
+		assertEquals(1, cache.getStats().getEvictions());
+		assertEquals(0, cache.getStats().getSize());
+	}
+
+	@Test
+	void evictsTheLeastRecentlyUsedEntry() {
+		HostPredictionCache cache = new HostPredictionCache(2, 60, false);
+		cache.put(prediction("a.example", "/", "news"));
+		cache.put(prediction("b.example", "/", "news"));
+		assertNotNull(cache.get(request("a.example", "/")));
+
+		cache.put(prediction("c.example", "/", "news"));
+
+		assertNotNull(cache.get(request("a.example", "/")));
+		assertNull(cache.get(request("b.example", "/")));
+		assertNotNull(cache.get(request("c.example", "/")));
+		assertEquals(1, cache.getStats().getEvictions());
+	}
+
+	private static MlDataRequest request(String host, String path) {
+		MlDataRequest request = new MlDataRequest();
+		request.setHost(host);
+		request.setUrl("https://" + host + path);
+		request.setTitle("Page " + path);
+		return request;
+	}
+
+	private static MlDataResponse prediction(String host, String path, String topic) {
+		MlDataResponse prediction = new MlDataResponse();
+		prediction.setHost(host);
+		prediction.setUrl("https://" + host + path);
+		prediction.setTitle("Page " + path);
+		prediction.setPred_topic(topic);
+		prediction.setPred_prob(0.9);
+		return prediction;
+	}
+}
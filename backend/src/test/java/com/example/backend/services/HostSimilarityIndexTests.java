@@ -0,0 +1,62 @@
+package com.example.backend.services;
+
+import com.example.backend.models.Topic;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HostSimilarityIndexTests {
+
+	@Test
+	void cosineIsOneForSameDirectionAndZeroForDisjointTopics() {
+		float[][] columns = columns(
+				new float[]{0.6f, 0.8f},
+				new float[]{0.6f, 0.8f},
+				new float[]{0f, 0f, 1f});
+		float[] scores = HostSimilarityIndex.dotAll(columns, query(columns, 0), 3);
+
+		assertEquals(1f, scores[1], 1e-6);
+		assertEquals(0f, scores[2], 1e-6);
+	}
+
+	@Test
+	void jensenShannonSimilarityMatchesDirectComputation() {
+		float[][] columns = columns(
+				new float[]{0.5f, 0.5f},
+				new float[]{0.5f, 0.5f},
+				new float[]{0f, 0f, 1f},
+				new float[]{0.25f, 0.75f});
+		float[] scores = HostSimilarityIndex.jsSimilarityAll(columns, query(columns, 0), 4);
+
+		assertEquals(1f, scores[1], 1e-6);
+		assertEquals(0f, scores[2], 1e-6);
+		assertEquals(1 - jsd(new double[]{0.5, 0.5}, new double[]{0.25, 0.75}) / Math.log(2), scores[3], 1e-6);
+	}
+
+	private static float[][] columns(float[]... hosts) {
+		float[][] columns = new float[Topic.COUNT][hosts.length];
+		for (int i = 0; i < hosts.length; i++) {
+			for (int d = 0; d < hosts[i].length; d++) {
+				columns[d][i] = hosts[i][d];
+			}
+		}
+		return columns;
+	}
+
+	private static float[] query(float[][] columns, int host) {
+		float[] q = new float[Topic.COUNT];
+		for (int d = 0; d < Topic.COUNT; d++) {
+			q[d] = columns[d][host];
+		}
+		return q;
+	}
+
+	private static double jsd(double[] p, double[] q) {
+		double divergence = 0;
+		for (int d = 0; d < p.length; d++) {
+			double m = (p[d] + q[d]) / 2;
+			divergence += 0.5 * p[d] * Math.log(p[d] / m) + 0.5 * q[d] * Math.log(q[d] / m);
+		}
+		return divergence;
+	}
+}
@@ -0,0 +1,81 @@
+package com.example.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdGapsTests {
+
+	@Test
+	void lateCommitFillsTheRangeItSkipped() {
+		IdGaps ids = new IdGaps(60_000);
+		ids.seen(1, 0);
+		ids.seen(2, 0);
+		// 3..5 belong to a transaction that has not committed yet.
+		ids.seen(6, 0);
+		ids.seen(7, 0);
+
+		assertEquals(7, ids.last());
+		assertArrayEquals(new Long[]{3L}, ids.starts());
+		assertArrayEquals(new Long[]{5L}, ids.ends());
+
+		assertTrue(ids.seen(4, 10));
+		assertArrayEquals(new Long[]{3L, 5L}, ids.starts());
+		assertArrayEquals(new Long[]{3L, 5L}, ids.ends());
+
+		assertTrue(ids.seen(3, 10));
+		assertTrue(ids.seen(5, 10));
+		assertTrue(ids.isEmpty());
+	}
+
+	@Test
+	void idsSeenTwiceAreReportedOnce() {
+		IdGaps ids = new IdGaps(60_000);
+		assertTrue(ids.seen(5, 0));
+		assertFalse(ids.seen(5, 0));
+		assertTrue(ids.seen(2, 0));
+		assertFalse(ids.seen(2, 0));
+		assertArrayEquals(new Long[]{1L, 3L}, ids.starts());
+		assertArrayEquals(new Long[]{1L, 4L}, ids.ends());
+	}
+
+	@Test
+	void rangesAreGivenUpAfterTheRetention() {
+		IdGaps ids = new IdGaps(1_000);
+		ids.seen(1, 0);
+		ids.seen(10, 0);
+		ids.seen(20, 900);
+
+		ids.expire(1_500);
+
+		assertArrayEquals(new Long[]{11L}, ids.starts());
+		ids.expire(2_000);
+		assertTrue(ids.isEmpty());
+		assertEquals(20, ids.last());
+	}
+
+	@Test
+	void survivesARoundTrip() throws IOException {
+		IdGaps ids = new IdGaps(60_000);
+		ids.seen(3, 0);
+		ids.seen(9, 5);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ids.writeTo(new DataOutputStream(bytes));
+
+		IdGaps read = new IdGaps(60_000);
+		read.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		assertEquals(9, read.last());
+		assertArrayEquals(ids.starts(), read.starts());
+		assertArrayEquals(ids.ends(), read.ends());
+	}
+}
@@ -0,0 +1,418 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataRequest;
+import com.example.backend.models.MlDataResponse;
+import com.example.backend.models.Topic;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.multipart.MultipartFile;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MlClientServiceTests {
+
+	private static final String COLUMNS = "application/x-history-columns";
+	private static final String JSON = "application/json";
+
+	private final ObjectMapper objectMapper = JsonMapper.builder().build();
+	private final AtomicInteger calls = new AtomicInteger();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private final AtomicLong uploadedBytes = new AtomicLong();
+	private final List<String> contentTypes = new CopyOnWriteArrayList<>();
+	private volatile int failuresBeforeSuccess;
+	private volatile boolean columnsSupported = true;
+	private final AtomicInteger columnsRejections = new AtomicInteger();
+	private volatile String rejectionBody;
+	private HttpServer server;
+
+	@BeforeEach
+	void startStubServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+		server.createContext("/predict-history", this::predict);
+		server.createContext("/predict-history/safari", this::drainUpload);
+		server.start();
+	}
+
+	@AfterEach
+	void stopStubServer() {
+		server.stop(0);
+	}
+
+	@Test
+	void splitsIntoBatchesAndKeepsOrder() {
+		MlClientService client = client(10, 3, 1);
+
+		List<MlDataResponse> result = client.requestPrediction(requests(95), "/predict-history");
+
+		assertEquals(95, result.size());
+		assertEquals(10, calls.get());
+		assertTrue(maxInFlight.get() <= 3);
+		for (int i = 0; i < result.size(); i++) {
+			assertEquals("https://stub.example/" + i, result.get(i).getUrl());
+			assertEquals("other", result.get(i).getPred_topic());
+		}
+	}
+
+	@Test
+	void streamsEveryBatchToConsumer() {
+		MlClientService client = client(25, 4, 1);
+		List<Integer> batchSizes = new ArrayList<>();
+
+		client.requestPredictionBatches(requests(100), "/predict-history", batch -> batchSizes.add(batch.size()));
+
+		assertEquals(List.of(25, 25, 25, 25), batchSizes);
+	}
+
+	@Test
+	void keepsEveryRowOfAHostInOneBatch() {
+		List<MlDataRequest> requests = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			requests.add(request("wide.example", i));
+		}
+		for (int i = 0; i < 8; i++) {
+			requests.add(request("narrow-" + (i % 4) + ".example", 100 + i));
+		}
+		MlClientService client = client(10, 3, 1);
+		List<List<String>> hostsPerBatch = new ArrayList<>();
+
+		client.requestPredictionBatches(requests, "/predict-history",
+				batch -> hostsPerBatch.add(batch.stream().map(MlDataResponse::getHost).distinct().toList()));
+
+		assertEquals(2, hostsPerBatch.size());
+		assertTrue(hostsPerBatch.contains(List.of("wide.example")));
+		assertTrue(hostsPerBatch.contains(List.of(
+				"narrow-0.example", "narrow-1.example", "narrow-2.example", "narrow-3.example")));
+	}
+
+	@Test
+	void retriesFailedBatches() {
+		failuresBeforeSuccess = 2;
+		MlClientService client = client(50, 1, 3);
+
+		List<MlDataResponse> result = client.requestPrediction(requests(50), "/predict-history");
+
+		assertEquals(50, result.size());
+		assertEquals(3, calls.get());
+	}
+
+	@Test
+	void failsAfterMaxAttempts() {
+		failuresBeforeSuccess = 5;
+		MlClientService client = client(50, 1, 2);
+
+		assertThrows(IllegalStateException.class,
+				() -> client.requestPrediction(requests(50), "/predict-history"));
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	void sendsColumnarBatchesWhenSupported() {
+		MlClientService client = client(50, 1, 1);
+
+		List<MlDataResponse> result = client.requestPrediction(requests(100), "/predict-history");
+
+		assertEquals(100, result.size());
+		assertEquals(List.of(COLUMNS, COLUMNS), contentTypes);
+		assertTrue(client.isColumnar());
+		assertEquals("Page 7", result.get(7).getTitle());
+		assertEquals(7L, result.get(7).getTime_usec());
+		assertEquals(1.0, result.get(7).getPred_prob());
+		assertEquals(1.0, result.get(7).getProb_other());
+		assertNull(result.get(7).getProb_news());
+	}
+
+	@Test
+	void fallsBackToJsonWhenColumnsAreRejected() {
+		columnsSupported = false;
+		MlClientService client = client(50, 1, 1);
+
+		List<MlDataResponse> result = client.requestPrediction(requests(100), "/predict-history");
+
+		assertEquals(100, result.size());
+		assertEquals(List.of(COLUMNS, JSON, JSON), contentTypes);
+		assertFalse(client.isColumnar());
+		assertEquals("https://stub.example/99", result.get(99).getUrl());
+	}
+
+	@Test
+	void columnarBatchesRoundTripNullsAndUnicode() {
+		MlDataResponse row = new MlDataResponse();
+		row.setHost("münchen.example");
+		row.setTitle("Übersicht — 東京");
+		row.setPred_topic("travel");
+		row.topics().set(Topic.TRAVEL, 0.75);
+		List<MlDataResponse> rows = List.of(row, new MlDataResponse());
+
+		List<MlDataResponse> decoded = HistoryColumns.readResponses(HistoryColumns.writeResponses(rows));
+
+		assertEquals(2, decoded.size());
+		assertEquals("Übersicht — 東京", decoded.get(0).getTitle());
+		assertEquals("münchen.example", decoded.get(0).getHost());
+		assertNull(decoded.get(0).getUrl());
+		assertNull(decoded.get(0).getTime_usec());
+		assertNull(decoded.get(0).getPred_prob());
+		assertEquals(row.topics(), decoded.get(0).topics());
+		assertNull(decoded.get(1).getHost());
+		assertTrue(decoded.get(1).topics().isEmpty());
+
+		byte[] truncated = Arrays.copyOf(HistoryColumns.writeRequests(requests(3)), 20);
+		assertThrows(IllegalArgumentException.class, () -> HistoryColumns.readRequests(truncated));
+	}
+
+	@Test
+	void resendsOnlyTheUndecodableBatchAsJson() {
+		columnsRejections.set(1);
+		rejectionBody = "{\"detail\":[{\"type\":\"json_invalid\",\"loc\":[\"body\",0],\"msg\":\"JSON decode error\"}]}";
+		MlClientService client = client(50, 1, 1);
+
+		List<MlDataResponse> result = client.requestPrediction(requests(100), "/predict-history");
+
+		assertEquals(100, result.size());
+		assertEquals(List.of(COLUMNS, JSON, COLUMNS), contentTypes);
+		assertTrue(client.isColumnar());
+	}
+
+	@Test
+	void keepsColumnsWhenRowsFailValidation() {
+		columnsRejections.set(1);
+		rejectionBody = "{\"detail\":[{\"type\":\"missing\",\"loc\":[\"body\",3,\"host\"],\"msg\":\"Field required\"}]}";
+		MlClientService client = client(50, 1, 1);
+
+		assertThrows(HttpClientErrorException.class,
+				() -> client.requestPrediction(requests(50), "/predict-history"));
+		assertEquals(List.of(COLUMNS), contentTypes);
+		assertTrue(client.isColumnar());
+	}
+
+	@Test
+	void streamsLargeUploadWithoutHeapCopy() {
+		long size = 256L * 1024 * 1024;
+		MlClientService client = client(500, 1, 1);
+		List<MemoryPoolMXBean> tenuredPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+				.filter(pool -> pool.getType() == MemoryType.HEAP)
+				.filter(pool -> pool.getName().contains("Old") || pool.getName().contains("Tenured"))
+				.toList();
+		System.gc();
+		tenuredPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+		long before = tenuredPools.stream().mapToLong(pool -> pool.getUsage().getUsed()).sum();
+
+		List<MlDataResponse> result = client.sendSafariDbToMl(
+				new GeneratedMultipartFile("History.db", size), null, "/predict-history/safari");
+
+		long peak = tenuredPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+		assertTrue(result.isEmpty());
+		assertTrue(uploadedBytes.get() >= size);
+		assertTrue(peak - before < 64L * 1024 * 1024,
+				"tenured heap grew by " + (peak - before) + " bytes during upload");
+	}
+
+	private MlClientService client(int batchSize, int parallelism, int maxAttempts) {
+		return new MlClientService("http://localhost:" + server.getAddress().getPort(),
+				batchSize, parallelism, maxAttempts, 1, "columns");
+	}
+
+	private void predict(HttpExchange exchange) throws IOException {
+		int call = calls.incrementAndGet();
+		maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+		try {
+			if (call <= failuresBeforeSuccess) {
+				exchange.sendResponseHeaders(503, -1);
+				return;
+			}
+			Thread.sleep(20);
+
+			String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+			contentTypes.add(contentType);
+			if (COLUMNS.equals(contentType)) {
+				predictColumns(exchange);
+				return;
+			}
+			ArrayNode response = objectMapper.createArrayNode();
+			for (JsonNode item : objectMapper.readTree(exchange.getRequestBody())) {
+				ObjectNode row = ((ObjectNode) item).deepCopy();
+				row.put("pred_topic", "other");
+				row.put("pred_prob", 1.0);
+				response.add(row);
+			}
+			byte[] body = objectMapper.writeValueAsBytes(response);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			inFlight.decrementAndGet();
+			exchange.close();
+		}
+	}
+
+	private void predictColumns(HttpExchange exchange) throws IOException {
+		if (!columnsSupported) {
+			exchange.sendResponseHeaders(415, -1);
+			return;
+		}
+		if (columnsRejections.getAndDecrement() > 0) {
+			byte[] body = rejectionBody.getBytes();
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(422, body.length);
+			exchange.getResponseBody().write(body);
+			return;
+		}
+		List<MlDataResponse> response = new ArrayList<>();
+		for (MlDataRequest item : HistoryColumns.readRequests(exchange.getRequestBody().readAllBytes())) {
+			MlDataResponse row = new MlDataResponse();
+			row.setTitle(item.getTitle());
+			row.setUrl(item.getUrl());
+			row.setHost(item.getHost());
+			row.setTime_usec(item.getTime_usec());
+			row.setPred_topic("other");
+			row.setPred_prob(1.0);
+			row.topics().set(Topic.OTHER, 1.0);
+			response.add(row);
+		}
+		byte[] body = HistoryColumns.writeResponses(response);
+		exchange.getResponseHeaders().add("Content-Type", COLUMNS);
+		exchange.sendResponseHeaders(200, body.length);
+		exchange.getResponseBody().write(body);
+	}
+
+	private void drainUpload(HttpExchange exchange) throws IOException {
+		try (InputStream in = exchange.getRequestBody()) {
+			byte[] buffer = new byte[64 * 1024];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				uploadedBytes.addAndGet(read);
+			}
+			byte[] body = "[]".getBytes();
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private static MlDataRequest request(String host, int i) {
+		MlDataRequest request = new MlDataRequest();
+		request.setHost(host);
+		request.setUrl("https://" + host + "/" + i);
+		request.setTitle("Page " + i);
+		request.setTime_usec((long) i);
+		return request;
+	}
+
+	private static List<MlDataRequest> requests(int count) {
+		List<MlDataRequest> requests = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			MlDataRequest request = new MlDataRequest();
+			request.setHost("host" + i + ".stub.example");
+			request.setUrl("https://stub.example/" + i);
+			request.setTitle("Page " + i);
+			request.setTime_usec((long) i);
+			requests.add(request);
+		}
+		return requests;
+	}
+
+	private static class GeneratedMultipartFile implements MultipartFile {
+
+		private final String filename;
+		private final long size;
+
+		GeneratedMultipartFile(String filename, long size) {
+			this.filename = filename;
+			this.size = size;
+		}
+
+		@Override
+		public String getName() {
+			return "file";
+		}
+
+		@Override
+		public String getOriginalFilename() {
+			return filename;
+		}
+
+		@Override
+		public String getContentType() {
+			return "application/octet-stream";
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return size == 0;
+		}
+
+		@Override
+		public long getSize() {
+			return size;
+		}
+
+		@Override
+		public byte[] getBytes() {
+			throw new UnsupportedOperationException("upload must not be buffered on heap");
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return new InputStream() {
+				private long remaining = size;
+
+				@Override
+				public int read() {
+					if (remaining <= 0) {
+						return -1;
+					}
+					remaining--;
+					return 0;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) {
+					if (remaining <= 0) {
+						return -1;
+					}
+					int n = (int) Math.min(len, remaining);
+					remaining -= n;
+					return n;
+				}
+			};
+		}
+
+		@Override
+		public void transferTo(File dest) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
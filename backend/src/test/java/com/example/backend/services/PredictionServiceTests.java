@@ -0,0 +1,162 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataRequest;
+import com.example.backend.models.MlDataResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+		"app.history-sample.load-on-startup=false",
+		"app.ml.wire-format=json",
+		"app.ml.max-attempts=1",
+		"app.ml.cache.fingerprint=false"
+})
+class PredictionServiceTests {
+
+	private static final ObjectMapper objectMapper = JsonMapper.builder().build();
+	private static final HttpServer server = startStubServer();
+	private static final List<String> sentUrls = new CopyOnWriteArrayList<>();
+
+	@Autowired
+	private PredictionService predictionService;
+
+	@Autowired
+	private HostPredictionCache hostPredictionCache;
+
+	@Autowired
+	private HistoryImportService historyImportService;
+
+	@DynamicPropertySource
+	static void mlBaseUrl(DynamicPropertyRegistry registry) {
+		registry.add("app.ml.base-url", () -> "http://localhost:" + server.getAddress().getPort());
+	}
+
+	@AfterAll
+	static void stopStubServer() {
+		server.stop(0);
+	}
+
+	@BeforeEach
+	void reset() {
+		hostPredictionCache.clear();
+		sentUrls.clear();
+	}
+
+	@Test
+	void sendsEveryDistinctPageOfUnseenHostsOnce() {
+		String run = Long.toString(System.nanoTime());
+		List<MlDataRequest> requests = List.of(
+				request("a-" + run + ".example", "/1"),
+				request("b-" + run + ".example", "/1"),
+				request("a-" + run + ".example", "/2"),
+				request("a-" + run + ".example", "/1"),
+				request("b-" + run + ".example", "/2"),
+				request("a-" + run + ".example", "/3"));
+
+		List<MlDataResponse> answered = predict(requests);
+
+		assertEquals(List.of(
+				"https://a-" + run + ".example/1",
+				"https://a-" + run + ".example/2",
+				"https://a-" + run + ".example/3",
+				"https://b-" + run + ".example/1",
+				"https://b-" + run + ".example/2"), sentUrls);
+		assertEquals(6, answered.size());
+		assertEquals(requests.stream().map(MlDataRequest::getUrl).sorted().toList(),
+				answered.stream().map(MlDataResponse::getUrl).sorted().toList());
+		answered.forEach(row -> assertEquals("other", row.getPred_topic()));
+	}
+
+	@Test
+	void freshHostStatsAnswerWithoutCallingMl() {
+		String host = "fresh-" + System.nanoTime() + ".example";
+		MlDataResponse stored = new MlDataResponse();
+		stored.setHost(host);
+		stored.setUrl("https://" + host + "/");
+		stored.setTitle("Stored");
+		stored.setTime_usec(1_700_000_000_000_000L);
+		stored.setPred_topic("news");
+		stored.setPred_prob(0.8);
+		historyImportService.updateHistorySample(List.of(stored));
+		hostPredictionCache.clear();
+
+		List<MlDataResponse> answered = predict(List.of(request(host, "/other")));
+
+		assertEquals(List.of(), sentUrls);
+		assertEquals(1, answered.size());
+		assertEquals("https://" + host + "/other", answered.get(0).getUrl());
+		assertEquals("news", answered.get(0).getPred_topic());
+
+		// The fallback fills the cache, so the next request is a cache hit.
+		long hits = hostPredictionCache.getStats().getHits();
+		predict(List.of(request(host, "/third")));
+		assertEquals(hits + 1, hostPredictionCache.getStats().getHits());
+	}
+
+	private List<MlDataResponse> predict(List<MlDataRequest> requests) {
+		List<MlDataResponse> answered = new ArrayList<>();
+		predictionService.predict(requests, "/predict-history", batch -> {
+			synchronized (answered) {
+				answered.addAll(batch);
+			}
+		});
+		return answered;
+	}
+
+	private static MlDataRequest request(String host, String path) {
+		MlDataRequest request = new MlDataRequest();
+		request.setHost(host);
+		request.setUrl("https://" + host + path);
+		request.setTitle("Page " + path);
+		request.setTime_usec(1_700_000_000_000_000L);
+		return request;
+	}
+
+	private static HttpServer startStubServer() {
+		try {
+			HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+			server.createContext("/predict-history", PredictionServiceTests::predict);
+			server.start();
+			return server;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void predict(HttpExchange exchange) throws IOException {
+		ArrayNode response = objectMapper.createArrayNode();
+		for (JsonNode item : objectMapper.readTree(exchange.getRequestBody())) {
+			ObjectNode row = ((ObjectNode) item).deepCopy();
+			sentUrls.add(row.get("url").asString());
+			row.put("pred_topic", "other");
+			row.put("pred_prob", 1.0);
+			response.add(row);
+		}
+		byte[] body = objectMapper.writeValueAsBytes(response);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, body.length);
+		exchange.getResponseBody().write(body);
+		exchange.close();
+	}
+}
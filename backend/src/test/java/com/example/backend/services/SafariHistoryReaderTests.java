@@ -0,0 +1,35 @@
+package com.example.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SafariHistoryReaderTests {
+
+	@Test
+	void hostIsLowercased() {
+		assertEquals("example.com", SafariHistoryReader.hostOf("https://Example.COM/Path"));
+	}
+
+	@Test
+	void hostSurvivesCharactersUriRejects() {
+		assertEquals("my_host.local", SafariHistoryReader.hostOf("http://my_host.local/a b"));
+		assertEquals("a.com", SafariHistoryReader.hostOf("https://a.com/x|y"));
+	}
+
+	@Test
+	void userinfoAndPortAreStripped() {
+		assertEquals("host", SafariHistoryReader.hostOf("https://user:pw@Host:8080/p"));
+		assertEquals("::1", SafariHistoryReader.hostOf("http://[::1]:80/"));
+		assertEquals("h.com", SafariHistoryReader.hostOf("https://h.com?q=1"));
+	}
+
+	@Test
+	void urlsWithoutAuthorityHaveNoHost() {
+		assertNull(SafariHistoryReader.hostOf("about:blank"));
+		assertNull(SafariHistoryReader.hostOf("example.com/x"));
+		assertNull(SafariHistoryReader.hostOf("file:///tmp/x"));
+		assertNull(SafariHistoryReader.hostOf(null));
+	}
+}
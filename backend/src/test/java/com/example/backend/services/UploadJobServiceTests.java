@@ -0,0 +1,179 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataResponse;
+import com.example.backend.models.UploadJobStatus;
+import com.example.backend.models.UploadStage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadJobServiceTests {
+
+	private static final DataSize MAX_FILE_SIZE = DataSize.ofMegabytes(1);
+
+	private final ObjectMapper objectMapper = JsonMapper.builder().build();
+	private final CountDownLatch classifying = new CountDownLatch(1);
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final StubQueryService historyQueryService = new StubQueryService();
+	private final UploadJobService uploadJobService = new UploadJobService(historyQueryService, objectMapper, 1, 1, 16);
+
+	@AfterEach
+	void shutdown() {
+		release.countDown();
+		uploadJobService.shutdown();
+	}
+
+	@Test
+	void jobMovesThroughItsStagesWithPerStageCounts() throws Exception {
+		UploadJobStatus submitted = uploadJobService.submit(upload(), null);
+		String jobId = submitted.getJob_id();
+
+		assertTrue(classifying.await(5, TimeUnit.SECONDS));
+		UploadJobStatus running = uploadJobService.getStatus(jobId);
+		assertEquals(UploadStage.CLASSIFYING, running.getStage());
+		assertEquals(4, running.getRows_processed());
+		assertEquals(10, running.getRows_total());
+		ResponseStatusException early = assertThrows(ResponseStatusException.class,
+				() -> uploadJobService.getResults(jobId));
+		assertEquals(HttpStatus.CONFLICT, early.getStatusCode());
+
+		release.countDown();
+		UploadJobStatus done = awaitFinished(jobId);
+		assertEquals(UploadStage.DONE, done.getStage());
+		// STORING counts from zero, so the job never reports more rows than the stage has.
+		assertEquals(10, done.getRows_processed());
+		assertEquals(10, done.getRows_total());
+
+		Resource results = uploadJobService.getResults(jobId);
+		try (InputStream in = results.getInputStream()) {
+			MlDataResponse[] rows = objectMapper.readValue(in, MlDataResponse[].class);
+			assertEquals(10, rows.length);
+			assertEquals("https://upload.example/9", rows[9].getUrl());
+		}
+	}
+
+	@Test
+	void failedJobReportsItsError() throws Exception {
+		historyQueryService.fail = true;
+		release.countDown();
+
+		String jobId = uploadJobService.submit(upload(), null).getJob_id();
+		UploadJobStatus failed = awaitFinished(jobId);
+
+		assertEquals(UploadStage.FAILED, failed.getStage());
+		assertEquals("ML is down", failed.getError());
+		assertThrows(ResponseStatusException.class, () -> uploadJobService.getResults(jobId));
+	}
+
+	@Test
+	void fullQueueAnswers429() throws Exception {
+		String running = uploadJobService.submit(upload(), null).getJob_id();
+		assertTrue(classifying.await(5, TimeUnit.SECONDS));
+		String queued = uploadJobService.submit(upload(), null).getJob_id();
+		assertEquals(UploadStage.QUEUED, uploadJobService.getStatus(queued).getStage());
+
+		ResponseStatusException rejected = assertThrows(ResponseStatusException.class,
+				() -> uploadJobService.submit(upload(), null));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+
+		release.countDown();
+		assertEquals(UploadStage.DONE, awaitFinished(running).getStage());
+		assertEquals(UploadStage.DONE, awaitFinished(queued).getStage());
+	}
+
+	@Test
+	void oversizedFileIsRejectedBeforeQueueing() {
+		MockMultipartFile huge = new MockMultipartFile("file", "history.db", null, new byte[1]) {
+			@Override
+			public long getSize() {
+				return MAX_FILE_SIZE.toBytes() + 1;
+			}
+		};
+
+		ResponseStatusException rejected = assertThrows(ResponseStatusException.class,
+				() -> uploadJobService.submit(huge, null));
+		assertEquals(HttpStatus.CONTENT_TOO_LARGE, rejected.getStatusCode());
+	}
+
+	@Test
+	void missingFilesAnswer400() {
+		ResponseStatusException rejected = assertThrows(ResponseStatusException.class,
+				() -> uploadJobService.submit(null, null));
+		assertEquals(HttpStatus.BAD_REQUEST, rejected.getStatusCode());
+	}
+
+	private UploadJobStatus awaitFinished(String jobId) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (System.nanoTime() < deadline) {
+			UploadJobStatus status = uploadJobService.getStatus(jobId);
+			if (status.getStage() == UploadStage.DONE || status.getStage() == UploadStage.FAILED) {
+				return status;
+			}
+			Thread.sleep(10);
+		}
+		throw new AssertionError("Upload job " + jobId + " did not finish");
+	}
+
+	private static MockMultipartFile upload() {
+		return new MockMultipartFile("file", "history.db", null, new byte[]{1, 2, 3});
+	}
+
+	/** Classifies ten rows in two progress steps, holding the first job until released. */
+	private final class StubQueryService extends HistoryQueryService {
+
+		private volatile boolean fail;
+
+		private StubQueryService() {
+			super(null, null, null, false, null, null, null, null, null, null, null, null, null,
+					MAX_FILE_SIZE, DataSize.ofMegabytes(2));
+		}
+
+		@Override
+		public List<MlDataResponse> processUploadedHistory(Resource file, Resource zipFile, UploadProgress progress) {
+			progress.stage(UploadStage.READING, 0);
+			progress.stage(UploadStage.CLASSIFYING, 10);
+			progress.rowsProcessed(4);
+			classifying.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+			if (fail) {
+				throw new IllegalStateException("ML is down");
+			}
+			progress.rowsProcessed(6);
+
+			progress.stage(UploadStage.STORING, 10);
+			progress.rowsProcessed(10);
+			return rows(10);
+		}
+	}
+
+	private static List<MlDataResponse> rows(int count) {
+		return IntStream.range(0, count).mapToObj(i -> {
+			MlDataResponse row = new MlDataResponse();
+			row.setHost("upload.example");
+			row.setUrl("https://upload.example/" + i);
+			row.setTime_usec(1_700_000_000_000_000L + i);
+			return row;
+		}).toList();
+	}
+}
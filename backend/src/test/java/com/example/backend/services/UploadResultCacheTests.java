@@ -0,0 +1,120 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataResponse;
+import com.example.backend.models.UploadCacheStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadResultCacheTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void hashDependsOnBytesAndRole() {
+		UploadResultCache cache = cache(4, 4);
+		ByteArrayResource bytes = new ByteArrayResource("history".getBytes());
+
+		String asFile = cache.contentHash(bytes, null);
+
+		assertEquals(asFile, cache.contentHash(new ByteArrayResource("history".getBytes()), null));
+		assertEquals(64, asFile.length());
+		assertNotEquals(asFile, cache.contentHash(null, bytes));
+		assertNotEquals(asFile, cache.contentHash(bytes, bytes));
+		assertNotEquals(asFile, cache.contentHash(new ByteArrayResource("history!".getBytes()), null));
+	}
+
+	@Test
+	void hitReturnsStoredRowsAndCountsSavedBytes() {
+		UploadResultCache cache = cache(4, 4);
+
+		assertNull(cache.get("aaaa", 100));
+		cache.put("aaaa", rows("a"));
+		List<MlDataResponse> hit = cache.get("aaaa", 100);
+
+		assertEquals("https://a.example/", hit.getFirst().getUrl());
+		UploadCacheStats stats = cache.getStats();
+		assertEquals(1, stats.getHits());
+		assertEquals(1, stats.getMisses());
+		assertEquals(100, stats.getBytes_saved());
+		assertEquals(1, stats.getMemory_entries());
+		assertEquals(1, stats.getDisk_entries());
+	}
+
+	@Test
+	void memoryEvictsLeastRecentlyUsed() throws IOException {
+		UploadResultCache cache = cache(2, 4);
+		cache.put("aaaa", rows("a"));
+		cache.put("bbbb", rows("b"));
+		cache.get("aaaa", 0);
+		cache.put("cccc", rows("c"));
+
+		// With the files gone only what is still in memory can be served.
+		Files.delete(entry("aaaa"));
+		Files.delete(entry("bbbb"));
+		Files.delete(entry("cccc"));
+
+		assertEquals("https://a.example/", cache.get("aaaa", 0).getFirst().getUrl());
+		assertEquals("https://c.example/", cache.get("cccc", 0).getFirst().getUrl());
+		assertNull(cache.get("bbbb", 0));
+	}
+
+	@Test
+	void diskEvictsLeastRecentlyUsed() throws IOException {
+		UploadResultCache writer = cache(1, 2);
+		writer.put("aaaa", rows("a"));
+		Files.setLastModifiedTime(entry("aaaa"), FileTime.fromMillis(1_000));
+		writer.put("bbbb", rows("b"));
+		Files.setLastModifiedTime(entry("bbbb"), FileTime.fromMillis(2_000));
+
+		// A fresh instance has nothing in memory, so this read comes from disk and touches the file.
+		UploadResultCache reader = cache(1, 2);
+		assertEquals("https://a.example/", reader.get("aaaa", 0).getFirst().getUrl());
+		reader.put("cccc", rows("c"));
+
+		assertTrue(Files.exists(entry("aaaa")));
+		assertFalse(Files.exists(entry("bbbb")));
+		assertTrue(Files.exists(entry("cccc")));
+		assertEquals(2, reader.getStats().getDisk_entries());
+	}
+
+	@Test
+	void unreadableEntryIsAMiss() throws IOException {
+		Files.writeString(entry("dddd"), "not json");
+		UploadResultCache cache = cache(4, 4);
+
+		assertNull(cache.get("dddd", 0));
+		assertFalse(Files.exists(entry("dddd")));
+	}
+
+	private UploadResultCache cache(int memoryEntries, int diskEntries) {
+		return new UploadResultCache(JsonMapper.builder().build(), directory.toString(), memoryEntries, diskEntries);
+	}
+
+	private Path entry(String hash) {
+		return directory.resolve(hash + ".json");
+	}
+
+	private static List<MlDataResponse> rows(String host) {
+		MlDataResponse row = new MlDataResponse();
+		row.setHost(host + ".example");
+		row.setUrl("https://" + host + ".example/");
+		row.setTime_usec(1L);
+		row.setPred_topic("other");
+		return List.of(row);
+	}
+}
@@ -0,0 +1,43 @@
+package com.example.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VisitBloomFilterTests {
+
+	@Test
+	void neverForgetsAKeyItWasGiven() {
+		VisitBloomFilter filter = new VisitBloomFilter(10_000, 0.01);
+		SplittableRandom random = new SplittableRandom(42);
+		long[] keys = new long[20_000];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = random.nextLong();
+			filter.put(keys[i]);
+		}
+
+		// Twice the expected insertions: more false positives, still no false negatives.
+		for (long key : keys) {
+			assertTrue(filter.mightContain(key));
+		}
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTheConfiguredRate() {
+		VisitBloomFilter filter = new VisitBloomFilter(10_000, 0.01);
+		SplittableRandom random = new SplittableRandom(7);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put(random.nextLong());
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain(random.nextLong())) {
+				falsePositives++;
+			}
+		}
+		assertTrue(falsePositives < 2_000, falsePositives + " false positives in 100000");
+	}
+}
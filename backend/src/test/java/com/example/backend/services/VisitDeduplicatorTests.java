@@ -0,0 +1,73 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "app.history-sample.load-on-startup=false")
+class VisitDeduplicatorTests {
+
+	@Autowired
+	private HistoryImportService historyImportService;
+
+	@Autowired
+	private VisitDeduplicator visitDeduplicator;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void secondImportOfTheSameVisitsStoresNothing() {
+		String host = "dedupe-" + System.nanoTime() + ".example";
+		List<MlDataResponse> rows = rows(host);
+
+		historyImportService.updateHistorySample(rows);
+		assertEquals(4, storedVisits(host));
+
+		assertEquals(List.of(), visitDeduplicator.filterNew(rows(host)));
+		historyImportService.updateHistorySample(rows(host));
+		assertEquals(4, storedVisits(host));
+	}
+
+	@Test
+	void repeatsWithinOneImportAreStoredOnce() {
+		String host = "dedupe-" + System.nanoTime() + ".example";
+		List<MlDataResponse> rows = new ArrayList<>(rows(host));
+		rows.addAll(rows(host));
+
+		assertEquals(4, visitDeduplicator.filterNew(rows).size());
+	}
+
+	private long storedVisits(String host) {
+		return jdbcTemplate.queryForObject("""
+				SELECT count(*) FROM visits v JOIN hosts h ON h.id = v.host_id WHERE h.host = ?
+				""", Long.class, host);
+	}
+
+	/** Three timed visits of two urls and one visit without a time. */
+	private static List<MlDataResponse> rows(String host) {
+		return List.of(
+				row(host, "/a", 1_700_000_000_000_000L),
+				row(host, "/a", 1_700_000_000_000_001L),
+				row(host, "/b", 1_700_000_000_000_000L),
+				row(host, "/b", null));
+	}
+
+	private static MlDataResponse row(String host, String path, Long timeUsec) {
+		MlDataResponse row = new MlDataResponse();
+		row.setHost(host);
+		row.setUrl("https://" + host + path);
+		row.setTitle("Page " + path);
+		row.setTime_usec(timeUsec);
+		row.setPred_topic("tech");
+		row.setPred_prob(0.5);
+		return row;
+	}
+}
@@ -0,0 +1,104 @@
+package com.example.backend.services;
+
+import com.example.backend.models.MlDataResponse;
+import com.example.backend.models.Topic;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+		"app.history-sample.load-on-startup=false",
+		"app.sessions.gap-minutes=30"
+})
+class VisitSessionizerTests {
+
+	private static final long MINUTE_USEC = 60 * 1_000_000L;
+
+	@Autowired
+	private HistoryImportService historyImportService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void lateVisitMergesTheSessionsAroundIt() {
+		// Far past any real history so the surrounding sessions never touch this window.
+		long start = 4_000_000_000_000_000L + ThreadLocalRandom.current().nextLong(1_000_000) * 24 * 60 * MINUTE_USEC;
+		String run = Long.toString(start);
+
+		historyImportService.updateHistorySample(List.of(row(run, "a", start)));
+		historyImportService.updateHistorySample(List.of(row(run, "c", start + 40 * MINUTE_USEC)));
+		assertEquals(List.of(1L, 1L), sessionVisits(start));
+
+		historyImportService.updateHistorySample(List.of(row(run, "b", start + 20 * MINUTE_USEC)));
+		assertEquals(List.of(3L), sessionVisits(start));
+	}
+
+	@Test
+	void lateVisitOutsideTheGapLeavesNeighboursAlone() {
+		long start = 4_000_000_000_000_000L + ThreadLocalRandom.current().nextLong(1_000_000) * 24 * 60 * MINUTE_USEC;
+		String run = Long.toString(start);
+
+		historyImportService.updateHistorySample(List.of(
+				row(run, "a", start),
+				row(run, "b", start + 10 * MINUTE_USEC)));
+		historyImportService.updateHistorySample(List.of(row(run, "d", start + 200 * MINUTE_USEC)));
+		historyImportService.updateHistorySample(List.of(row(run, "c", start + 100 * MINUTE_USEC)));
+
+		assertEquals(List.of(2L, 1L, 1L), sessionVisits(start));
+	}
+
+	@Test
+	void newPredictionsRetagTheSessionsOfTheHost() {
+		long start = 4_000_000_000_000_000L + ThreadLocalRandom.current().nextLong(1_000_000) * 24 * 60 * MINUTE_USEC;
+		String run = Long.toString(start);
+		MlDataResponse first = row(run, "a", start);
+		MlDataResponse second = row(run, "b", start + 10 * MINUTE_USEC);
+		first.topics().set(Topic.TECH, 0.9);
+		second.topics().set(Topic.TECH, 0.9);
+		historyImportService.updateHistorySample(List.of(first, second));
+		assertEquals(List.of("tech"), sessionTopics(start));
+
+		MlDataResponse retagged = row(run, "a", start);
+		retagged.setPred_topic("news");
+		retagged.topics().set(Topic.NEWS, 0.9);
+		historyImportService.updatePredictions(List.of(retagged));
+
+		assertEquals(List.of("news"), sessionTopics(start));
+		assertEquals(List.of(2L), sessionVisits(start));
+	}
+
+	private List<String> sessionTopics(long start) {
+		return jdbcTemplate.queryForList("""
+				SELECT top_topic FROM sessions
+				WHERE start_usec >= ? AND end_usec < ?
+				ORDER BY start_usec
+				""", String.class, start, start + 24 * 60 * MINUTE_USEC);
+	}
+
+	/** Visit counts of the sessions in the day after {@code start}, in time order. */
+	private List<Long> sessionVisits(long start) {
+		return jdbcTemplate.queryForList("""
+				SELECT visits FROM sessions
+				WHERE start_usec >= ? AND end_usec < ?
+				ORDER BY start_usec
+				""", Long.class, start, start + 24 * 60 * MINUTE_USEC);
+	}
+
+	private static MlDataResponse row(String run, String page, long timeUsec) {
+		MlDataResponse row = new MlDataResponse();
+		row.setHost("sessions-" + run + ".example");
+		row.setUrl("https://sessions-" + run + ".example/" + page);
+		row.setTitle("Page " + page);
+		row.setTime_usec(timeUsec);
+		row.setPred_topic("tech");
+		row.setPred_prob(0.5);
+		return row;
+	}
+}
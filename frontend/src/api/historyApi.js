@@ -11,6 +11,128 @@ export async function getHistorySample() {
 }
 
 
+export async function getHistoryPage({ from, to, host, topic, cursor, limit } = {}) {
+    const params = new URLSearchParams();
+    if (from != null) params.set("from", from);
+    if (to != null) params.set("to", to);
+    if (host) params.set("host", host);
+    if (topic) params.set("topic", topic);
+    if (cursor) params.set("cursor", cursor);
+    if (limit != null) params.set("limit", limit);
+
+    const response = await fetch(`http://localhost:8080/api/history?${params}`);
+
+    if (!response.ok) {
+        throw new Error(`Failed to load history page: ${response.status}`);
+    }
+
+    return await response.json();
+}
+
+
+async function getStats(path, query = {}) {
+    const params = new URLSearchParams();
+    Object.entries(query).forEach(([key, value]) => {
+        if (value != null && value !== "") params.set(key, value);
+    });
+
+    const response = await fetch(`http://localhost:8080/api/stats/${path}?${params}`);
+
+    if (!response.ok) {
+        throw new Error(`Failed to load ${path} stats: ${response.status}`);
+    }
+
+    return await response.json();
+}
+
+export function getTopicStats({ from, to } = {}) {
+    return getStats("topics", { from, to });
+}
+
+export function getTopHosts({ from, to, limit } = {}) {
+    return getStats("hosts", { from, to, limit });
+}
+
+export function getActivity({ bucket = "day", from, to } = {}) {
+    return getStats("activity", { bucket, from, to });
+}
+
+export function getHostGraph({ limit } = {}) {
+    return getStats("graph", { limit });
+}
+
+export function getHostTransitions({ from, to, gap, limit } = {}) {
+    return getStats("transitions", { from, to, gap, limit });
+}
+
+
+async function getSessionData(path, query = {}) {
+    const params = new URLSearchParams();
+    Object.entries(query).forEach(([key, value]) => {
+        if (value != null && value !== "") params.set(key, value);
+    });
+
+    const response = await fetch(`http://localhost:8080/api/sessions${path}?${params}`);
+
+    if (!response.ok) {
+        throw new Error(`Failed to load sessions: ${response.status}`);
+    }
+
+    return await response.json();
+}
+
+export function getSessions({ from, to, limit } = {}) {
+    return getSessionData("", { from, to, limit });
+}
+
+export function getSessionSummary({ from, to } = {}) {
+    return getSessionData("/summary", { from, to });
+}
+
+
+async function getRollups(path, query = {}) {
+    const params = new URLSearchParams();
+    Object.entries(query).forEach(([key, value]) => {
+        if (value != null && value !== "") params.set(key, value);
+    });
+
+    const response = await fetch(`http://localhost:8080/api/rollups/${path}?${params}`);
+
+    if (!response.ok) {
+        throw new Error(`Failed to load ${path} rollups: ${response.status}`);
+    }
+
+    return await response.json();
+}
+
+export function getRollupActivity({ bucket = "day", from, to } = {}) {
+    return getRollups("activity", { bucket, from, to });
+}
+
+export function getTopicShare({ bucket = "day", from, to } = {}) {
+    return getRollups("topics", { bucket, from, to });
+}
+
+export function getHostActivity({ host, bucket = "day", from, to } = {}) {
+    return getRollups("hosts", { host, bucket, from, to });
+}
+
+
+export async function searchHistory(query, { limit, prefix } = {}) {
+    const params = new URLSearchParams({ q: query });
+    if (limit != null) params.set("limit", limit);
+    if (prefix != null) params.set("prefix", prefix);
+
+    const response = await fetch(`http://localhost:8080/api/search?${params}`);
+
+    if (!response.ok) {
+        throw new Error(`Failed to search history: ${response.status}`);
+    }
+
+    return await response.json();
+}
+
+
 export async function uploadHistoryFile(file, zipFile) {
     if (!file && !zipFile) {
         throw new Error("No file selected");
@@ -35,4 +157,79 @@ export async function uploadHistoryFile(file, zipFile) {
     }
 
     return res.json();
-}
\ No newline at end of file
+}
+
+
+export async function submitUploadJob(file, zipFile) {
+    if (!file && !zipFile) {
+        throw new Error("No file selected");
+    }
+
+    const formData = new FormData();
+    if (file) {
+        formData.append("file", file);
+    }
+    if (zipFile) {
+        formData.append("zip", zipFile);
+    }
+
+    const res = await fetch("http://localhost:8080/api/history/upload/jobs", {
+        method: "POST",
+        body: formData,
+    });
+
+    if (!res.ok) {
+        const text = await res.text();
+        throw new Error(text || "Failed to submit upload");
+    }
+
+    return res.json();
+}
+
+export async function getUploadJob(jobId) {
+    const res = await fetch(`http://localhost:8080/api/history/upload/jobs/${jobId}`);
+
+    if (!res.ok) {
+        throw new Error(`Failed to load upload job: ${res.status}`);
+    }
+
+    return res.json();
+}
+
+export async function getUploadJobResults(jobId) {
+    const res = await fetch(`http://localhost:8080/api/history/upload/jobs/${jobId}/results`);
+
+    if (!res.ok) {
+        throw new Error(`Failed to load upload results: ${res.status}`);
+    }
+
+    return res.json();
+}
+
+
+export async function getReadiness() {
+    const response = await fetch("http://localhost:8080/health/ready");
+
+    if (!response.ok && response.status !== 503) {
+        throw new Error(`Failed to load readiness: ${response.status}`);
+    }
+
+    return await response.json();
+}
+
+
+export async function getSimilarHosts(host, { k, metric, mode, probes } = {}) {
+    const params = new URLSearchParams({ host });
+    if (k != null) params.set("k", k);
+    if (metric) params.set("metric", metric);
+    if (mode) params.set("mode", mode);
+    if (probes != null) params.set("probes", probes);
+
+    const response = await fetch(`http://localhost:8080/api/hosts/similar?${params}`);
+
+    if (!response.ok) {
+        throw new Error(`Failed to load similar hosts: ${response.status}`);
+    }
+
+    return await response.json();
+}
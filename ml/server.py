@@ -1,10 +1,13 @@
 from typing import List, Optional
 
-from fastapi import UploadFile, File, HTTPException, FastAPI
-from pydantic import BaseModel
+from fastapi import UploadFile, File, HTTPException, FastAPI, Request, Response
+from fastapi.concurrency import run_in_threadpool
+from fastapi.exceptions import RequestValidationError
+from pydantic import BaseModel, TypeAdapter, ValidationError
 
-from ml_logic import classify_history_rows
+from ml_logic import classify_history_rows, topic_labels
 from history_parser import read_history_db
+import wire_format
 
 app = FastAPI()
 
@@ -41,14 +44,38 @@ class MlDataResponse(BaseModel):
     prob_other: float
 
 
-@app.post("/predict-history", response_model=List[MlDataResponse])
-def predict(items: List[MlDataRequest]):
-    rows = [item.dict() for item in items]
-    result_dicts = classify_history_rows(rows)
+_requests_adapter = TypeAdapter(List[MlDataRequest])
+_prob_keys = [f"prob_{label}" for label in topic_labels]
+
+
+def _respond(request: Request, result_dicts: List[dict]):
+    """Columnar batch if the client accepts one, JSON otherwise."""
+    if wire_format.MEDIA_TYPE in request.headers.get("accept", ""):
+        return Response(content=wire_format.encode_responses(result_dicts, _prob_keys),
+                        media_type=wire_format.MEDIA_TYPE)
     return [MlDataResponse(**d) for d in result_dicts]
 
+
+@app.post("/predict-history", response_model=List[MlDataResponse])
+async def predict(request: Request):
+    body = await request.body()
+    content_type = request.headers.get("content-type", "").split(";")[0].strip()
+    if content_type == wire_format.MEDIA_TYPE:
+        try:
+            rows = wire_format.decode_requests(body)
+        except ValueError as e:
+            raise HTTPException(status_code=400, detail=str(e))
+    else:
+        try:
+            items = _requests_adapter.validate_json(body)
+        except ValidationError as e:
+            raise RequestValidationError(e.errors())
+        rows = [item.dict() for item in items]
+    result_dicts = await run_in_threadpool(classify_history_rows, rows)
+    return _respond(request, result_dicts)
+
 @app.post("/predict-history/safari", response_model=List[MlDataResponse])
-async def predict_history_safari(file: UploadFile = File(...)):
+async def predict_history_safari(request: Request, file: UploadFile = File(...)):
     raw = await file.read()
     if not raw:
         raise HTTPException(status_code=400, detail="Uploaded file is empty")
@@ -62,7 +89,7 @@ async def predict_history_safari(file: UploadFile = File(...)):
         )
 
     result_dicts = classify_history_rows(history_rows)
-    return [MlDataResponse(**d) for d in result_dicts]
+    return _respond(request, result_dicts)
 
 
 @app.get("/health")
@@ -0,0 +1,135 @@
+"""Columnar batch format shared with the backend (HistoryColumns.java).
+
+Used instead of JSON arrays when the client sends or accepts
+MEDIA_TYPE. All numbers are big-endian.
+
+    request:  b"HCB1" int32 rows | title url host : strings | time_usec : int64
+    response: b"HCB1" int32 rows | uint8 k, k x (uint8 length, ascii name)
+              | title url host pred_topic : strings | time_usec : int64
+              | pred_prob : float64 | k x float64 (the named prob_* columns)
+
+A strings column is one int32 end offset per row into the UTF-8 bytes that
+follow it, bitwise-complemented for null. A null int64 is -2**63 and a null
+float64 is NaN.
+"""
+import math
+import struct
+import sys
+from array import array
+from typing import Any, Iterable, List, Mapping, Sequence
+
+MEDIA_TYPE = "application/x-history-columns"
+
+_MAGIC = b"HCB1"
+_NULL_LONG = -(2 ** 63)
+_SWAP = sys.byteorder == "little"
+
+
+def decode_requests(body: bytes) -> List[dict]:
+    reader = _Reader(body)
+    n = reader.header()
+    titles = reader.strings(n)
+    urls = reader.strings(n)
+    hosts = reader.strings(n)
+    times = reader.longs(n)
+    reader.end()
+
+    rows = []
+    for i in range(n):
+        if hosts[i] is None:
+            raise ValueError(f"Row {i} has no host")
+        rows.append({"title": titles[i], "url": urls[i], "time_usec": times[i], "host": hosts[i]})
+    return rows
+
+
+def encode_responses(rows: Sequence[Mapping[str, Any]], prob_keys: Sequence[str]) -> bytes:
+    out = [_MAGIC, struct.pack(">iB", len(rows), len(prob_keys))]
+    for key in prob_keys:
+        name = key.encode("ascii")
+        out.append(struct.pack(">B", len(name)))
+        out.append(name)
+    for column in ("title", "url", "host", "pred_topic"):
+        _put_strings(out, (row.get(column) for row in rows), len(rows))
+    _put_array(out, "q", (_NULL_LONG if row.get("time_usec") is None else row["time_usec"] for row in rows))
+    for column in ("pred_prob", *prob_keys):
+        _put_array(out, "d", (math.nan if row.get(column) is None else row[column] for row in rows))
+    return b"".join(out)
+
+
+def _put_strings(out: list, values: Iterable[Any], n: int) -> None:
+    ends = array("i", bytes(4 * n))
+    chunks = []
+    end = 0
+    for i, value in enumerate(values):
+        # pandas hands back NaN for missing text, so anything but a str is null.
+        if isinstance(value, str):
+            chunk = value.encode("utf-8")
+            chunks.append(chunk)
+            end += len(chunk)
+            ends[i] = end
+        else:
+            ends[i] = ~end
+    if _SWAP:
+        ends.byteswap()
+    out.append(ends.tobytes())
+    out.append(b"".join(chunks))
+
+
+def _put_array(out: list, typecode: str, values: Iterable[Any]) -> None:
+    column = array(typecode, values)
+    if _SWAP:
+        column.byteswap()
+    out.append(column.tobytes())
+
+
+class _Reader:
+
+    def __init__(self, body: bytes):
+        self.body = memoryview(body)
+        self.pos = 0
+
+    def header(self) -> int:
+        if bytes(self.take(4)) != _MAGIC:
+            raise ValueError("Not a history columns batch")
+        (n,) = struct.unpack(">i", self.take(4))
+        if n < 0:
+            raise ValueError(f"Bad row count {n}")
+        return n
+
+    def take(self, size: int) -> memoryview:
+        if self.pos + size > len(self.body):
+            raise ValueError("Truncated history columns batch")
+        chunk = self.body[self.pos:self.pos + size]
+        self.pos += size
+        return chunk
+
+    def column(self, typecode: str, n: int) -> array:
+        column = array(typecode)
+        column.frombytes(self.take(column.itemsize * n))
+        if _SWAP:
+            column.byteswap()
+        return column
+
+    def strings(self, n: int) -> List[Any]:
+        ends = self.column("i", n)
+        base = self.pos
+        start = 0
+        values = []
+        for end in ends:
+            if end < 0:
+                values.append(None)
+                start = ~end
+                continue
+            if end < start or base + end > len(self.body):
+                raise ValueError(f"Corrupt strings column at row {len(values)}")
+            values.append(str(self.body[base + start:base + end], "utf-8"))
+            start = end
+        self.pos = base + start
+        return values
+
+    def longs(self, n: int) -> List[Any]:
+        return [None if v == _NULL_LONG else v for v in self.column("q", n)]
+
+    def end(self) -> None:
+        if self.pos != len(self.body):
+            raise ValueError(f"{len(self.body) - self.pos} trailing bytes after batch")